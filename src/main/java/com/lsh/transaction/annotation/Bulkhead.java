@@ -0,0 +1,34 @@
+package com.lsh.transaction.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Bulkhead annotation capping concurrent executions of an operation
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+    
+    /**
+     * Name of the bulkhead, operations sharing a name share the permits
+     */
+    String name();
+    
+    /**
+     * Maximum number of concurrent executions
+     */
+    int maxConcurrentCalls() default 10;
+    
+    /**
+     * Maximum time to wait for a permit (milliseconds), 0 to fail immediately
+     */
+    long maxWaitDuration() default 0;
+    
+    /**
+     * Error message when the bulkhead is full
+     */
+    String message() default "Too many concurrent requests for this operation. Please try again later.";
+}
\ No newline at end of file
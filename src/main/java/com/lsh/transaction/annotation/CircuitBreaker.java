@@ -37,8 +37,23 @@ public @interface CircuitBreaker {
      */
     int waitDurationInOpenState() default 30;
     
+    /**
+     * Number of probe calls let through while HALF_OPEN; all must succeed to close the circuit
+     */
+    int permittedNumberOfCallsInHalfOpenState() default 5;
+    
+    /**
+     * Calls taking at least this long (milliseconds) are counted as slow
+     */
+    long slowCallDurationThreshold() default 5000;
+    
+    /**
+     * Slow call rate threshold (percentage) to open circuit breaker
+     */
+    double slowCallRateThreshold() default 100.0;
+    
     /**
      * Error message when circuit breaker is open
      */
     String message() default "Service temporarily unavailable. Please try again later.";
-} 
\ No newline at end of file
+}
\ No newline at end of file
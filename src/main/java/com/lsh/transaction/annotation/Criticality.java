@@ -0,0 +1,26 @@
+package com.lsh.transaction.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Criticality class of an endpoint, used to decide what is shed first under overload.
+ * Endpoints without the annotation are treated as {@link Level#DEFAULT}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Criticality {
+    
+    Level value();
+    
+    /**
+     * Criticality levels, most important first
+     */
+    enum Level {
+        CRITICAL,   // Never shed by queueing delay (payment creation, id lookups)
+        DEFAULT,    // Shed under heavy overload
+        SHEDDABLE   // Shed first (statistics, search, deep pagination)
+    }
+}
\ No newline at end of file
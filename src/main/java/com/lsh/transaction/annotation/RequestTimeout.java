@@ -0,0 +1,19 @@
+package com.lsh.transaction.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Default request deadline for an endpoint, used when the client sends no X-Request-Timeout header
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequestTimeout {
+    
+    /**
+     * Timeout in milliseconds
+     */
+    long value();
+}
\ No newline at end of file
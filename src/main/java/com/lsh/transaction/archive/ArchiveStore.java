@@ -0,0 +1,186 @@
+package com.lsh.transaction.archive;
+
+import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.model.TransactionFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * On-disk archive of transactions that aged out of the in-memory store.
+ * Each archival run writes one immutable {@link ColdSegment} per time partition. Segments are
+ * memory-mapped read-only, so archived transactions cost no heap beyond each segment's sparse
+ * block index and id bloom filter, and the OS page cache keeps the recently read blocks. Segments
+ * found in the archive directory at startup are mapped again and stay queryable.
+ * The directory must be configured explicitly when retention is enabled, since archived
+ * transactions are evicted from memory and live only there.
+ */
+@Component
+@Slf4j
+public class ArchiveStore {
+    
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final Comparator<ColdSegment> NEWEST_SEGMENT_FIRST = Comparator.comparing(ColdSegment::getNewest,
+            Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder())).reversed();
+    
+    private final Path directory;
+    // Keyed by segment sequence, which grows with every write
+    private final ConcurrentSkipListMap<Long, ColdSegment> segments = new ConcurrentSkipListMap<>();
+    private final AtomicLong nextSequence = new AtomicLong();
+    
+    public ArchiveStore(String directory) {
+        this(directory, true);
+    }
+    
+    @Autowired
+    public ArchiveStore(@Value("${app.retention.archive-dir:}") String directory,
+                        @Value("${app.retention.enabled:false}") boolean retentionEnabled) {
+        if (directory == null || directory.isBlank()) {
+            if (retentionEnabled) {
+                throw new IllegalStateException("app.retention.archive-dir must be set to a durable directory when retention is enabled");
+            }
+            // Nothing is archived without retention; reads find no segments
+            this.directory = null;
+            log.info("ArchiveStore initialized without a directory - Retention disabled");
+            return;
+        }
+        this.directory = Path.of(directory);
+        try {
+            Files.createDirectories(this.directory);
+            loadSegments();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open archive directory " + directory, e);
+        }
+        log.info("ArchiveStore initialized - Directory: {}, Segments: {}, Transactions: {}",
+                this.directory, segments.size(), countTransactions());
+    }
+    
+    /**
+     * Write the transactions as a new segment, in any order
+     * @return the segment file
+     */
+    public Path write(List<Transaction> transactions) throws IOException {
+        if (directory == null) {
+            throw new IOException("No archive directory configured");
+        }
+        long sequence = nextSequence.getAndIncrement();
+        Path file = directory.resolve(SEGMENT_PREFIX + sequence + SEGMENT_SUFFIX);
+        segments.put(sequence, ColdSegment.write(sequence, file, transactions));
+        return file;
+    }
+    
+    public Optional<Transaction> findById(UUID id) {
+        for (ColdSegment segment : segments.descendingMap().values()) {
+            Optional<Transaction> transaction = segment.findById(id);
+            if (transaction.isPresent()) {
+                return transaction;
+            }
+        }
+        return Optional.empty();
+    }
+    
+    public boolean existsById(UUID id) {
+        return findById(id).isPresent();
+    }
+    
+    /**
+     * Archived transactions matching the filter, newest first, skipping the first offset matches.
+     * Whole segments are skipped by their match count without sorting them.
+     */
+    public List<Transaction> search(TransactionFilter filter, long offset, int limit) {
+        List<Transaction> page = new ArrayList<>(Math.min(limit, 1024));
+        long skip = offset;
+        for (ColdSegment segment : candidates(filter)) {
+            if (page.size() >= limit) {
+                break;
+            }
+            if (page.isEmpty() && skip > 0) {
+                long matches = segment.count(filter);
+                if (matches <= skip) {
+                    skip -= matches;
+                    continue;
+                }
+            }
+            page.addAll(segment.page(filter, skip, limit - page.size()));
+            skip = 0;
+        }
+        return page;
+    }
+    
+    public long count(TransactionFilter filter) {
+        long total = 0;
+        for (ColdSegment segment : candidates(filter)) {
+            total += segment.count(filter);
+        }
+        return total;
+    }
+    
+    /**
+     * Archived transactions matching the filter, newest segment first, decoded lazily
+     */
+    public Stream<Transaction> stream(TransactionFilter filter) {
+        return candidates(filter).stream().flatMap(segment -> segment.stream(filter));
+    }
+    
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+    
+    public int getSegmentCount() {
+        return segments.size();
+    }
+    
+    public long getTransactionCount() {
+        return countTransactions();
+    }
+    
+    // Private so the constructor's log line does not call a method a subclass could override
+    private long countTransactions() {
+        return segments.values().stream().mapToLong(ColdSegment::getCount).sum();
+    }
+    
+    public long getSizeBytes() {
+        return segments.values().stream().mapToLong(ColdSegment::getSizeBytes).sum();
+    }
+    
+    private List<ColdSegment> candidates(TransactionFilter filter) {
+        List<ColdSegment> candidates = new ArrayList<>();
+        for (ColdSegment segment : segments.values()) {
+            if (segment.mayMatch(filter)) {
+                candidates.add(segment);
+            }
+        }
+        // Each segment holds one time partition, so newest segment first is newest first overall,
+        // except for a partition's late leftovers archived into a second segment
+        candidates.sort(NEWEST_SEGMENT_FIRST);
+        return candidates;
+    }
+    
+    private void loadSegments() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long sequence = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(sequence, ColdSegment.open(sequence, file));
+                nextSequence.accumulateAndGet(sequence + 1, Math::max);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,808 @@
+package com.lsh.transaction.archive;
+
+import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.model.TransactionFilter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Immutable, memory-mapped file of archived transactions.
+ * Records are sorted by account, then newest first, and grouped into blocks of
+ * {@link #BLOCK_SIZE}. Inside a block the account is written only when it changes, timestamps
+ * as varint deltas, amounts as varint unscaled values and type and status as one-byte codes;
+ * each block is then deflate-compressed on its own. A sparse block index (first and last
+ * account and the time bounds of every block) is read onto the heap when the segment is
+ * opened, while the id index, sorted ids with their block, is searched in the mapped file, so
+ * a lookup by account, time or id decompresses only the blocks that can match. The account
+ * index, also searched in the mapped file, holds each account's position and record count, so
+ * an account is counted without decoding and paged straight from its run of records, which is
+ * already newest first. Other pages walk the time order, the record positions sorted newest
+ * first, decoding blocks only as the page reaches them. A bloom filter
+ * over the ids, built from the id index on open at about two bytes per record, lets a lookup of
+ * an id the segment does not hold, such as every miss of the hot store, skip the search.
+ * A new segment is forced to disk, and so is its directory, before and after it is renamed into place.
+ *
+ * Layout: blocks, id index (id msb, id lsb, block number), account index (name offset, name
+ * length, first record, record count), account names, time order (record positions), block
+ * index, then a fixed trailer.
+ */
+class ColdSegment {
+    
+    static final int BLOCK_SIZE = 128;
+    
+    private static final int MAGIC = 0x54584354;
+    private static final int TRAILER_BYTES = 8 + 8 + 8 + 8 + 8 + 4 + 4 + 4 + 4;
+    private static final int ID_ENTRY_BYTES = 8 + 8 + 4;
+    private static final int ACCOUNT_ENTRY_BYTES = 4 + 4 + 4 + 4;
+    private static final int ID_FILTER_BITS_PER_ID = 10;
+    private static final int ID_FILTER_HASHES = 7;
+    private static final String[] TYPES = {"DEPOSIT", "WITHDRAWAL", "TRANSFER"};
+    private static final String[] STATUSES = {"PENDING", "COMPLETED", "FAILED", "CANCELLED"};
+    
+    private static final int SAME_ACCOUNT = 1;
+    private static final int HAS_TIMESTAMP = 1 << 1;
+    private static final int HAS_AMOUNT = 1 << 2;
+    private static final int LARGE_AMOUNT = 1 << 3;
+    
+    /**
+     * Account order, then newest first; null accounts and timestamps sort first
+     */
+    static final Comparator<Transaction> ORDER =
+            Comparator.comparing(Transaction::getAccountNumber, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+                    .thenComparing(Transaction::getTimestamp, Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()))
+                    .thenComparing(Transaction::getId, Comparator.reverseOrder());
+    
+    /**
+     * Page order: newest first, null timestamps last. Within one account it matches {@link #ORDER}.
+     */
+    static final Comparator<Transaction> NEWEST_FIRST =
+            Comparator.comparing(Transaction::getTimestamp, Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()))
+                    .thenComparing(Transaction::getId, Comparator.reverseOrder());
+    
+    private final long sequence;
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final Block[] blocks;
+    // Position of the first record of each block, for finding the block of a record position
+    private final int[] blockStarts;
+    private final long idIndexOffset;
+    private final long accountIndexOffset;
+    private final long accountNamesOffset;
+    private final int accountCount;
+    private final long timeOrderOffset;
+    private final long[] idFilter;
+    private final int count;
+    private final Map<String, Integer> typeCounts;
+    private final LocalDateTime oldest;
+    private final LocalDateTime newest;
+    
+    private ColdSegment(long sequence, Path file) throws IOException {
+        this.sequence = sequence;
+        this.file = file;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int trailer = buffer.capacity() - TRAILER_BYTES;
+        if (trailer < 0 || buffer.getInt(trailer + 52) != MAGIC) {
+            throw new IOException("Not a cold segment: " + file);
+        }
+        long blockIndexOffset = buffer.getLong(trailer);
+        this.idIndexOffset = buffer.getLong(trailer + 8);
+        this.accountIndexOffset = buffer.getLong(trailer + 16);
+        this.accountNamesOffset = buffer.getLong(trailer + 24);
+        this.timeOrderOffset = buffer.getLong(trailer + 32);
+        int blockCount = buffer.getInt(trailer + 40);
+        this.accountCount = buffer.getInt(trailer + 48);
+        
+        byte[] footer = new byte[(int) (trailer - blockIndexOffset)];
+        buffer.get((int) blockIndexOffset, footer);
+        Decoder decoder = new Decoder(footer);
+        this.blocks = new Block[blockCount];
+        this.blockStarts = new int[blockCount];
+        int records = 0;
+        LocalDateTime min = null;
+        LocalDateTime max = null;
+        for (int i = 0; i < blockCount; i++) {
+            Block block = new Block(decoder.readLong(), decoder.readVarInt(), decoder.readVarInt(), decoder.readVarInt(),
+                    decoder.readTimestamp(), decoder.readTimestamp());
+            blocks[i] = block;
+            blockStarts[i] = records;
+            records += block.count;
+            if (block.oldest != null && (min == null || block.oldest.isBefore(min))) {
+                min = block.oldest;
+            }
+            if (block.newest != null && (max == null || block.newest.isAfter(max))) {
+                max = block.newest;
+            }
+        }
+        Map<String, Integer> types = new HashMap<>();
+        int typeEntries = decoder.readVarInt();
+        for (int i = 0; i < typeEntries; i++) {
+            types.put(decoder.readString(), decoder.readVarInt());
+        }
+        this.count = records;
+        this.typeCounts = Map.copyOf(types);
+        this.oldest = min;
+        this.newest = max;
+        this.idFilter = buildIdFilter();
+    }
+    
+    static ColdSegment open(long sequence, Path file) throws IOException {
+        return new ColdSegment(sequence, file);
+    }
+    
+    /**
+     * Write the transactions as a new segment file and open it
+     */
+    static ColdSegment write(long sequence, Path file, List<Transaction> transactions) throws IOException {
+        List<Transaction> sorted = new ArrayList<>(transactions);
+        sorted.sort(ORDER);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+             OutputStream output = new BufferedOutputStream(Channels.newOutputStream(channel))) {
+            long offset = 0;
+            int blockCount = (sorted.size() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            Encoder footer = new Encoder();
+            Map<String, Integer> types = new HashMap<>();
+            IdEntry[] ids = new IdEntry[sorted.size()];
+            for (int b = 0; b < blockCount; b++) {
+                List<Transaction> records = sorted.subList(b * BLOCK_SIZE, Math.min((b + 1) * BLOCK_SIZE, sorted.size()));
+                Encoder raw = new Encoder();
+                LocalDateTime blockOldest = null;
+                LocalDateTime blockNewest = null;
+                String previousAccount = null;
+                long previousSecond = 0;
+                for (int i = 0; i < records.size(); i++) {
+                    Transaction transaction = records.get(i);
+                    ids[b * BLOCK_SIZE + i] = new IdEntry(transaction.getId(), b);
+                    if (transaction.getTransactionType() != null) {
+                        types.merge(transaction.getTransactionType(), 1, Integer::sum);
+                    }
+                    boolean sameAccount = i > 0 && Objects.equals(previousAccount, transaction.getAccountNumber());
+                    previousSecond = encode(raw, transaction, sameAccount, previousSecond);
+                    previousAccount = transaction.getAccountNumber();
+                    LocalDateTime timestamp = transaction.getTimestamp();
+                    if (timestamp != null) {
+                        blockOldest = blockOldest == null || timestamp.isBefore(blockOldest) ? timestamp : blockOldest;
+                        blockNewest = blockNewest == null || timestamp.isAfter(blockNewest) ? timestamp : blockNewest;
+                    }
+                }
+                byte[] compressed = compress(deflater, raw.bytes(), raw.length());
+                output.write(compressed);
+                footer.writeLong(offset);
+                footer.writeVarInt(compressed.length);
+                footer.writeVarInt(raw.length());
+                footer.writeVarInt(records.size());
+                footer.writeTimestamp(blockOldest);
+                footer.writeTimestamp(blockNewest);
+                offset += compressed.length;
+            }
+            footer.writeVarInt(types.size());
+            types.forEach((type, typeCount) -> {
+                footer.writeString(type);
+                footer.writeVarInt(typeCount);
+            });
+            
+            Arrays.sort(ids, Comparator.comparing(IdEntry::id));
+            long idIndexOffset = offset;
+            ByteBuffer entry = ByteBuffer.allocate(ID_ENTRY_BYTES);
+            for (IdEntry id : ids) {
+                entry.clear();
+                entry.putLong(id.id().getMostSignificantBits()).putLong(id.id().getLeastSignificantBits()).putInt(id.block());
+                output.write(entry.array());
+            }
+            
+            // Each account's run of records; accounts are in sorted order already, null ones first and left out
+            long accountIndexOffset = idIndexOffset + (long) ids.length * ID_ENTRY_BYTES;
+            Encoder names = new Encoder();
+            ByteBuffer accountEntry = ByteBuffer.allocate(ACCOUNT_ENTRY_BYTES);
+            int accountCount = 0;
+            for (int first = 0; first < sorted.size(); ) {
+                String account = sorted.get(first).getAccountNumber();
+                int end = first + 1;
+                while (end < sorted.size() && Objects.equals(account, sorted.get(end).getAccountNumber())) {
+                    end++;
+                }
+                if (account != null) {
+                    byte[] utf8 = account.getBytes(StandardCharsets.UTF_8);
+                    accountEntry.clear();
+                    accountEntry.putInt(names.length()).putInt(utf8.length).putInt(first).putInt(end - first);
+                    output.write(accountEntry.array());
+                    names.writeBytes(utf8, utf8.length);
+                    accountCount++;
+                }
+                first = end;
+            }
+            long accountNamesOffset = accountIndexOffset + (long) accountCount * ACCOUNT_ENTRY_BYTES;
+            output.write(names.bytes(), 0, names.length());
+            
+            long timeOrderOffset = accountNamesOffset + names.length();
+            int[] timeOrder = IntStream.range(0, sorted.size()).boxed()
+                    .sorted(Comparator.comparing(sorted::get, NEWEST_FIRST))
+                    .mapToInt(Integer::intValue).toArray();
+            ByteBuffer position = ByteBuffer.allocate(4);
+            for (int record : timeOrder) {
+                position.clear();
+                position.putInt(record);
+                output.write(position.array());
+            }
+            
+            long blockIndexOffset = timeOrderOffset + 4L * timeOrder.length;
+            output.write(footer.bytes(), 0, footer.length());
+            
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES);
+            trailer.putLong(blockIndexOffset).putLong(idIndexOffset).putLong(accountIndexOffset).putLong(accountNamesOffset)
+                    .putLong(timeOrderOffset).putInt(blockCount).putInt(sorted.size()).putInt(accountCount).putInt(MAGIC);
+            output.write(trailer.array());
+            output.flush();
+            // The contents must be durable before the rename can make them visible
+            channel.force(true);
+        } finally {
+            deflater.end();
+        }
+        syncDirectory(file.getParent());
+        // Readers only ever see complete segments
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(file.getParent());
+        return open(sequence, file);
+    }
+    
+    /**
+     * Force the directory's entries to disk, so a created or renamed file survives a crash
+     */
+    private static void syncDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (AccessDeniedException e) {
+            // Windows cannot open a directory as a channel, and its renames are durable without this
+        }
+    }
+    
+    Optional<Transaction> findById(UUID id) {
+        if (!mayContain(id)) {
+            return Optional.empty();
+        }
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int position = (int) (idIndexOffset + (long) middle * ID_ENTRY_BYTES);
+            int cmp = new UUID(buffer.getLong(position), buffer.getLong(position + 8)).compareTo(id);
+            if (cmp == 0) {
+                int block = buffer.getInt(position + 16);
+                return decode(block).stream().filter(transaction -> id.equals(transaction.getId())).findFirst();
+            }
+            if (cmp < 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return Optional.empty();
+    }
+    
+    boolean contains(UUID id) {
+        return findById(id).isPresent();
+    }
+    
+    /**
+     * Transactions matching the filter, decoding only the blocks that can hold matches.
+     * In segment order: by account, then newest first.
+     */
+    Stream<Transaction> stream(TransactionFilter filter) {
+        if (!mayMatch(filter)) {
+            return Stream.empty();
+        }
+        return candidateBlocks(filter)
+                .mapToObj(this::decode)
+                .flatMap(List::stream)
+                .filter(filter::matches);
+    }
+    
+    /**
+     * Matches of the filter, newest first, skipping the first skip matches.
+     * An account is paged from its run of records and an unfiltered page starts at its position
+     * in the time order; other filters walk the time order. Either way only the blocks the page
+     * reaches are decoded, and a lower time bound ends the walk at the first older record.
+     */
+    List<Transaction> page(TransactionFilter filter, long skip, int limit) {
+        List<Transaction> page = new ArrayList<>(Math.min(limit, 1024));
+        if (limit <= 0 || !mayMatch(filter)) {
+            return page;
+        }
+        IntUnaryOperator recordAt;
+        int size;
+        boolean positional;
+        if (filter.getAccountNumber() != null) {
+            int entry = findAccount(filter.getAccountNumber());
+            int first = accountField(entry, 8);
+            recordAt = i -> first + i;
+            size = accountField(entry, 12);
+            positional = isAccountOnly(filter);
+        } else {
+            recordAt = i -> buffer.getInt((int) (timeOrderOffset + 4L * i));
+            size = count;
+            positional = filter.isEmpty();
+        }
+        Map<Integer, List<Transaction>> decoded = new HashMap<>();
+        long toSkip = positional ? 0 : skip;
+        LocalDateTime from = filter.getFrom();
+        for (long i = positional ? skip : 0; i < size && page.size() < limit; i++) {
+            Transaction transaction = record(recordAt.applyAsInt((int) i), decoded);
+            if (from != null && (transaction.getTimestamp() == null || transaction.getTimestamp().isBefore(from))) {
+                // Newest first: everything after this is older still
+                break;
+            }
+            if (!filter.matches(transaction)) {
+                continue;
+            }
+            if (toSkip > 0) {
+                toSkip--;
+                continue;
+            }
+            page.add(transaction);
+        }
+        return page;
+    }
+    
+    long count(TransactionFilter filter) {
+        if (filter.isEmpty()) {
+            return count;
+        }
+        if (isAccountOnly(filter)) {
+            int entry = findAccount(filter.getAccountNumber());
+            return entry < 0 ? 0 : accountField(entry, 12);
+        }
+        if (isTypeOnly(filter)) {
+            return typeCounts.getOrDefault(filter.getTransactionType(), 0);
+        }
+        return stream(filter).count();
+    }
+    
+    boolean mayMatch(TransactionFilter filter) {
+        if (filter.getAccountNumber() != null && findAccount(filter.getAccountNumber()) < 0) {
+            return false;
+        }
+        if (oldest == null || newest == null) {
+            return true;
+        }
+        return (filter.getTo() == null || oldest.isBefore(filter.getTo()))
+                && (filter.getFrom() == null || !newest.isBefore(filter.getFrom()));
+    }
+    
+    long getSequence() {
+        return sequence;
+    }
+    
+    Path getFile() {
+        return file;
+    }
+    
+    int getCount() {
+        return count;
+    }
+    
+    long getSizeBytes() {
+        return buffer.capacity();
+    }
+    
+    LocalDateTime getNewest() {
+        return newest;
+    }
+    
+    /**
+     * False if the segment certainly does not hold the id
+     */
+    boolean mayContain(UUID id) {
+        long hash = idHash(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        int mask = (idFilter.length << 6) - 1;
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < ID_FILTER_HASHES; i++) {
+            int bit = (h1 + i * h2) & mask;
+            if ((idFilter[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private long[] buildIdFilter() {
+        long bits = Math.max(64, (long) count * ID_FILTER_BITS_PER_ID);
+        int size = (int) Math.min(1 << 30, Long.highestOneBit(bits - 1) << 1);
+        long[] filter = new long[size >>> 6];
+        int mask = size - 1;
+        for (int i = 0; i < count; i++) {
+            int position = (int) (idIndexOffset + (long) i * ID_ENTRY_BYTES);
+            long hash = idHash(buffer.getLong(position), buffer.getLong(position + 8));
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32) | 1;
+            for (int k = 0; k < ID_FILTER_HASHES; k++) {
+                int bit = (h1 + k * h2) & mask;
+                filter[bit >>> 6] |= 1L << bit;
+            }
+        }
+        return filter;
+    }
+    
+    /**
+     * 64-bit mix of both halves of an id; the two 32-bit halves of the result seed the filter's probes
+     */
+    private static long idHash(long msb, long lsb) {
+        long hash = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+    
+    private IntStream candidateBlocks(TransactionFilter filter) {
+        int from = 0;
+        int to = blocks.length;
+        String account = filter.getAccountNumber();
+        if (account != null) {
+            // Only the blocks the account's run of records spans
+            int entry = findAccount(account);
+            int first = accountField(entry, 8);
+            from = blockOf(first);
+            to = blockOf(first + accountField(entry, 12) - 1) + 1;
+        }
+        return IntStream.range(from, to).filter(b -> blocks[b].mayMatch(filter.getFrom(), filter.getTo()));
+    }
+    
+    /**
+     * Entry of the account in the account index, or -1 if the segment holds none of its records
+     */
+    private int findAccount(String account) {
+        int low = 0;
+        int high = accountCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int position = (int) (accountIndexOffset + (long) middle * ACCOUNT_ENTRY_BYTES);
+            byte[] name = new byte[buffer.getInt(position + 4)];
+            buffer.get((int) (accountNamesOffset + buffer.getInt(position)), name);
+            int cmp = new String(name, StandardCharsets.UTF_8).compareTo(account);
+            if (cmp == 0) {
+                return middle;
+            }
+            if (cmp < 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Field of an account index entry: 8 for its first record, 12 for its record count
+     */
+    private int accountField(int entry, int field) {
+        return buffer.getInt((int) (accountIndexOffset + (long) entry * ACCOUNT_ENTRY_BYTES + field));
+    }
+    
+    private int blockOf(int record) {
+        int block = Arrays.binarySearch(blockStarts, record);
+        return block >= 0 ? block : -block - 2;
+    }
+    
+    /**
+     * The record at a position in segment order, decoding its block once per call
+     */
+    private Transaction record(int record, Map<Integer, List<Transaction>> decoded) {
+        int block = blockOf(record);
+        return decoded.computeIfAbsent(block, this::decode).get(record - blockStarts[block]);
+    }
+    
+    private static boolean isAccountOnly(TransactionFilter filter) {
+        return filter.getAccountNumber() != null && filter.getTransactionType() == null && filter.getStatus() == null
+                && filter.getRecipientAccount() == null && filter.getMinAmount() == null
+                && filter.getMaxAmount() == null && filter.getFrom() == null && filter.getTo() == null;
+    }
+    
+    private static boolean isTypeOnly(TransactionFilter filter) {
+        return filter.getTransactionType() != null && filter.getAccountNumber() == null && filter.getStatus() == null
+                && filter.getRecipientAccount() == null && filter.getMinAmount() == null
+                && filter.getMaxAmount() == null && filter.getFrom() == null && filter.getTo() == null;
+    }
+    
+    private List<Transaction> decode(int blockNumber) {
+        Block block = blocks[blockNumber];
+        byte[] raw = new byte[block.rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(buffer.slice((int) block.offset, block.compressedLength));
+            inflater.inflate(raw);
+        } catch (DataFormatException e) {
+            throw new UncheckedIOException(new IOException("Corrupt block " + blockNumber + " in " + file, e));
+        } finally {
+            inflater.end();
+        }
+        Decoder decoder = new Decoder(raw);
+        List<Transaction> transactions = new ArrayList<>(block.count);
+        String account = null;
+        long second = 0;
+        for (int i = 0; i < block.count; i++) {
+            int flags = decoder.readByte();
+            if ((flags & SAME_ACCOUNT) == 0) {
+                account = decoder.readString();
+            }
+            Transaction transaction = new Transaction();
+            transaction.setId(new UUID(decoder.readLong(), decoder.readLong()));
+            transaction.setAccountNumber(account);
+            transaction.setTransactionType(decoder.readCode(TYPES));
+            transaction.setStatus(decoder.readCode(STATUSES));
+            if ((flags & HAS_TIMESTAMP) != 0) {
+                second += decoder.readZigZag();
+                transaction.setTimestamp(LocalDateTime.ofEpochSecond(second, decoder.readVarInt(), ZoneOffset.UTC));
+            } else {
+                transaction.setTimestamp(null);
+            }
+            if ((flags & LARGE_AMOUNT) != 0) {
+                transaction.setAmount(new BigDecimal(decoder.readString()));
+            } else if ((flags & HAS_AMOUNT) != 0) {
+                int scale = decoder.readVarInt();
+                transaction.setAmount(BigDecimal.valueOf(decoder.readZigZag(), scale));
+            }
+            transaction.setDescription(decoder.readString());
+            transaction.setRecipientAccount(decoder.readString());
+            transactions.add(transaction);
+        }
+        return transactions;
+    }
+    
+    /**
+     * Append one record to the block; returns the epoch second the next delta is taken from
+     */
+    private static long encode(Encoder out, Transaction transaction, boolean sameAccount, long previousSecond) {
+        LocalDateTime timestamp = transaction.getTimestamp();
+        BigDecimal amount = transaction.getAmount();
+        boolean largeAmount = amount != null && (amount.scale() < 0 || amount.unscaledValue().bitLength() > 63);
+        int flags = (sameAccount ? SAME_ACCOUNT : 0)
+                | (timestamp != null ? HAS_TIMESTAMP : 0)
+                | (amount != null ? HAS_AMOUNT : 0)
+                | (largeAmount ? LARGE_AMOUNT : 0);
+        out.writeByte(flags);
+        if (!sameAccount) {
+            out.writeString(transaction.getAccountNumber());
+        }
+        out.writeLong(transaction.getId().getMostSignificantBits());
+        out.writeLong(transaction.getId().getLeastSignificantBits());
+        out.writeCode(TYPES, transaction.getTransactionType());
+        out.writeCode(STATUSES, transaction.getStatus());
+        long second = previousSecond;
+        if (timestamp != null) {
+            second = timestamp.toEpochSecond(ZoneOffset.UTC);
+            out.writeZigZag(second - previousSecond);
+            out.writeVarInt(timestamp.getNano());
+        }
+        if (largeAmount) {
+            out.writeString(amount.toPlainString());
+        } else if (amount != null) {
+            out.writeVarInt(amount.scale());
+            out.writeZigZag(amount.unscaledValue().longValueExact());
+        }
+        out.writeString(transaction.getDescription());
+        out.writeString(transaction.getRecipientAccount());
+        return second;
+    }
+    
+    private static byte[] compress(Deflater deflater, byte[] input, int length) {
+        deflater.reset();
+        deflater.setInput(input, 0, length);
+        deflater.finish();
+        Encoder out = new Encoder();
+        byte[] chunk = new byte[Math.max(64, length / 2)];
+        while (!deflater.finished()) {
+            int written = deflater.deflate(chunk);
+            out.writeBytes(chunk, written);
+        }
+        return Arrays.copyOf(out.bytes(), out.length());
+    }
+    
+    private record IdEntry(UUID id, int block) {
+    }
+    
+    /**
+     * Sparse index entry of one block
+     */
+    private record Block(long offset, int compressedLength, int rawLength, int count, LocalDateTime oldest,
+                         LocalDateTime newest) {
+        
+        boolean mayMatch(LocalDateTime from, LocalDateTime to) {
+            if (oldest == null) {
+                // Only records without a timestamp, which no time range matches
+                return from == null && to == null;
+            }
+            return (to == null || oldest.isBefore(to)) && (from == null || !newest.isBefore(from));
+        }
+    }
+    
+    /**
+     * Growable byte buffer with varint, zigzag and length-prefixed string encodings
+     */
+    private static final class Encoder {
+        private byte[] bytes = new byte[256];
+        private int length;
+        
+        void writeByte(int value) {
+            ensure(1);
+            bytes[length++] = (byte) value;
+        }
+        
+        void writeBytes(byte[] source, int count) {
+            ensure(count);
+            System.arraycopy(source, 0, bytes, length, count);
+            length += count;
+        }
+        
+        void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                writeByte((int) (value >>> shift));
+            }
+        }
+        
+        void writeVarInt(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+        
+        void writeZigZag(long value) {
+            writeVarInt((value << 1) ^ (value >> 63));
+        }
+        
+        /**
+         * Length + 1 so that 0 stands for null
+         */
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(utf8.length + 1L);
+            writeBytes(utf8, utf8.length);
+        }
+        
+        /**
+         * Known values as their index, anything else as 255 followed by the string
+         */
+        void writeCode(String[] codes, String value) {
+            for (int i = 0; i < codes.length; i++) {
+                if (codes[i].equals(value)) {
+                    writeByte(i);
+                    return;
+                }
+            }
+            writeByte(255);
+            writeString(value);
+        }
+        
+        void writeTimestamp(LocalDateTime value) {
+            if (value == null) {
+                writeByte(0);
+                return;
+            }
+            writeByte(1);
+            writeZigZag(value.toEpochSecond(ZoneOffset.UTC));
+            writeVarInt(value.getNano());
+        }
+        
+        byte[] bytes() {
+            return bytes;
+        }
+        
+        int length() {
+            return length;
+        }
+        
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+    
+    private static final class Decoder {
+        private final byte[] bytes;
+        private int position;
+        
+        Decoder(byte[] bytes) {
+            this.bytes = bytes;
+        }
+        
+        int readByte() {
+            return bytes[position++] & 0xFF;
+        }
+        
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | readByte();
+            }
+            return value;
+        }
+        
+        int readVarInt() {
+            return (int) readVarLong();
+        }
+        
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+        
+        long readZigZag() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+        
+        String readString() {
+            int length = (int) readVarLong() - 1;
+            if (length < 0) {
+                return null;
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+        
+        String readCode(String[] codes) {
+            int code = readByte();
+            return code == 255 ? readString() : codes[code];
+        }
+        
+        LocalDateTime readTimestamp() {
+            if (readByte() == 0) {
+                return null;
+            }
+            return LocalDateTime.ofEpochSecond(readZigZag(), readVarInt(), ZoneOffset.UTC);
+        }
+    }
+}
\ No newline at end of file
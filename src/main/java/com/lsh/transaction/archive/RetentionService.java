@@ -0,0 +1,175 @@
+package com.lsh.transaction.archive;
+
+import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.model.TransactionFilter;
+import com.lsh.transaction.repository.TieredTransactionRepository;
+import com.lsh.transaction.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the last hot-days of transactions in memory and moves older ones to the {@link ArchiveStore}.
+ * A background run walks the time partitions that ended before the cutoff, oldest first: each
+ * partition's settled transactions are written as one cold segment and then evicted from the
+ * store in small chunks, so writers (or the single writer thread) are only held up for one chunk
+ * at a time and garbage is produced one partition at a time. The segment is written from copies
+ * taken up front, and a transaction updated after its copy was taken is not evicted, so the update
+ * is not lost. Pending transactions stay in memory until they are settled. Balances are not touched.
+ */
+@Component
+@Slf4j
+public class RetentionService {
+    
+    private final TransactionRepository transactionRepository;
+    private final ArchiveStore archiveStore;
+    private final int hotDays;
+    private final long partitionMinutes;
+    private final int evictBatchSize;
+    private final long intervalMinutes;
+    private final ScheduledExecutorService scheduler;
+    
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong archived = new AtomicLong();
+    private volatile LocalDateTime lastRunAt;
+    private volatile long lastRunMillis;
+    
+    public RetentionService(@Qualifier(TieredTransactionRepository.HOT) TransactionRepository transactionRepository,
+                            ArchiveStore archiveStore,
+                            @Value("${app.retention.enabled:false}") boolean enabled,
+                            @Value("${app.retention.hot-days:30}") int hotDays,
+                            @Value("${app.retention.interval-minutes:10}") long intervalMinutes,
+                            @Value("${app.retention.evict-batch-size:1000}") int evictBatchSize,
+                            @Value("${app.repository.partition-minutes:60}") long partitionMinutes) {
+        this.transactionRepository = transactionRepository;
+        this.archiveStore = archiveStore;
+        this.hotDays = hotDays;
+        this.partitionMinutes = partitionMinutes;
+        this.evictBatchSize = Math.max(1, evictBatchSize);
+        this.intervalMinutes = intervalMinutes;
+        this.scheduler = enabled
+                ? Executors.newSingleThreadScheduledExecutor(
+                        Thread.ofPlatform().name("retention").daemon().priority(Thread.MIN_PRIORITY).factory())
+                : null;
+        log.info("RetentionService initialized - Enabled: {}, HotDays: {}, Interval: {}min", enabled, hotDays, intervalMinutes);
+    }
+    
+    /**
+     * Schedule the archive runs once the service is fully constructed
+     */
+    @PostConstruct
+    public void start() {
+        if (scheduler != null) {
+            scheduler.scheduleWithFixedDelay(this::run, intervalMinutes, Math.max(1, intervalMinutes), TimeUnit.MINUTES);
+        }
+    }
+    
+    /**
+     * Archive and evict every settled transaction in partitions that ended before the cutoff
+     * @return the number of transactions archived
+     */
+    public int archiveBefore(LocalDateTime cutoff) {
+        int total = 0;
+        for (Map.Entry<LocalDateTime, Integer> partition : transactionRepository.getTimePartitions().entrySet()) {
+            LocalDateTime start = partition.getKey();
+            LocalDateTime end = start.plusMinutes(partitionMinutes);
+            if (end.isAfter(cutoff)) {
+                // Partitions come oldest first
+                break;
+            }
+            if (partition.getValue() > 0) {
+                total += archivePartition(start, end);
+            }
+        }
+        return total;
+    }
+    
+    public int getHotDays() {
+        return hotDays;
+    }
+    
+    public long getRunCount() {
+        return runs.get();
+    }
+    
+    public long getArchivedCount() {
+        return archived.get();
+    }
+    
+    public LocalDateTime getLastRunAt() {
+        return lastRunAt;
+    }
+    
+    public long getLastRunMillis() {
+        return lastRunMillis;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+    
+    private void run() {
+        long startTime = System.currentTimeMillis();
+        try {
+            int count = archiveBefore(LocalDateTime.now().minusDays(hotDays));
+            if (count > 0) {
+                log.info("Retention run archived transactions - Count: {}, Duration: {}ms",
+                        count, System.currentTimeMillis() - startTime);
+            }
+        } catch (RuntimeException e) {
+            // Keep the schedule alive; whatever was not archived is retried next run
+            log.error("Retention run failed - Error: {}", e.getMessage(), e);
+        } finally {
+            runs.incrementAndGet();
+            lastRunAt = LocalDateTime.now();
+            lastRunMillis = System.currentTimeMillis() - startTime;
+        }
+    }
+    
+    private int archivePartition(LocalDateTime start, LocalDateTime end) {
+        TransactionFilter filter = new TransactionFilter();
+        filter.setFrom(start.equals(LocalDateTime.MIN) ? null : start);
+        filter.setTo(end);
+        // Transactions are updated in place, so archive copies and evict only those still equal to them
+        List<Transaction> settled = transactionRepository.stream(filter)
+                .filter(transaction -> !"PENDING".equals(transaction.getStatus()))
+                .map(Transaction::new)
+                .toList();
+        if (settled.isEmpty()) {
+            return 0;
+        }
+        
+        Path segment;
+        try {
+            segment = archiveStore.write(settled);
+        } catch (IOException e) {
+            log.error("Failed to archive partition - Start: {}, Error: {}", start, e.getMessage(), e);
+            return 0;
+        }
+        int evicted = 0;
+        for (int from = 0; from < settled.size(); from += evictBatchSize) {
+            evicted += transactionRepository.evict(new ArrayList<>(settled.subList(from, Math.min(from + evictBatchSize, settled.size()))));
+        }
+        archived.addAndGet(evicted);
+        log.info("Partition archived - Start: {}, Transactions: {}, Updated meanwhile and kept: {}, Segment: {}",
+                start, evicted, settled.size() - evicted, segment.getFileName());
+        return evicted;
+    }
+}
\ No newline at end of file
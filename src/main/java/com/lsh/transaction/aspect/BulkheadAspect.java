@@ -0,0 +1,91 @@
+package com.lsh.transaction.aspect;
+
+import com.lsh.transaction.annotation.Bulkhead;
+import com.lsh.transaction.bulkhead.MemoryBulkhead;
+import com.lsh.transaction.exception.BulkheadFullException;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AOP aspect for handling bulkhead functionality.
+ * For methods returning a CompletionStage the permit is held until the stage completes,
+ * so asynchronous work on virtual threads is capped as well.
+ */
+@Aspect
+@Component
+public class BulkheadAspect {
+    
+    @Autowired
+    private MemoryBulkhead memoryBulkhead;
+    
+    private final ConcurrentHashMap<Method, BulkheadBinding> bindings = new ConcurrentHashMap<>();
+    
+    @Around("@annotation(com.lsh.transaction.annotation.Bulkhead)")
+    public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
+        BulkheadBinding binding = bindingFor(joinPoint);
+        MemoryBulkhead.BulkheadState bulkhead = binding.bulkhead;
+        
+        if (!bulkhead.tryAcquire(binding.maxWaitDuration)) {
+            throw new BulkheadFullException(binding.message);
+        }
+        
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            bulkhead.release();
+            throw e;
+        }
+        
+        if (result instanceof CompletionStage<?> stage) {
+            // Release once the asynchronous work is done
+            stage.whenComplete((value, error) -> bulkhead.release());
+        } else {
+            bulkhead.release();
+        }
+        return result;
+    }
+    
+    private BulkheadBinding bindingFor(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        BulkheadBinding binding = bindings.get(method);
+        if (binding == null) {
+            Class<?> targetClass = joinPoint.getTarget().getClass();
+            binding = bindings.computeIfAbsent(method, m -> buildBinding(m, targetClass));
+        }
+        return binding;
+    }
+    
+    private BulkheadBinding buildBinding(Method method, Class<?> targetClass) {
+        // With interface based proxies the signature holds the interface method
+        Bulkhead annotation = AopUtils.getMostSpecificMethod(method, targetClass).getAnnotation(Bulkhead.class);
+        return new BulkheadBinding(
+                memoryBulkhead.bulkhead(annotation.name(), annotation.maxConcurrentCalls()),
+                annotation.maxWaitDuration(),
+                annotation.message());
+    }
+    
+    /**
+     * Bulkhead resolved for an annotated method
+     */
+    static final class BulkheadBinding {
+        final MemoryBulkhead.BulkheadState bulkhead;
+        final long maxWaitDuration;
+        final String message;
+        
+        BulkheadBinding(MemoryBulkhead.BulkheadState bulkhead, long maxWaitDuration, String message) {
+            this.bulkhead = bulkhead;
+            this.maxWaitDuration = maxWaitDuration;
+            this.message = message;
+        }
+    }
+}
\ No newline at end of file
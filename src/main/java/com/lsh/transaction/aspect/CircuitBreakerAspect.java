@@ -6,9 +6,13 @@ import com.lsh.transaction.exception.CircuitBreakerOpenException;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * AOP aspect for handling circuit breaker functionality
  */
@@ -19,29 +23,73 @@ public class CircuitBreakerAspect {
     @Autowired
     private MemoryCircuitBreaker circuitBreaker;
     
-    @Around("@annotation(circuitBreaker)")
-    public Object around(ProceedingJoinPoint joinPoint, CircuitBreaker circuitBreaker) throws Throwable {
-        String name = circuitBreaker.name();
+    private final ConcurrentHashMap<Method, BreakerBinding> bindings = new ConcurrentHashMap<>();
+    
+    /**
+     * The pointcut binds no arguments so Spring can match it statically;
+     * the annotation is read once per method into its binding.
+     */
+    @Around("@annotation(com.lsh.transaction.annotation.CircuitBreaker)")
+    public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
+        BreakerBinding binding = bindingFor(joinPoint);
+        MemoryCircuitBreaker.CircuitBreakerState breaker = binding.breaker;
         
-        // Check if circuit breaker is open
-        if (!this.circuitBreaker.isAllowed(name)) {
-            throw new CircuitBreakerOpenException(circuitBreaker.message());
+        // Check if circuit breaker is open; the outcome is reported against the phase that admitted the call
+        MemoryCircuitBreaker.Phase admitted = breaker.tryAcquire();
+        if (admitted == null) {
+            throw new CircuitBreakerOpenException(binding.message);
         }
         
+        long start = System.nanoTime();
         try {
             // Execute the method
             Object result = joinPoint.proceed();
             
-            // Record success
-            this.circuitBreaker.recordSuccess(name);
+            // Record success, counted as slow when over the threshold
+            breaker.recordSuccess(admitted, System.nanoTime() - start);
             
             return result;
-        } catch (Exception e) {
-            // Record failure
-            this.circuitBreaker.recordFailure(name);
+        } catch (Throwable e) {
+            // Record failure; errors count too so a half-open probe permit is never left unresolved
+            breaker.recordFailure(admitted, System.nanoTime() - start);
             
             // Re-throw the exception
             throw e;
         }
     }
-} 
\ No newline at end of file
+    
+    private BreakerBinding bindingFor(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        BreakerBinding binding = bindings.get(method);
+        if (binding == null) {
+            binding = bindings.computeIfAbsent(method, this::buildBinding);
+        }
+        return binding;
+    }
+    
+    private BreakerBinding buildBinding(Method method) {
+        CircuitBreaker annotation = method.getAnnotation(CircuitBreaker.class);
+        MemoryCircuitBreaker.Config config = new MemoryCircuitBreaker.Config(
+                annotation.failureRateThreshold(),
+                annotation.minimumNumberOfCalls(),
+                annotation.slidingWindowSize(),
+                annotation.waitDurationInOpenState(),
+                annotation.permittedNumberOfCallsInHalfOpenState(),
+                annotation.slowCallDurationThreshold(),
+                annotation.slowCallRateThreshold());
+        return new BreakerBinding(circuitBreaker.breaker(annotation.name(), config), annotation.message());
+    }
+    
+    /**
+     * Breaker resolved for an annotated method
+     */
+    static final class BreakerBinding {
+        final MemoryCircuitBreaker.CircuitBreakerState breaker;
+        final String message;
+        
+        BreakerBinding(MemoryCircuitBreaker.CircuitBreakerState breaker, String message) {
+            this.breaker = breaker;
+            this.message = message;
+        }
+    }
+}
\ No newline at end of file
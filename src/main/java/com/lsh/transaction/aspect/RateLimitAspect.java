@@ -1,20 +1,37 @@
 package com.lsh.transaction.aspect;
 
 import com.lsh.transaction.annotation.RateLimit;
-import com.lsh.transaction.annotation.RateLimits;
 import com.lsh.transaction.exception.RateLimitExceededException;
+import com.lsh.transaction.idempotency.IdempotencyStore;
 import com.lsh.transaction.limiter.MemoryRateLimiter;
+import com.lsh.transaction.limiter.RateLimitDecision;
+import com.lsh.transaction.model.TransactionRequest;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestHeader;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * AOP aspect for handling rate limiting
@@ -23,76 +40,236 @@ import org.springframework.stereotype.Component;
 @Component
 public class RateLimitAspect {
     
+    /**
+     * Expressions of the form "#param" or "#param.property" are resolved without SpEL
+     */
+    private static final Pattern SIMPLE_EXPRESSION = Pattern.compile("^#(\\w+)(?:\\.(\\w+))?$");
+    
+    /**
+     * Parameter names used when the compiled class carries no parameter metadata
+     */
+    private static final String[] FALLBACK_PARAMETER_NAMES = {"request", "id", "accountNumber", "transactionType"};
+    
     @Autowired
     @Qualifier("memoryRateLimiter")
     private MemoryRateLimiter rateLimiter;
     
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+    
     private final ExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final ConcurrentHashMap<Method, RateLimitPlan> plans = new ConcurrentHashMap<>();
     
-    @Around("@annotation(rateLimit)")
-    public Object around(ProceedingJoinPoint joinPoint, RateLimit rateLimit) throws Throwable {
-        String key = generateKey(joinPoint, rateLimit);
-        
-        if (!rateLimiter.isAllowed(key, rateLimit.limit(), rateLimit.window())) {
-            throw new RateLimitExceededException(rateLimit.message());
-        }
-        
+    /**
+     * Single advice for one or many rate limits. The pointcut binds no arguments so Spring
+     * can match it statically; the annotations are read once into the method's plan.
+     */
+    @Around("@annotation(com.lsh.transaction.annotation.RateLimit) || @annotation(com.lsh.transaction.annotation.RateLimits)")
+    public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
+        planFor(joinPoint).check(joinPoint.getArgs());
         return joinPoint.proceed();
     }
     
-    @Around("@annotation(rateLimits)")
-    public Object aroundMultiple(ProceedingJoinPoint joinPoint, RateLimits rateLimits) throws Throwable {
-        // Check all rate limiting rules
-        for (RateLimit rateLimit : rateLimits.value()) {
-            String key = generateKey(joinPoint, rateLimit);
-            
-            if (!rateLimiter.isAllowed(key, rateLimit.limit(), rateLimit.window())) {
-                throw new RateLimitExceededException(rateLimit.message());
+    /**
+     * Get the resolved plan for the intercepted method, building it on first use
+     */
+    RateLimitPlan planFor(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        RateLimitPlan plan = plans.get(method);
+        if (plan == null) {
+            String defaultKey = joinPoint.getSignature().toShortString();
+            plan = plans.computeIfAbsent(method, m -> buildPlan(m, defaultKey));
+        }
+        return plan;
+    }
+    
+    private RateLimitPlan buildPlan(Method method, String defaultKey) {
+        RateLimit[] rateLimits = method.getAnnotationsByType(RateLimit.class);
+        Rule[] rules = new Rule[rateLimits.length];
+        for (int i = 0; i < rateLimits.length; i++) {
+            rules[i] = buildRule(method, rateLimits[i], defaultKey);
+        }
+        return new RateLimitPlan(rules, idempotencyKeyIndex(method), requestIndex(method));
+    }
+    
+    /**
+     * Index of the Idempotency-Key header parameter, or -1 when the method takes none
+     */
+    private static int idempotencyKeyIndex(Method method) {
+        Parameter[] parameters = method.getParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            RequestHeader header = parameters[i].getAnnotation(RequestHeader.class);
+            if (header != null && (IdempotencyStore.HEADER.equalsIgnoreCase(header.value())
+                    || IdempotencyStore.HEADER.equalsIgnoreCase(header.name()))) {
+                return i;
             }
         }
-        
-        return joinPoint.proceed();
+        return -1;
+    }
+    
+    /**
+     * Index of the transaction request parameter, whose account scopes the idempotency key, or -1
+     */
+    private static int requestIndex(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        for (int i = 0; i < types.length; i++) {
+            if (TransactionRequest.class.equals(types[i])) {
+                return i;
+            }
+        }
+        return -1;
     }
     
-    private String generateKey(ProceedingJoinPoint joinPoint, RateLimit rateLimit) {
+    private Rule buildRule(Method method, RateLimit rateLimit, String defaultKey) {
         // Priority: use custom key
         if (!rateLimit.key().isEmpty()) {
-            return rateLimit.key();
+            return new Rule(rateLimit, rateLimiter.counter(rateLimit.key()), null);
         }
         
         // Use SpEL expression to generate dynamic key
         if (!rateLimit.keyExpression().isEmpty()) {
-            return evaluateExpression(joinPoint, rateLimit.keyExpression());
+            return new Rule(rateLimit, null, compileKeyExtractor(method, rateLimit.keyExpression(), defaultKey));
         }
         
         // Default: use method signature as key
-        String methodName = joinPoint.getSignature().toShortString();
-        return methodName;
+        return new Rule(rateLimit, rateLimiter.counter(defaultKey), null);
     }
     
-    private String evaluateExpression(ProceedingJoinPoint joinPoint, String expression) {
+    private KeyExtractor compileKeyExtractor(Method method, String expression, String defaultKey) {
+        String[] paramNames = getParameterNames(method);
+        
+        Matcher matcher = SIMPLE_EXPRESSION.matcher(expression);
+        if (matcher.matches()) {
+            int index = indexOf(paramNames, matcher.group(1));
+            if (index >= 0 && index < method.getParameterCount()) {
+                String property = matcher.group(2);
+                if (property == null) {
+                    return args -> keyOf(args[index]);
+                }
+                PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(method.getParameterTypes()[index], property);
+                MethodHandle getter = descriptor != null ? readHandle(descriptor.getReadMethod()) : null;
+                if (getter != null) {
+                    return args -> {
+                        try {
+                            Object target = args[index];
+                            return target != null ? keyOf((Object) getter.invokeExact(target)) : "unknown";
+                        } catch (Throwable e) {
+                            return defaultKey;
+                        }
+                    };
+                }
+            }
+        }
+        
+        // Anything more complex is parsed once and evaluated per call
+        Expression exp = parser.parseExpression(expression);
+        return args -> {
+            try {
+                EvaluationContext context = new StandardEvaluationContext();
+                for (int i = 0; i < args.length && i < paramNames.length; i++) {
+                    context.setVariable(paramNames[i], args[i]);
+                }
+                return keyOf(exp.getValue(context));
+            } catch (Exception e) {
+                // If expression evaluation fails, return default key
+                return defaultKey;
+            }
+        };
+    }
+    
+    private static MethodHandle readHandle(Method readMethod) {
+        if (readMethod == null) {
+            return null;
+        }
         try {
-            Expression exp = parser.parseExpression(expression);
-            EvaluationContext context = new StandardEvaluationContext();
-            
-            // Set method parameters to context
-            Object[] args = joinPoint.getArgs();
-            String[] paramNames = getParameterNames(joinPoint);
-            
-            for (int i = 0; i < args.length && i < paramNames.length; i++) {
-                context.setVariable(paramNames[i], args[i]);
+            return MethodHandles.publicLookup().unreflect(readMethod)
+                    .asType(MethodType.methodType(Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+    
+    private String[] getParameterNames(Method method) {
+        String[] names = parameterNameDiscoverer.getParameterNames(method);
+        return names != null ? names : FALLBACK_PARAMETER_NAMES;
+    }
+    
+    private static int indexOf(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
             }
-            
-            Object result = exp.getValue(context);
-            return result != null ? result.toString() : "unknown";
-        } catch (Exception e) {
-            // If expression parsing fails, return default key
-            return joinPoint.getSignature().toShortString();
+        }
+        return -1;
+    }
+    
+    private static String keyOf(Object value) {
+        return value != null ? value.toString() : "unknown";
+    }
+    
+    /**
+     * Extracts a dynamic rate limit key from the method arguments
+     */
+    @FunctionalInterface
+    interface KeyExtractor {
+        String extract(Object[] args);
+    }
+    
+    /**
+     * A single resolved rate limit rule: either a fixed counter or a key extractor
+     */
+    static final class Rule {
+        final int limit;
+        final int window;
+        final String message;
+        final MemoryRateLimiter.WindowCounter counter;
+        final KeyExtractor keyExtractor;
+        
+        Rule(RateLimit rateLimit, MemoryRateLimiter.WindowCounter counter, KeyExtractor keyExtractor) {
+            this.limit = rateLimit.limit();
+            this.window = rateLimit.window();
+            this.message = rateLimit.message();
+            this.counter = counter;
+            this.keyExtractor = keyExtractor;
         }
     }
     
-    private String[] getParameterNames(ProceedingJoinPoint joinPoint) {
-        // Simplified implementation, in real projects you can use more complex methods to get parameter names
-        return new String[]{"request", "id", "accountNumber", "transactionType"};
+    /**
+     * Immutable per-method plan holding every rule declared on the method
+     */
+    final class RateLimitPlan {
+        private final Rule[] rules;
+        private final int idempotencyKeyIndex;
+        private final int requestIndex;
+        
+        RateLimitPlan(Rule[] rules, int idempotencyKeyIndex, int requestIndex) {
+            this.rules = rules;
+            this.idempotencyKeyIndex = idempotencyKeyIndex;
+            this.requestIndex = requestIndex;
+        }
+        
+        void check(Object[] args) {
+            // A retry of a request already admitted under its idempotency key was charged the first time
+            if (idempotencyKeyIndex >= 0 && idempotencyStore.contains(scope(args), (String) args[idempotencyKeyIndex])) {
+                return;
+            }
+            for (Rule rule : rules) {
+                long decision = rule.counter != null
+                        ? rateLimiter.tryAcquire(rule.counter, rule.limit, rule.window)
+                        : rateLimiter.tryAcquire(rule.keyExtractor.extract(args), rule.limit, rule.window);
+                if (!RateLimitDecision.isAllowed(decision)) {
+                    throw new RateLimitExceededException(rule.message, RateLimitDecision.resetSeconds(decision));
+                }
+            }
+        }
+        
+        /**
+         * Scope of the idempotency key, the same one the service stores it under
+         */
+        private String scope(Object[] args) {
+            return requestIndex >= 0 && args[requestIndex] instanceof TransactionRequest request
+                    ? request.getAccountNumber() : null;
+        }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -4,7 +4,10 @@ import org.springframework.stereotype.Component;
 
 import java.time.Instant;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * In-memory circuit breaker implementation
@@ -27,13 +30,20 @@ public class MemoryCircuitBreaker {
      * Check if circuit breaker allows the request
      */
     public boolean isAllowed(String name) {
+        return breaker(name, Config.DEFAULT).isAllowed();
+    }
+    
+    /**
+     * Get or create the breaker for a name.
+     * The configuration is applied when the breaker is first created; breakers are never
+     * replaced, so the returned handle stays valid across resets.
+     */
+    public CircuitBreakerState breaker(String name, Config config) {
         CircuitBreakerState state = breakers.get(name);
         if (state == null) {
-            state = new CircuitBreakerState();
-            breakers.put(name, state);
+            state = breakers.computeIfAbsent(name, n -> new CircuitBreakerState(config));
         }
-        
-        return state.isAllowed();
+        return state;
     }
     
     /**
@@ -64,94 +74,323 @@ public class MemoryCircuitBreaker {
         return state != null ? state.getCurrentState() : State.CLOSED;
     }
     
+    /**
+     * Get the breaker for monitoring, or null if it has not been used yet
+     */
+    public CircuitBreakerState getBreaker(String name) {
+        return breakers.get(name);
+    }
+    
     /**
      * Reset circuit breaker
      */
     public void reset(String name) {
-        breakers.remove(name);
+        CircuitBreakerState state = breakers.get(name);
+        if (state != null) {
+            state.reset();
+        }
     }
     
     /**
-     * Inner class to hold circuit breaker state
+     * Per-breaker configuration, mirrors the attributes of the CircuitBreaker annotation
      */
-    private static class CircuitBreakerState {
-        private volatile State state = State.CLOSED;
-        private final AtomicInteger successCount = new AtomicInteger(0);
-        private final AtomicInteger failureCount = new AtomicInteger(0);
-        private final AtomicInteger totalCount = new AtomicInteger(0);
-        private volatile long lastFailureTime = 0;
-        private volatile long openTime = 0;
-        
-        // Configuration
-        private static final double FAILURE_RATE_THRESHOLD = 50.0;
-        private static final int MINIMUM_CALLS = 10;
-        private static final int SLIDING_WINDOW_SIZE = 60; // seconds
-        private static final int WAIT_DURATION = 30; // seconds
+    public static final class Config {
+        
+        public static final Config DEFAULT = new Config(50.0, 10, 60, 30, 5, 5000, 100.0);
+        
+        final double failureRateThreshold;
+        final int minimumNumberOfCalls;
+        final int slidingWindowSize;
+        final int waitDurationInOpenState;
+        final int permittedCallsInHalfOpenState;
+        final long slowCallDurationThresholdNanos;
+        final double slowCallRateThreshold;
+        
+        public Config(double failureRateThreshold, int minimumNumberOfCalls, int slidingWindowSize,
+                      int waitDurationInOpenState, int permittedCallsInHalfOpenState,
+                      long slowCallDurationThresholdMillis, double slowCallRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+            this.minimumNumberOfCalls = Math.max(1, minimumNumberOfCalls);
+            this.slidingWindowSize = Math.max(1, slidingWindowSize);
+            this.waitDurationInOpenState = waitDurationInOpenState;
+            this.permittedCallsInHalfOpenState = Math.max(1, permittedCallsInHalfOpenState);
+            this.slowCallDurationThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowCallDurationThresholdMillis);
+            this.slowCallRateThreshold = slowCallRateThreshold;
+        }
+    }
+    
+    /**
+     * Circuit breaker state with a time based sliding window.
+     * Outcomes are counted in a ring buffer of per-second buckets, so failures age out
+     * after slidingWindowSize seconds and memory stays fixed per breaker. Slow calls are
+     * counted in a parallel ring and open the circuit like failures do.
+     */
+    public static class CircuitBreakerState {
+        
+        // Bucket layout: bits 36-63 second since creation, bits 18-35 failures, bits 0-17 calls
+        private static final int SECOND_SHIFT = 36;
+        private static final int FAILURE_SHIFT = 18;
+        private static final long COUNT_MASK = (1L << 18) - 1;
+        private static final long WINDOW_MASK = 0xffffffffL;
+        
+        private final Config config;
+        private final long baseTime = Instant.now().getEpochSecond();
+        private final AtomicLongArray buckets;
+        // Same layout as buckets, slow calls in the low bits
+        private final AtomicLongArray slowBuckets;
+        private final AtomicReference<Phase> phase = new AtomicReference<>(Phase.closed());
+        
+        CircuitBreakerState(Config config) {
+            this.config = config;
+            this.buckets = new AtomicLongArray(config.slidingWindowSize);
+            this.slowBuckets = new AtomicLongArray(config.slidingWindowSize);
+        }
         
         public boolean isAllowed() {
-            long currentTime = Instant.now().getEpochSecond();
-            
-            switch (state) {
-                case CLOSED:
-                    return true;
+            return tryAcquire() != null;
+        }
+        
+        /**
+         * Admit a call, returning the phase that admitted it, or null if the call is rejected.
+         * The caller reports the outcome against that phase.
+         */
+        public Phase tryAcquire() {
+            for (;;) {
+                Phase current = phase.get();
+                switch (current.state) {
+                    case CLOSED:
+                        return current;
                     
-                case OPEN:
-                    if (currentTime - openTime >= WAIT_DURATION) {
-                        state = State.HALF_OPEN;
-                        return true;
-                    }
-                    return false;
+                    case OPEN:
+                        if (Instant.now().getEpochSecond() - current.openTime < config.waitDurationInOpenState) {
+                            return null;
+                        }
+                        // Exactly one caller moves the breaker to half-open; it takes the first probe permit
+                        Phase halfOpen = Phase.halfOpen(config.permittedCallsInHalfOpenState - 1);
+                        if (phase.compareAndSet(current, halfOpen)) {
+                            return halfOpen;
+                        }
+                        // Lost the race: retry against the new phase
+                        break;
                     
-                case HALF_OPEN:
-                    return true;
+                    case HALF_OPEN:
+                        // Bounded probing: callers beyond the permitted probes fail fast
+                        return current.tryAcquirePermit() ? current : null;
                     
-                default:
-                    return true;
+                    default:
+                        return current;
+                }
             }
         }
         
         public void recordSuccess() {
-            totalCount.incrementAndGet();
-            successCount.incrementAndGet();
+            recordSuccess(phase.get(), 0);
+        }
+        
+        public void recordSuccess(long durationNanos) {
+            recordSuccess(phase.get(), durationNanos);
+        }
+        
+        /**
+         * Record a successful call admitted by the given phase that took the given time;
+         * calls over the slow threshold count as slow
+         */
+        public void recordSuccess(Phase admitted, long durationNanos) {
+            if (phase.get() != admitted) {
+                // The phase that admitted the call has ended; its outcome says nothing about the current one
+                return;
+            }
+            record(buckets, 1);
             
-            if (state == State.HALF_OPEN) {
-                // If we get enough successes in half-open state, close the circuit
-                if (successCount.get() >= MINIMUM_CALLS / 2) {
-                    state = State.CLOSED;
-                    resetCounters();
+            if (isSlow(durationNanos)) {
+                record(slowBuckets, 1);
+                onUnhealthyCall(admitted);
+                return;
+            }
+            
+            if (admitted.state == State.HALF_OPEN) {
+                // Close the circuit once every probe has succeeded
+                if (admitted.successes.incrementAndGet() >= config.permittedCallsInHalfOpenState
+                        && phase.compareAndSet(admitted, Phase.closed())) {
+                    clearWindow();
                 }
             }
         }
         
         public void recordFailure() {
-            totalCount.incrementAndGet();
-            failureCount.incrementAndGet();
-            lastFailureTime = Instant.now().getEpochSecond();
-            
-            if (state == State.CLOSED) {
+            recordFailure(phase.get(), 0);
+        }
+        
+        public void recordFailure(long durationNanos) {
+            recordFailure(phase.get(), durationNanos);
+        }
+        
+        /**
+         * Record a failed call admitted by the given phase that took the given time
+         */
+        public void recordFailure(Phase admitted, long durationNanos) {
+            if (phase.get() != admitted) {
+                return;
+            }
+            record(buckets, (1L << FAILURE_SHIFT) | 1);
+            if (isSlow(durationNanos)) {
+                record(slowBuckets, 1);
+            }
+            onUnhealthyCall(admitted);
+        }
+        
+        private boolean isSlow(long durationNanos) {
+            return durationNanos > 0 && durationNanos >= config.slowCallDurationThresholdNanos;
+        }
+        
+        /**
+         * Re-evaluate the breaker after a failed or slow call
+         */
+        private void onUnhealthyCall(Phase current) {
+            if (current.state == State.CLOSED) {
                 // Check if we should open the circuit
-                if (totalCount.get() >= MINIMUM_CALLS) {
-                    double failureRate = (double) failureCount.get() / totalCount.get() * 100;
-                    if (failureRate >= FAILURE_RATE_THRESHOLD) {
-                        state = State.OPEN;
-                        openTime = Instant.now().getEpochSecond();
+                long window = window(buckets);
+                long calls = window & WINDOW_MASK;
+                if (calls >= config.minimumNumberOfCalls) {
+                    double failureRate = (double) (window >>> 32) / calls * 100;
+                    double slowCallRate = (double) (window(slowBuckets) & WINDOW_MASK) / calls * 100;
+                    if (failureRate >= config.failureRateThreshold || slowCallRate >= config.slowCallRateThreshold) {
+                        phase.compareAndSet(current, Phase.open());
                     }
                 }
-            } else if (state == State.HALF_OPEN) {
-                // If we get a failure in half-open state, open the circuit again
-                state = State.OPEN;
-                openTime = Instant.now().getEpochSecond();
+            } else if (current.state == State.HALF_OPEN) {
+                // If a probe fails or is slow, open the circuit again
+                phase.compareAndSet(current, Phase.open());
             }
         }
         
         public State getCurrentState() {
-            return state;
+            return phase.get().state;
+        }
+        
+        /**
+         * Probe permits still available, 0 unless the breaker is half-open
+         */
+        public int getAvailableProbePermits() {
+            Phase current = phase.get();
+            return current.permits != null ? Math.max(0, current.permits.get()) : 0;
+        }
+        
+        /**
+         * Failure rate in percent over the sliding window
+         */
+        public double getFailureRate() {
+            long window = window(buckets);
+            long calls = window & WINDOW_MASK;
+            return calls == 0 ? 0.0 : (double) (window >>> 32) / calls * 100;
+        }
+        
+        /**
+         * Slow call rate in percent over the sliding window
+         */
+        public double getSlowCallRate() {
+            long calls = window(buckets) & WINDOW_MASK;
+            return calls == 0 ? 0.0 : (double) (window(slowBuckets) & WINDOW_MASK) / calls * 100;
+        }
+        
+        /**
+         * Number of calls recorded in the sliding window
+         */
+        public long getBufferedCalls() {
+            return window(buckets) & WINDOW_MASK;
+        }
+        
+        void reset() {
+            phase.set(Phase.closed());
+            clearWindow();
+        }
+        
+        private void record(AtomicLongArray buckets, long increment) {
+            long second = Instant.now().getEpochSecond() - baseTime;
+            int index = (int) (second % buckets.length());
+            
+            for (;;) {
+                long bucket = buckets.get(index);
+                long next;
+                if (bucket >>> SECOND_SHIFT != second) {
+                    next = (second << SECOND_SHIFT) | increment;
+                } else if ((bucket & COUNT_MASK) == COUNT_MASK) {
+                    // Saturated bucket: keep the sample already recorded this second
+                    return;
+                } else {
+                    next = bucket + increment;
+                }
+                if (buckets.compareAndSet(index, bucket, next)) {
+                    return;
+                }
+            }
+        }
+        
+        /**
+         * Sum of the buckets inside the window: failures in the high 32 bits, calls in the low 32 bits
+         */
+        private long window(AtomicLongArray buckets) {
+            long second = Instant.now().getEpochSecond() - baseTime;
+            long calls = 0;
+            long failures = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                long bucket = buckets.get(i);
+                if (second - (bucket >>> SECOND_SHIFT) < buckets.length()) {
+                    calls += bucket & COUNT_MASK;
+                    failures += bucket >>> FAILURE_SHIFT & COUNT_MASK;
+                }
+            }
+            return failures << 32 | calls;
+        }
+        
+        private void clearWindow() {
+            for (int i = 0; i < buckets.length(); i++) {
+                buckets.set(i, 0L);
+                slowBuckets.set(i, 0L);
+            }
+        }
+    }
+    
+    /**
+     * Immutable breaker phase. A new phase is published by CAS on every transition, so the
+     * half-open probe permits and success count belong to exactly one half-open period, and
+     * an outcome only counts while the phase that admitted its call is still current.
+     */
+    public static final class Phase {
+        
+        final State state;
+        final long openTime;
+        final AtomicInteger permits;
+        final AtomicInteger successes = new AtomicInteger(0);
+        
+        private Phase(State state, long openTime, AtomicInteger permits) {
+            this.state = state;
+            this.openTime = openTime;
+            this.permits = permits;
         }
         
-        private void resetCounters() {
-            successCount.set(0);
-            failureCount.set(0);
-            totalCount.set(0);
+        static Phase closed() {
+            return new Phase(State.CLOSED, 0, null);
+        }
+        
+        static Phase open() {
+            return new Phase(State.OPEN, Instant.now().getEpochSecond(), null);
+        }
+        
+        static Phase halfOpen(int permits) {
+            return new Phase(State.HALF_OPEN, 0, new AtomicInteger(permits));
+        }
+        
+        boolean tryAcquirePermit() {
+            for (;;) {
+                int available = permits.get();
+                if (available <= 0) {
+                    return false;
+                }
+                if (permits.compareAndSet(available, available - 1)) {
+                    return true;
+                }
+            }
         }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.lsh.transaction.bulkhead;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory semaphore bulkhead implementation.
+ * Permits come from a fair {@link Semaphore}, which parks waiting virtual threads
+ * instead of pinning their carrier the way a synchronized block would.
+ */
+@Component
+public class MemoryBulkhead {
+    
+    private final ConcurrentHashMap<String, BulkheadState> bulkheads = new ConcurrentHashMap<>();
+    
+    /**
+     * Get or create the bulkhead for a name.
+     * The permit count is applied when the bulkhead is first created.
+     */
+    public BulkheadState bulkhead(String name, int maxConcurrentCalls) {
+        BulkheadState state = bulkheads.get(name);
+        if (state == null) {
+            state = bulkheads.computeIfAbsent(name, n -> new BulkheadState(maxConcurrentCalls));
+        }
+        return state;
+    }
+    
+    /**
+     * Get all bulkheads for monitoring
+     */
+    public Map<String, BulkheadState> getAllBulkheads() {
+        return new ConcurrentHashMap<>(bulkheads);
+    }
+    
+    /**
+     * Inner class to hold bulkhead permits and metrics
+     */
+    public static class BulkheadState {
+        private final int maxConcurrentCalls;
+        private final Semaphore semaphore;
+        private final AtomicInteger waiting = new AtomicInteger(0);
+        private final AtomicInteger peakWaiting = new AtomicInteger(0);
+        private final AtomicLong rejectedCount = new AtomicLong(0);
+        
+        BulkheadState(int maxConcurrentCalls) {
+            this.maxConcurrentCalls = Math.max(1, maxConcurrentCalls);
+            this.semaphore = new Semaphore(this.maxConcurrentCalls, true);
+        }
+        
+        /**
+         * Take a permit, waiting at most maxWaitMillis
+         */
+        public boolean tryAcquire(long maxWaitMillis) {
+            // Fast path when a permit is free and nobody is queued ahead (tryAcquire() would barge)
+            if (!semaphore.hasQueuedThreads() && semaphore.tryAcquire()) {
+                return true;
+            }
+            if (maxWaitMillis <= 0) {
+                rejectedCount.incrementAndGet();
+                return false;
+            }
+            
+            int depth = waiting.incrementAndGet();
+            peakWaiting.accumulateAndGet(depth, Math::max);
+            try {
+                if (semaphore.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                waiting.decrementAndGet();
+            }
+            rejectedCount.incrementAndGet();
+            return false;
+        }
+        
+        public void release() {
+            semaphore.release();
+        }
+        
+        public int getMaxConcurrentCalls() {
+            return maxConcurrentCalls;
+        }
+        
+        public int getActiveCalls() {
+            return maxConcurrentCalls - semaphore.availablePermits();
+        }
+        
+        /**
+         * Callers currently queued for a permit
+         */
+        public int getQueueDepth() {
+            return waiting.get();
+        }
+        
+        public int getPeakQueueDepth() {
+            return peakWaiting.get();
+        }
+        
+        public long getRejectedCount() {
+            return rejectedCount.get();
+        }
+    }
+}
\ No newline at end of file
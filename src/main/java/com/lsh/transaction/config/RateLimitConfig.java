@@ -1,6 +1,8 @@
 package com.lsh.transaction.config;
 
+import com.lsh.transaction.limiter.LongKeyRateLimiter;
 import com.lsh.transaction.limiter.MemoryRateLimiter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -11,11 +13,11 @@ import org.springframework.context.annotation.Configuration;
 public class RateLimitConfig {
     
     /**
-     * Global rate limiter for entire service
+     * Global rate limiter for entire service, keyed by numeric client hash
      */
     @Bean("globalRateLimiter")
-    public MemoryRateLimiter globalRateLimiter() {
-        return new MemoryRateLimiter();
+    public LongKeyRateLimiter globalRateLimiter(@Value("${app.rate-limit.global.capacity:65536}") int capacity) {
+        return new LongKeyRateLimiter(capacity);
     }
     
     /**
@@ -33,4 +35,4 @@ public class RateLimitConfig {
     public MemoryRateLimiter accountWriteRateLimiter() {
         return new MemoryRateLimiter();
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -1,11 +1,19 @@
 package com.lsh.transaction.config;
 
+import com.lsh.transaction.interceptor.AdaptiveConcurrencyInterceptor;
 import com.lsh.transaction.interceptor.GlobalRateLimitInterceptor;
+import com.lsh.transaction.interceptor.LoadSheddingInterceptor;
+import com.lsh.transaction.interceptor.RequestDeadlineInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.concurrent.Executor;
+
 /**
  * Web configuration for interceptors and other web-related settings
  */
@@ -15,11 +23,46 @@ public class WebConfig implements WebMvcConfigurer {
     @Autowired
     private GlobalRateLimitInterceptor globalRateLimitInterceptor;
     
+    @Autowired
+    private LoadSheddingInterceptor loadSheddingInterceptor;
+    
+    @Autowired
+    private AdaptiveConcurrencyInterceptor adaptiveConcurrencyInterceptor;
+    
+    @Autowired
+    private RequestDeadlineInterceptor requestDeadlineInterceptor;
+    
+    @Autowired
+    @Qualifier("virtualThreadExecutor")
+    private Executor virtualThreadExecutor;
+    
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         // Register global rate limiting interceptor, apply to all API paths
         registry.addInterceptor(globalRateLimitInterceptor)
                 .addPathPatterns("/api/**")
                 .excludePathPatterns("/actuator/**", "/swagger-ui/**", "/v3/api-docs/**");
+        
+        // Register priority-aware load shedding before permits are taken, so shed work costs nothing
+        registry.addInterceptor(loadSheddingInterceptor)
+                .addPathPatterns("/api/v1/transactions/**", "/api/v2/transactions/**")
+                .excludePathPatterns("/api/*/transactions/health/**");
+        
+        // Register adaptive concurrency limiting after the rate limit; health probes and monitoring stay reachable.
+        // Streaming ingestion is excluded: its duration tracks the upload size, not service latency
+        registry.addInterceptor(adaptiveConcurrencyInterceptor)
+                .addPathPatterns("/api/**")
+                .excludePathPatterns("/api/*/monitoring/**", "/api/*/transactions/health/**",
+                        "/api/v2/transactions/stream", "/api/v1/transactions/export");
+        
+        // Register request deadlines for the async v2 path
+        registry.addInterceptor(requestDeadlineInterceptor)
+                .addPathPatterns("/api/v2/**");
+    }
+    
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // Async request work parks on virtual threads instead of holding a platform thread
+        configurer.setTaskExecutor(new TaskExecutorAdapter(virtualThreadExecutor));
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
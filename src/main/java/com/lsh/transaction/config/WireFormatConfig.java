@@ -0,0 +1,35 @@
+package com.lsh.transaction.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary wire formats for the transaction APIs.
+ * Callers opt in with Accept / Content-Type application/cbor or application/x-jackson-smile;
+ * JSON stays the default. Both mappers come from the application's Jackson builder so they
+ * share the spring.jackson settings and the model annotations used for JSON.
+ */
+@Configuration
+public class WireFormatConfig {
+    
+    /**
+     * CBOR (RFC 8949) converter for callers outside the JVM
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+    
+    /**
+     * Smile converter, the cheapest encoding for Jackson based callers
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
\ No newline at end of file
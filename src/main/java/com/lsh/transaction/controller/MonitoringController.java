@@ -1,7 +1,25 @@
 package com.lsh.transaction.controller;
 
+import com.lsh.transaction.annotation.Criticality;
+import com.lsh.transaction.archive.ArchiveStore;
+import com.lsh.transaction.archive.RetentionService;
+import com.lsh.transaction.idempotency.IdempotencyStore;
+import com.lsh.transaction.interceptor.AdaptiveConcurrencyInterceptor;
+import com.lsh.transaction.interceptor.GlobalRateLimitInterceptor;
+import com.lsh.transaction.limiter.AdaptiveConcurrencyLimiter;
+import com.lsh.transaction.limiter.LongKeyRateLimiter;
 import com.lsh.transaction.limiter.MemoryRateLimiter;
 import com.lsh.transaction.breaker.MemoryCircuitBreaker;
+import com.lsh.transaction.bulkhead.MemoryBulkhead;
+import com.lsh.transaction.repository.ShardedTransactionRepository;
+import com.lsh.transaction.repository.TieredTransactionRepository;
+import com.lsh.transaction.repository.TransactionRepository;
+import com.lsh.transaction.service.BalanceLedger;
+import com.lsh.transaction.settlement.PendingQueue;
+import com.lsh.transaction.settlement.SettlementPipeline;
+import com.lsh.transaction.service.TransferExecutor;
+import com.lsh.transaction.shedding.LoadShedder;
+import com.lsh.transaction.writer.SingleWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +28,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -27,11 +47,54 @@ public class MonitoringController {
     
     @Autowired
     @Qualifier("globalRateLimiter")
-    private MemoryRateLimiter globalRateLimiter;
+    private LongKeyRateLimiter globalRateLimiter;
+    
+    @Autowired
+    private GlobalRateLimitInterceptor globalRateLimitInterceptor;
+    
+    @Autowired
+    private AdaptiveConcurrencyInterceptor adaptiveConcurrencyInterceptor;
     
     @Autowired
     private MemoryCircuitBreaker circuitBreaker;
     
+    @Autowired
+    private MemoryBulkhead memoryBulkhead;
+    
+    @Autowired
+    private LoadShedder loadShedder;
+    
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+    
+    @Autowired
+    @Qualifier(TieredTransactionRepository.HOT)
+    private TransactionRepository transactionRepository;
+    
+    @Autowired(required = false)
+    private ShardedTransactionRepository shardedRepository;
+    
+    @Autowired(required = false)
+    private SingleWriter singleWriter;
+    
+    @Autowired
+    private BalanceLedger balanceLedger;
+    
+    @Autowired
+    private TransferExecutor transferExecutor;
+    
+    @Autowired
+    private PendingQueue pendingQueue;
+    
+    @Autowired
+    private SettlementPipeline settlementPipeline;
+    
+    @Autowired
+    private RetentionService retentionService;
+    
+    @Autowired
+    private ArchiveStore archiveStore;
+    
     /**
      * Get rate limiter status
      */
@@ -62,14 +125,220 @@ public class MonitoringController {
         Map<String, Object> status = new HashMap<>();
         status.put("message", "Global rate limiter is active");
         status.put("timestamp", java.time.LocalDateTime.now());
-        status.put("limit", "120,000 requests per minute per client");
-        status.put("window", "60 seconds");
+        status.put("limit", globalRateLimitInterceptor.getGlobalLimit() + " requests per window per client");
+        status.put("window", globalRateLimitInterceptor.getWindowSeconds() + " seconds");
+        status.put("activeClients", globalRateLimiter.getActiveKeys(globalRateLimitInterceptor.getWindowSeconds()));
+        status.put("capacity", globalRateLimiter.getCapacity());
         status.put("optimization", "Based on performance test results (QPS ~2503, success rate 99.93%)");
         status.put("calculation", "2500 QPS × 0.8 safety factor × 60 seconds = 120,000/min");
         
         return ResponseEntity.ok(status);
     }
     
+    /**
+     * Get adaptive concurrency limiter status
+     */
+    @GetMapping("/concurrency-limiter")
+    @Operation(
+        summary = "Get Concurrency Limiter Status",
+        description = "Get current adaptive concurrency limit, in-flight requests and latency per endpoint group"
+    )
+    public ResponseEntity<Map<String, Object>> getConcurrencyLimiterStatus() {
+        Map<String, Object> status = new HashMap<>();
+        for (AdaptiveConcurrencyLimiter limiter : adaptiveConcurrencyInterceptor.getLimiters()) {
+            Map<String, Object> group = new HashMap<>();
+            group.put("limit", limiter.getLimit());
+            group.put("inFlight", limiter.getInFlight());
+            group.put("rejected", limiter.getRejectedCount());
+            group.put("shortRttMs", limiter.getShortRttMillis());
+            group.put("longRttMs", limiter.getLongRttMillis());
+            status.put(limiter.getName(), group);
+        }
+        status.put("timestamp", java.time.LocalDateTime.now());
+        
+        return ResponseEntity.ok(status);
+    }
+    
+    /**
+     * Get load shedding status
+     */
+    @GetMapping("/load-shedding")
+    @Operation(
+        summary = "Get Load Shedding Status",
+        description = "Get the current queueing delay estimate and shed requests per criticality level"
+    )
+    public ResponseEntity<Map<String, Object>> getLoadSheddingStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("queueingDelayMs", loadShedder.getQueueingDelayNanos() / 1_000_000.0);
+        Map<String, Long> shed = new HashMap<>();
+        for (Criticality.Level level : Criticality.Level.values()) {
+            shed.put(level.name(), loadShedder.getShedCount(level));
+        }
+        status.put("shed", shed);
+        status.put("timestamp", java.time.LocalDateTime.now());
+        
+        return ResponseEntity.ok(status);
+    }
+    
+    /**
+     * Get idempotency key store status
+     */
+    @GetMapping("/idempotency")
+    @Operation(
+        summary = "Get Idempotency Store Status",
+        description = "Get the number of retained idempotency keys, replayed retries and evictions"
+    )
+    public ResponseEntity<Map<String, Object>> getIdempotencyStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("entries", idempotencyStore.size());
+        status.put("maxEntries", idempotencyStore.getMaxEntries());
+        status.put("replayed", idempotencyStore.getReplayCount());
+        status.put("evicted", idempotencyStore.getEvictionCount());
+        status.put("timestamp", java.time.LocalDateTime.now());
+        
+        return ResponseEntity.ok(status);
+    }
+    
+    /**
+     * Get time partition status of the transaction store
+     */
+    @GetMapping("/partitions")
+    @Operation(
+        summary = "Get Time Partitions",
+        description = "Get the start time and size of every time partition of the transaction store"
+    )
+    public ResponseEntity<Map<String, Object>> getTimePartitions() {
+        Map<String, Integer> partitions = new LinkedHashMap<>();
+        transactionRepository.getTimePartitions().forEach((start, size) -> partitions.put(start.toString(), size));
+        
+        Map<String, Object> status = new HashMap<>();
+        status.put("partitionCount", partitions.size());
+        status.put("partitions", partitions);
+        status.put("timestamp", java.time.LocalDateTime.now());
+        
+        return ResponseEntity.ok(status);
+    }
+    
+    /**
+     * Get shard status of the transaction store
+     */
+    @GetMapping("/shards")
+    @Operation(
+        summary = "Get Repository Shards",
+        description = "Get the number of shards of the transaction store and the transactions held by each"
+    )
+    public ResponseEntity<Map<String, Object>> getShardStatus() {
+        Map<String, Object> status = new HashMap<>();
+        if (shardedRepository != null) {
+            status.put("shardCount", shardedRepository.getShardCount());
+            status.put("shardSizes", shardedRepository.getShardSizes());
+        } else {
+            // Single-writer mode keeps one unsharded store
+            status.put("shardCount", 1);
+            status.put("shardSizes", List.of(transactionRepository.count()));
+        }
+        status.put("timestamp", java.time.LocalDateTime.now());
+        
+        return ResponseEntity.ok(status);
+    }
+    
+    /**
+     * Get balance ledger status
+     */
+    @GetMapping("/ledger")
+    @Operation(
+        summary = "Get Balance Ledger Status",
+        description = "Get the number of tracked accounts, the write mode, the account lock stripes and rejected overdrafts"
+    )
+    public ResponseEntity<Map<String, Object>> getLedgerStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("accounts", balanceLedger.getAccountCount());
+        status.put("mode", singleWriter != null ? "single-writer" : "concurrent");
+        status.put("lockStripes", transferExecutor.getStripeCount());
+        if (singleWriter != null) {
+            status.put("ringSize", singleWriter.getRingSize());
+            status.put("appliedSequence", singleWriter.getAppliedSequence());
+            status.put("backlog", singleWriter.getBacklog());
+        }
+        status.put("allowOverdraft", transferExecutor.isAllowOverdraft());
+        status.put("insufficientFunds", transferExecutor.getInsufficientFundsCount());
+        status.put("timestamp", java.time.LocalDateTime.now());
+        
+        return ResponseEntity.ok(status);
+    }
+    
+    /**
+     * Get settlement pipeline status
+     */
+    @GetMapping("/settlement")
+    @Operation(
+        summary = "Get Settlement Status",
+        description = "Get the pending backlog, settlement throughput and settled, failed and skipped counts"
+    )
+    public ResponseEntity<Map<String, Object>> getSettlementStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("pending", pendingQueue.size());
+        status.put("oldestPendingAgeMs", pendingQueue.getOldestAgeMillis());
+        status.put("enqueued", pendingQueue.getEnqueuedCount());
+        status.put("completed", settlementPipeline.getCompletedCount());
+        status.put("failed", settlementPipeline.getFailedCount());
+        status.put("skipped", settlementPipeline.getSkippedCount());
+        status.put("batches", settlementPipeline.getBatchCount());
+        status.put("settledPerSecond", settlementPipeline.getSettledPerSecond());
+        status.put("averageLatencyMs", settlementPipeline.getAverageLatencyMillis());
+        status.put("timestamp", java.time.LocalDateTime.now());
+        
+        return ResponseEntity.ok(status);
+    }
+    
+    /**
+     * Get retention and archive status
+     */
+    @GetMapping("/retention")
+    @Operation(
+        summary = "Get Retention Status",
+        description = "Get the retention period, the last retention run and the size of the on-disk archive"
+    )
+    public ResponseEntity<Map<String, Object>> getRetentionStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("hotDays", retentionService.getHotDays());
+        status.put("runs", retentionService.getRunCount());
+        status.put("lastRunAt", retentionService.getLastRunAt());
+        status.put("lastRunMs", retentionService.getLastRunMillis());
+        status.put("archived", retentionService.getArchivedCount());
+        status.put("archiveSegments", archiveStore.getSegmentCount());
+        status.put("archiveTransactions", archiveStore.getTransactionCount());
+        status.put("archiveBytes", archiveStore.getSizeBytes());
+        status.put("hotTransactions", transactionRepository.count());
+        status.put("timestamp", java.time.LocalDateTime.now());
+        
+        return ResponseEntity.ok(status);
+    }
+    
+    /**
+     * Get bulkhead status
+     */
+    @GetMapping("/bulkhead")
+    @Operation(
+        summary = "Get Bulkhead Status",
+        description = "Get active calls, queue depth and rejections for every bulkhead"
+    )
+    public ResponseEntity<Map<String, Object>> getBulkheadStatus() {
+        Map<String, Object> status = new HashMap<>();
+        memoryBulkhead.getAllBulkheads().forEach((name, bulkhead) -> {
+            Map<String, Object> details = new HashMap<>();
+            details.put("maxConcurrentCalls", bulkhead.getMaxConcurrentCalls());
+            details.put("activeCalls", bulkhead.getActiveCalls());
+            details.put("queueDepth", bulkhead.getQueueDepth());
+            details.put("peakQueueDepth", bulkhead.getPeakQueueDepth());
+            details.put("rejected", bulkhead.getRejectedCount());
+            status.put(name, details);
+        });
+        status.put("timestamp", java.time.LocalDateTime.now());
+        
+        return ResponseEntity.ok(status);
+    }
+    
     /**
      * Get circuit breaker status
      */
@@ -81,6 +350,12 @@ public class MonitoringController {
     public ResponseEntity<Map<String, Object>> getCircuitBreakerStatus() {
         Map<String, Object> status = new HashMap<>();
         status.put("transactionCreate", circuitBreaker.getState("transactionCreate"));
+        MemoryCircuitBreaker.CircuitBreakerState breaker = circuitBreaker.getBreaker("transactionCreate");
+        if (breaker != null) {
+            status.put("transactionCreateFailureRate", breaker.getFailureRate());
+            status.put("transactionCreateSlowCallRate", breaker.getSlowCallRate());
+            status.put("transactionCreateBufferedCalls", breaker.getBufferedCalls());
+        }
         status.put("timestamp", java.time.LocalDateTime.now());
         
         return ResponseEntity.ok(status);
@@ -107,10 +382,11 @@ public class MonitoringController {
     @PostMapping("/rate-limiter/global/reset/{clientKey}")
     @Operation(
         summary = "Reset Global Rate Limiter",
-        description = "Reset global rate limiter counter for a specific client"
+        description = "Reset global rate limiter counter for a specific client IP and optional User-Agent"
     )
-    public ResponseEntity<Map<String, String>> resetGlobalRateLimiter(@PathVariable String clientKey) {
-        globalRateLimiter.reset("global:" + clientKey);
+    public ResponseEntity<Map<String, String>> resetGlobalRateLimiter(@PathVariable String clientKey,
+                                                                      @RequestParam(required = false) String userAgent) {
+        globalRateLimiter.reset(GlobalRateLimitInterceptor.clientKey(clientKey, userAgent));
         Map<String, String> response = new HashMap<>();
         response.put("message", "Global rate limiter reset for client: " + clientKey);
         return ResponseEntity.ok(response);
@@ -130,7 +406,7 @@ public class MonitoringController {
         response.put("message", "Circuit breaker reset for service: " + name);
         return ResponseEntity.ok(response);
     }
-
+    
     /**
      * Get rate limiter statistics
      */
@@ -153,7 +429,7 @@ public class MonitoringController {
         
         return ResponseEntity.ok(stats);
     }
-
+    
     /**
      * Get circuit breaker statistics
      */
@@ -167,7 +443,7 @@ public class MonitoringController {
         
         return ResponseEntity.ok(stats);
     }
-
+    
     /**
      * Get comprehensive system health
      */
@@ -192,4 +468,4 @@ public class MonitoringController {
         
         return ResponseEntity.ok(health);
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
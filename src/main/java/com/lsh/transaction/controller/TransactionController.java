@@ -1,11 +1,16 @@
 package com.lsh.transaction.controller;
 
+import com.lsh.transaction.idempotency.IdempotencyStore;
+import com.lsh.transaction.model.AccountBalance;
+import com.lsh.transaction.model.BatchCreateResult;
 import com.lsh.transaction.model.PaginatedResponse;
 import com.lsh.transaction.model.Transaction;
 import com.lsh.transaction.model.TransactionRequest;
+import com.lsh.transaction.service.TransactionExportService;
 import com.lsh.transaction.service.TransactionService;
 import com.lsh.transaction.service.TransactionStatistics;
 import com.lsh.transaction.service.CacheService;
+import com.lsh.transaction.annotation.Criticality;
 import com.lsh.transaction.annotation.RateLimit;
 import com.lsh.transaction.annotation.CircuitBreaker;
 import io.swagger.v3.oas.annotations.Operation;
@@ -18,13 +23,24 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * REST controller for transaction management.
@@ -39,10 +55,19 @@ public class TransactionController {
     
     private final TransactionService transactionService;
     private final CacheService cacheService;
+    private final TransactionExportService transactionExportService;
+    private final Executor exportExecutor;
+    private final long exportTimeoutMillis;
     
-    public TransactionController(TransactionService transactionService, CacheService cacheService) {
+    public TransactionController(TransactionService transactionService, CacheService cacheService,
+                                 TransactionExportService transactionExportService,
+                                 @Qualifier("virtualThreadExecutor") Executor exportExecutor,
+                                 @Value("${app.export.timeout-ms:3600000}") long exportTimeoutMillis) {
         this.transactionService = transactionService;
         this.cacheService = cacheService;
+        this.transactionExportService = transactionExportService;
+        this.exportExecutor = exportExecutor;
+        this.exportTimeoutMillis = exportTimeoutMillis;
         log.info("TransactionController initialized with services");
     }
     
@@ -51,6 +76,7 @@ public class TransactionController {
      * POST /api/v1/transactions
      */
     @PostMapping
+    @Criticality(Criticality.Level.CRITICAL)
     @Operation(
         summary = "Create Transaction",
         description = "Create a new banking transaction record"
@@ -87,17 +113,19 @@ public class TransactionController {
     })
     @RateLimit(limit = 3000, window = 60, key = "api:createTransaction", message = "API rate limit exceeded. Please try again later.")
     @RateLimit(limit = 100, window = 60, keyExpression = "#request.accountNumber", message = "Account write operation rate limit exceeded. Please try again later.")
-    @CircuitBreaker(name = "transactionCreate", failureRateThreshold = 30.0, minimumNumberOfCalls = 5, message = "Transaction service is temporarily unavailable. Please try again later.")
+    @CircuitBreaker(name = "transactionCreate", failureRateThreshold = 30.0, minimumNumberOfCalls = 5, slowCallDurationThreshold = 2000, slowCallRateThreshold = 50.0, message = "Transaction service is temporarily unavailable. Please try again later.")
     public ResponseEntity<Transaction> createTransaction(
             @Parameter(description = "Transaction creation request", required = true)
-            @Valid @RequestBody TransactionRequest request) {
+            @Valid @RequestBody TransactionRequest request,
+            @Parameter(description = "Key that makes retries of this request return the original transaction")
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
         
         long startTime = System.currentTimeMillis();
         log.info("Creating transaction for account: {}, amount: {}, type: {}", 
                 request.getAccountNumber(), request.getAmount(), request.getTransactionType());
         
         try {
-            Transaction transaction = transactionService.createTransaction(request);
+            Transaction transaction = transactionService.createTransaction(request, idempotencyKey);
             long duration = System.currentTimeMillis() - startTime;
             log.info("Transaction created successfully - ID: {}, Account: {}, Duration: {}ms", 
                     transaction.getId(), transaction.getAccountNumber(), duration);
@@ -110,11 +138,50 @@ public class TransactionController {
         }
     }
     
+    /**
+     * Create a batch of transactions with a single bulk write.
+     * POST /api/v1/transactions/batch
+     */
+    @PostMapping("/batch")
+    @Operation(
+        summary = "Create Transactions in Batch",
+        description = "Validate every item, save the valid ones in a single bulk write and return a result per item"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Batch processed; see the per-item results for rejected items",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = BatchCreateResult.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Batch is empty or larger than 10000 items"
+        )
+    })
+    @RateLimit(limit = 100, window = 60, key = "api:createTransactionsBatch", message = "Batch rate limit exceeded. Please try again later.")
+    public ResponseEntity<BatchCreateResult> createTransactionsBatch(
+            @Parameter(description = "Transaction creation requests", required = true)
+            @RequestBody List<TransactionRequest> requests) {
+        
+        long startTime = System.currentTimeMillis();
+        log.info("Creating transaction batch - Count: {}", requests.size());
+        
+        BatchCreateResult result = transactionService.createTransactions(requests);
+        long duration = System.currentTimeMillis() - startTime;
+        log.info("Transaction batch processed - Count: {}, Created: {}, Rejected: {}, Duration: {}ms",
+                result.getTotal(), result.getCreated(), result.getRejected(), duration);
+        return ResponseEntity.ok(result);
+    }
+    
     /**
      * Get a transaction by ID.
      * GET /api/v1/transactions/{id}
      */
     @GetMapping("/{id}")
+    @Criticality(Criticality.Level.CRITICAL)
     @Operation(
         summary = "Get Transaction by ID",
         description = "Retrieve a specific transaction by its unique identifier"
@@ -198,6 +265,62 @@ public class TransactionController {
         }
     }
     
+    /**
+     * Export transactions as NDJSON or CSV, streamed straight to the response.
+     * The export streams on a virtual thread under its own timeout; other async requests keep the container default.
+     * GET /api/v1/transactions/export
+     */
+    @GetMapping("/export")
+    @Criticality(Criticality.Level.SHEDDABLE)
+    @Operation(
+        summary = "Export Transactions",
+        description = "Stream every transaction matching the optional filters as NDJSON or CSV without pagination"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Export streamed successfully"
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Unsupported export format"
+        )
+    })
+    @RateLimit(limit = 10, window = 60, key = "api:exportTransactions", message = "Export rate limit exceeded. Please try again later.")
+    public ResponseEntity<ResponseBodyEmitter> exportTransactions(
+            @Parameter(description = "Output format: ndjson or csv", example = "ndjson")
+            @RequestParam(defaultValue = "ndjson") String format,
+            @Parameter(description = "Only export this account")
+            @RequestParam(required = false) String accountNumber,
+            @Parameter(description = "Only export this transaction type")
+            @RequestParam(required = false) String transactionType,
+            @Parameter(description = "Only export transactions at or after this time (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Only export transactions before this time (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        
+        TransactionExportService.Format exportFormat = TransactionExportService.Format.of(format);
+        log.info("Exporting transactions - Format: {}, Account: {}, Type: {}, From: {}, To: {}",
+                exportFormat, accountNumber, transactionType, from, to);
+        
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(exportTimeoutMillis);
+        exportExecutor.execute(() -> {
+            try (OutputStream output = new EmitterOutputStream(emitter, exportFormat.getMediaType())) {
+                transactionExportService.export(exportFormat, accountNumber, transactionType, from, to, output);
+            } catch (Exception e) {
+                log.warn("Transaction export aborted - Format: {}, Error: {}", exportFormat, e.getMessage());
+                emitter.completeWithError(e);
+                return;
+            }
+            emitter.complete();
+        });
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transactions."
+                        + exportFormat.name().toLowerCase() + "\"")
+                .body(emitter);
+    }
+    
     /**
      * Get transactions by account number.
      * GET /api/v1/transactions/account/{accountNumber}
@@ -244,6 +367,143 @@ public class TransactionController {
         }
     }
     
+    /**
+     * Get the current balance of an account.
+     * GET /api/v1/transactions/account/{accountNumber}/balance
+     */
+    @GetMapping("/account/{accountNumber}/balance")
+    @Operation(
+        summary = "Get Account Balance",
+        description = "Current balance of an account: deposits and incoming transfers minus withdrawals and outgoing transfers"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Balance retrieved successfully",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = AccountBalance.class)
+            )
+        )
+    })
+    @RateLimit(limit = 10000, window = 60, key = "api:getAccountBalance", message = "API rate limit exceeded. Please try again later.")
+    @RateLimit(limit = 500, window = 60, keyExpression = "#accountNumber", message = "Account read operation rate limit exceeded. Please try again later.")
+    public ResponseEntity<AccountBalance> getAccountBalance(
+            @Parameter(description = "Account number", required = true, example = "ACC001")
+            @PathVariable String accountNumber) {
+        
+        return ResponseEntity.ok(transactionService.getAccountBalance(accountNumber));
+    }
+    
+    /**
+     * Get transactions in a time range, optionally for one account.
+     * GET /api/v1/transactions/range
+     */
+    @GetMapping("/range")
+    @Operation(
+        summary = "Get Transactions by Time Range",
+        description = "Retrieve transactions with a timestamp in [from, to), newest first, optionally for one account"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Transactions retrieved successfully",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = PaginatedResponse.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid time range or pagination"
+        )
+    })
+    @RateLimit(limit = 10000, window = 60, key = "api:getTransactionsByTimeRange", message = "API rate limit exceeded. Please try again later.")
+    public ResponseEntity<PaginatedResponse<Transaction>> getTransactionsByTimeRange(
+            @Parameter(description = "Only this account")
+            @RequestParam(required = false) String accountNumber,
+            @Parameter(description = "Transactions at or after this time (ISO-8601)", example = "2024-01-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Transactions before this time (ISO-8601)", example = "2024-01-02T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Page number (0-based)", example = "0")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size", example = "10")
+            @RequestParam(defaultValue = "10") int size) {
+        
+        long startTime = System.currentTimeMillis();
+        log.info("Retrieving transactions by time range - Account: {}, From: {}, To: {}, Page: {}, Size: {}",
+                accountNumber, from, to, page, size);
+        
+        try {
+            PaginatedResponse<Transaction> response = transactionService.getTransactionsByTimeRange(accountNumber, from, to, page, size);
+            long duration = System.currentTimeMillis() - startTime;
+            log.info("Time range transactions retrieved successfully - Account: {}, From: {}, To: {}, Total: {}, Duration: {}ms",
+                    accountNumber, from, to, response.getTotalElements(), duration);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            long duration = System.currentTimeMillis() - startTime;
+            log.error("Failed to retrieve transactions by time range - Account: {}, From: {}, To: {}, Duration: {}ms, Error: {}",
+                    accountNumber, from, to, duration, e.getMessage(), e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Get archived transactions in a time range, optionally for one account.
+     * GET /api/v1/transactions/archive
+     */
+    @GetMapping("/archive")
+    @Criticality(Criticality.Level.SHEDDABLE)
+    @Operation(
+        summary = "Get Archived Transactions",
+        description = "Retrieve transactions moved to the on-disk archive by the retention policy, with a timestamp in [from, to), newest first"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Archived transactions retrieved successfully",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = PaginatedResponse.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid time range or pagination"
+        )
+    })
+    @RateLimit(limit = 1000, window = 60, key = "api:getArchivedTransactions", message = "API rate limit exceeded. Please try again later.")
+    public ResponseEntity<PaginatedResponse<Transaction>> getArchivedTransactions(
+            @Parameter(description = "Only this account")
+            @RequestParam(required = false) String accountNumber,
+            @Parameter(description = "Transactions at or after this time (ISO-8601)", example = "2024-01-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Transactions before this time (ISO-8601)", example = "2024-01-02T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Page number (0-based)", example = "0")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size", example = "10")
+            @RequestParam(defaultValue = "10") int size) {
+        
+        long startTime = System.currentTimeMillis();
+        log.info("Retrieving archived transactions - Account: {}, From: {}, To: {}, Page: {}, Size: {}",
+                accountNumber, from, to, page, size);
+        
+        try {
+            PaginatedResponse<Transaction> response = transactionService.getArchivedTransactions(accountNumber, from, to, page, size);
+            long duration = System.currentTimeMillis() - startTime;
+            log.info("Archived transactions retrieved successfully - Account: {}, Total: {}, Duration: {}ms",
+                    accountNumber, response.getTotalElements(), duration);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            long duration = System.currentTimeMillis() - startTime;
+            log.error("Failed to retrieve archived transactions - Account: {}, Duration: {}ms, Error: {}",
+                    accountNumber, duration, e.getMessage(), e);
+            throw e;
+        }
+    }
+    
     /**
      * Get transactions by transaction type.
      * GET /api/v1/transactions/type/{transactionType}
@@ -352,6 +612,54 @@ public class TransactionController {
         }
     }
     
+    /**
+     * Cancel a pending transaction.
+     * POST /api/v1/transactions/{id}/cancel
+     */
+    @PostMapping("/{id}/cancel")
+    @Operation(
+        summary = "Cancel Transaction",
+        description = "Cancel a PENDING transaction before it is settled and revert its balance effect"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Transaction cancelled successfully",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = Transaction.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Transaction not found"
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Transaction is no longer PENDING"
+        )
+    })
+    @RateLimit(limit = 1500, window = 60, key = "api:cancelTransaction", message = "API rate limit exceeded. Please try again later.")
+    public ResponseEntity<Transaction> cancelTransaction(
+            @Parameter(description = "Transaction ID", required = true, example = "550e8400-e29b-41d4-a716-446655440000")
+            @PathVariable UUID id) {
+        
+        long startTime = System.currentTimeMillis();
+        log.info("Cancelling transaction with ID: {}", id);
+        
+        try {
+            Transaction transaction = transactionService.cancelTransaction(id);
+            long duration = System.currentTimeMillis() - startTime;
+            log.info("Transaction cancelled successfully - ID: {}, Duration: {}ms", id, duration);
+            return ResponseEntity.ok(transaction);
+        } catch (Exception e) {
+            long duration = System.currentTimeMillis() - startTime;
+            log.error("Failed to cancel transaction with ID: {} - Duration: {}ms, Error: {}", 
+                    id, duration, e.getMessage(), e);
+            throw e;
+        }
+    }
+    
     /**
      * Delete a transaction by ID.
      * DELETE /api/v1/transactions/{id}
@@ -402,6 +710,7 @@ public class TransactionController {
      * GET /api/v1/transactions/statistics
      */
     @GetMapping("/statistics")
+    @Criticality(Criticality.Level.SHEDDABLE)
     @Operation(
         summary = "Get Transaction Statistics",
         description = "Get transaction system statistics including total count, amounts, etc."
@@ -463,6 +772,7 @@ public class TransactionController {
      * GET /api/v1/transactions/cache/stats
      */
     @GetMapping("/cache/stats")
+    @Criticality(Criticality.Level.SHEDDABLE)
     @Operation(
         summary = "Cache Statistics",
         description = "Get cache statistics for monitoring and debugging"
@@ -497,4 +807,57 @@ public class TransactionController {
             throw e;
         }
     }
+    
+    /**
+     * Buffers export output into chunks sent through the emitter, each written to the response as it is sent
+     */
+    private static final class EmitterOutputStream extends OutputStream {
+        
+        private static final int CHUNK_SIZE = 64 * 1024;
+        
+        private final ResponseBodyEmitter emitter;
+        private final MediaType mediaType;
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private int length;
+        
+        EmitterOutputStream(ResponseBodyEmitter emitter, MediaType mediaType) {
+            this.emitter = emitter;
+            this.mediaType = mediaType;
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            if (length == buffer.length) {
+                flush();
+            }
+            buffer[length++] = (byte) b;
+        }
+        
+        @Override
+        public void write(byte[] bytes, int offset, int count) throws IOException {
+            while (count > 0) {
+                if (length == buffer.length) {
+                    flush();
+                }
+                int copied = Math.min(count, buffer.length - length);
+                System.arraycopy(bytes, offset, buffer, length, copied);
+                length += copied;
+                offset += copied;
+                count -= copied;
+            }
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            if (length > 0) {
+                emitter.send(Arrays.copyOf(buffer, length), mediaType);
+                length = 0;
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
 } 
\ No newline at end of file
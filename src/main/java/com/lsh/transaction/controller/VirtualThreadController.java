@@ -1,8 +1,14 @@
 package com.lsh.transaction.controller;
 
+import com.lsh.transaction.annotation.Criticality;
+import com.lsh.transaction.annotation.RequestTimeout;
+import com.lsh.transaction.idempotency.IdempotencyStore;
+import com.lsh.transaction.model.BatchCreateResult;
 import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.model.TransactionFilter;
 import com.lsh.transaction.model.TransactionRequest;
 import com.lsh.transaction.model.PaginatedResponse;
+import com.lsh.transaction.service.TransactionIngestService;
 import com.lsh.transaction.service.VirtualThreadTransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,12 +18,18 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
@@ -36,9 +48,12 @@ import java.util.concurrent.CompletableFuture;
 public class VirtualThreadController {
 
     private final VirtualThreadTransactionService virtualThreadService;
+    private final TransactionIngestService transactionIngestService;
 
-    public VirtualThreadController(VirtualThreadTransactionService virtualThreadService) {
+    public VirtualThreadController(VirtualThreadTransactionService virtualThreadService,
+                                   TransactionIngestService transactionIngestService) {
         this.virtualThreadService = virtualThreadService;
+        this.transactionIngestService = transactionIngestService;
         log.info("VirtualThreadController initialized with virtual thread service");
     }
 
@@ -47,6 +62,7 @@ public class VirtualThreadController {
      * POST /api/v2/transactions
      */
     @PostMapping
+    @Criticality(Criticality.Level.CRITICAL)
     @Operation(
         summary = "Create Transaction (Virtual Thread)",
         description = "Create a new banking transaction record using virtual threads for better performance"
@@ -67,14 +83,16 @@ public class VirtualThreadController {
     })
     public CompletableFuture<ResponseEntity<Transaction>> createTransaction(
             @Parameter(description = "Transaction creation request", required = true)
-            @Valid @RequestBody TransactionRequest request) {
+            @Valid @RequestBody TransactionRequest request,
+            @Parameter(description = "Key that makes retries of this request return the original transaction")
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
         
         long startTime = System.currentTimeMillis();
         String threadName = Thread.currentThread().getName();
         log.info("Creating transaction with virtual thread - Thread: {}, Account: {}, Amount: {}, Type: {}", 
                 threadName, request.getAccountNumber(), request.getAmount(), request.getTransactionType());
         
-        return virtualThreadService.createTransactionAsync(request)
+        return virtualThreadService.createTransactionAsync(request, idempotencyKey)
                 .thenApply(transaction -> {
                     long duration = System.currentTimeMillis() - startTime;
                     log.info("Virtual thread transaction created successfully - Thread: {}, ID: {}, Account: {}, Duration: {}ms", 
@@ -106,6 +124,7 @@ public class VirtualThreadController {
      * GET /api/v2/transactions/{id}
      */
     @GetMapping("/{id}")
+    @Criticality(Criticality.Level.CRITICAL)
     @Operation(
         summary = "Get Transaction by ID (Virtual Thread)",
         description = "Retrieve a specific transaction by its unique identifier using virtual threads"
@@ -388,6 +407,8 @@ public class VirtualThreadController {
      * GET /api/v2/transactions/statistics
      */
     @GetMapping("/statistics")
+    @Criticality(Criticality.Level.SHEDDABLE)
+    @RequestTimeout(5000)
     @Operation(
         summary = "Get Transaction Statistics (Virtual Thread)",
         description = "Get transaction system statistics including total count, amounts, etc. using virtual threads"
@@ -451,6 +472,7 @@ public class VirtualThreadController {
      * GET /api/v2/transactions/cache/stats
      */
     @GetMapping("/cache/stats")
+    @Criticality(Criticality.Level.SHEDDABLE)
     @Operation(
         summary = "Cache Statistics (Virtual Thread)",
         description = "Get cache statistics for monitoring and debugging virtual thread operations"
@@ -493,8 +515,9 @@ public class VirtualThreadController {
     // Additional virtual thread specific endpoints
 
     @PostMapping("/batch")
-    @Operation(summary = "Create multiple transactions in batch using virtual threads")
-    public CompletableFuture<ResponseEntity<List<Transaction>>> createTransactionsBatchAsync(
+    @Operation(summary = "Create multiple transactions in batch using virtual threads",
+            description = "Validates every item, saves the valid ones in a single bulk write and returns a result per item")
+    public CompletableFuture<ResponseEntity<BatchCreateResult>> createTransactionsBatchAsync(
             @RequestBody List<TransactionRequest> requests) {
         
         long startTime = System.currentTimeMillis();
@@ -502,34 +525,88 @@ public class VirtualThreadController {
         log.info("Creating batch transactions with virtual thread - Thread: {}, Count: {}", threadName, requests.size());
         
         return virtualThreadService.createTransactionsBatchAsync(requests)
-                .thenApply(transactions -> {
+                .thenApply(result -> {
                     long duration = System.currentTimeMillis() - startTime;
-                    log.info("Virtual thread batch transactions created successfully - Thread: {}, Count: {}, Duration: {}ms", 
-                            threadName, transactions.size(), duration);
-                    return ResponseEntity.ok(transactions);
+                    log.info("Virtual thread batch transactions created successfully - Thread: {}, Count: {}, Created: {}, Rejected: {}, Duration: {}ms", 
+                            threadName, result.getTotal(), result.getCreated(), result.getRejected(), duration);
+                    return ResponseEntity.ok(result);
                 })
                 .exceptionally(throwable -> {
                     long duration = System.currentTimeMillis() - startTime;
                     log.error("Virtual thread batch transactions creation failed - Thread: {}, Count: {}, Duration: {}ms, Error: {}", 
                             threadName, requests.size(), duration, throwable.getMessage(), throwable);
-                    throw new RuntimeException(throwable);
+                    
+                    // Unwrap so batch validation errors keep their status
+                    Throwable originalException = throwable;
+                    if (throwable instanceof RuntimeException && throwable.getCause() != null) {
+                        originalException = throwable.getCause();
+                    }
+                    
+                    if (originalException instanceof RuntimeException) {
+                        throw (RuntimeException) originalException;
+                    } else {
+                        throw new RuntimeException(originalException);
+                    }
                 });
     }
 
+    /**
+     * Stream newline-delimited JSON transactions in and per-record results out.
+     * POST /api/v2/transactions/stream
+     * Runs on the request thread rather than a CompletableFuture: the upload is read while
+     * results are written, and blocking here is what applies backpressure to the client.
+     */
+    @PostMapping(value = "/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Criticality(Criticality.Level.SHEDDABLE)
+    @Operation(summary = "Ingest a stream of transactions",
+            description = "Reads NDJSON TransactionRequest records incrementally, applies them in bounded micro-batches and streams one NDJSON result per record followed by a summary line")
+    public void ingestTransactionsStream(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long startTime = System.currentTimeMillis();
+        log.info("Ingesting transaction stream - Thread: {}, ContentLength: {}",
+                Thread.currentThread().getName(), request.getContentLengthLong());
+        
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        TransactionIngestService.Summary summary =
+                transactionIngestService.ingest(request.getInputStream(), response.getOutputStream());
+        
+        long duration = System.currentTimeMillis() - startTime;
+        log.info("Transaction stream ingested - Total: {}, Created: {}, Rejected: {}, Duration: {}ms",
+                summary.getTotal(), summary.getCreated(), summary.getRejected(), duration);
+    }
+
     @GetMapping("/search")
-    @Operation(summary = "Search transactions asynchronously")
+    @Criticality(Criticality.Level.SHEDDABLE)
+    @RequestTimeout(3000)
+    @Operation(summary = "Search transactions asynchronously",
+               description = "All criteria are optional and combined with AND; amount bounds are inclusive and the time range is [from, to)")
     public CompletableFuture<ResponseEntity<List<Transaction>>> searchTransactionsAsync(
             @RequestParam(required = false) String accountNumber,
             @RequestParam(required = false) String type,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String recipientAccount,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         
         long startTime = System.currentTimeMillis();
         String threadName = Thread.currentThread().getName();
-        log.info("Searching transactions with virtual thread - Thread: {}, Account: {}, Type: {}, Page: {}, Size: {}", 
-                threadName, accountNumber, type, page, size);
+        TransactionFilter filter = new TransactionFilter();
+        filter.setAccountNumber(accountNumber);
+        filter.setTransactionType(type);
+        filter.setStatus(status);
+        filter.setRecipientAccount(recipientAccount);
+        filter.setMinAmount(minAmount);
+        filter.setMaxAmount(maxAmount);
+        filter.setFrom(from);
+        filter.setTo(to);
+        log.info("Searching transactions with virtual thread - Thread: {}, Filter: {}, Page: {}, Size: {}", 
+                threadName, filter, page, size);
         
-        return virtualThreadService.searchTransactionsAsync(accountNumber, type, page, size)
+        return virtualThreadService.searchTransactionsAsync(filter, page, size)
                 .thenApply(transactions -> {
                     long duration = System.currentTimeMillis() - startTime;
                     log.info("Virtual thread transaction search completed successfully - Thread: {}, Results: {}, Duration: {}ms", 
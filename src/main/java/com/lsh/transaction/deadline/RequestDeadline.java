@@ -0,0 +1,105 @@
+package com.lsh.transaction.deadline;
+
+import com.lsh.transaction.exception.DeadlineExceededException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Deadline of the request being served.
+ * Bound to the request thread by the deadline interceptor and carried into virtual thread
+ * tasks via {@link #propagate(Supplier)}. Long running work calls {@link #checkpoint()} to
+ * stop cooperatively once the deadline passes or the request is abandoned.
+ */
+public final class RequestDeadline {
+    
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+    
+    private final long timeoutMillis;
+    private final long deadlineNanos;
+    private volatile boolean cancelled;
+    
+    private RequestDeadline(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+    
+    /**
+     * Create a deadline the given number of milliseconds from now
+     */
+    public static RequestDeadline after(long timeoutMillis) {
+        return new RequestDeadline(timeoutMillis);
+    }
+    
+    /**
+     * Deadline bound to the current thread, or null
+     */
+    public static RequestDeadline current() {
+        return CURRENT.get();
+    }
+    
+    public static void bind(RequestDeadline deadline) {
+        CURRENT.set(deadline);
+    }
+    
+    public static void clear() {
+        CURRENT.remove();
+    }
+    
+    /**
+     * Throw if the current thread's deadline has passed; no-op outside a request
+     */
+    public static void checkpoint() {
+        RequestDeadline deadline = CURRENT.get();
+        if (deadline != null) {
+            deadline.check();
+        }
+    }
+    
+    /**
+     * Wrap a task so it runs with the calling thread's deadline bound
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        RequestDeadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return task;
+        }
+        return () -> {
+            RequestDeadline previous = CURRENT.get();
+            CURRENT.set(deadline);
+            try {
+                deadline.check();
+                return task.get();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+    
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+    
+    public boolean isExpired() {
+        return cancelled || remainingNanos() <= 0;
+    }
+    
+    /**
+     * Mark the request as abandoned; work still running stops at its next checkpoint
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+    
+    public void check() {
+        if (isExpired()) {
+            throw new DeadlineExceededException(cancelled
+                    ? "Request was cancelled before processing completed"
+                    : "Request deadline of " + timeoutMillis + "ms exceeded");
+        }
+    }
+    
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+}
\ No newline at end of file
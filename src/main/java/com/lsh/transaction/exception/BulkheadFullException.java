@@ -0,0 +1,15 @@
+package com.lsh.transaction.exception;
+
+/**
+ * Exception thrown when a bulkhead has no free permits
+ */
+public class BulkheadFullException extends RuntimeException {
+    
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+    
+    public BulkheadFullException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.lsh.transaction.exception;
+
+/**
+ * Exception thrown when an endpoint group has no concurrency permits left
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+    
+    public ConcurrencyLimitExceededException(String message) {
+        super(message);
+    }
+    
+    public ConcurrencyLimitExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.lsh.transaction.exception;
+
+/**
+ * Exception thrown when a request runs past its deadline or is abandoned by the client
+ */
+public class DeadlineExceededException extends RuntimeException {
+    
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+    
+    public DeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
\ No newline at end of file
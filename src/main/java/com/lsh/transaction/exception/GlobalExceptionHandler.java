@@ -1,5 +1,7 @@
 package com.lsh.transaction.exception;
 
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -19,6 +21,8 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
     
+    public static final String RATE_LIMIT_REMAINING_HEADER = "X-RateLimit-Remaining";
+    
     /**
      * Error response structure for consistent error handling.
      */
@@ -176,7 +180,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(RateLimitExceededException.class)
     public ResponseEntity<ErrorResponse> handleRateLimitExceededException(
-            RateLimitExceededException ex, WebRequest request) {
+            RateLimitExceededException ex, WebRequest request, HttpServletResponse response) {
         
         ErrorResponse errorResponse = new ErrorResponse(
                 HttpStatus.TOO_MANY_REQUESTS.value(),
@@ -186,7 +190,16 @@ public class GlobalExceptionHandler {
         );
         errorResponse.setErrorCode("RATE_LIMIT_EXCEEDED");
         
-        return new ResponseEntity<>(errorResponse, HttpStatus.TOO_MANY_REQUESTS);
+        // Replace the remaining count a global limiter pass may already have set, rather than add a second value
+        response.setHeader(RATE_LIMIT_REMAINING_HEADER, "0");
+        
+        // Tell clients exactly when to come back instead of letting them retry immediately
+        HttpHeaders headers = new HttpHeaders();
+        if (ex.getRetryAfterSeconds() > 0) {
+            headers.set(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()));
+        }
+        
+        return new ResponseEntity<>(errorResponse, headers, HttpStatus.TOO_MANY_REQUESTS);
     }
     
     /**
@@ -207,6 +220,85 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
     }
     
+    /**
+     * Handle load shedding exceptions.
+     */
+    @ExceptionHandler(LoadSheddingException.class)
+    public ResponseEntity<ErrorResponse> handleLoadSheddingException(
+            LoadSheddingException ex, WebRequest request) {
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Temporarily Unavailable",
+                ex.getMessage(),
+                request.getDescription(false)
+        );
+        errorResponse.setErrorCode("LOAD_SHED");
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        
+        return new ResponseEntity<>(errorResponse, headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+    
+    /**
+     * Handle bulkhead full exceptions.
+     */
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<ErrorResponse> handleBulkheadFullException(
+            BulkheadFullException ex, WebRequest request) {
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Temporarily Unavailable",
+                ex.getMessage(),
+                request.getDescription(false)
+        );
+        errorResponse.setErrorCode("BULKHEAD_FULL");
+        
+        return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+    
+    /**
+     * Handle adaptive concurrency limit exceptions.
+     */
+    @ExceptionHandler(ConcurrencyLimitExceededException.class)
+    public ResponseEntity<ErrorResponse> handleConcurrencyLimitExceededException(
+            ConcurrencyLimitExceededException ex, WebRequest request) {
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Temporarily Unavailable",
+                ex.getMessage(),
+                request.getDescription(false)
+        );
+        errorResponse.setErrorCode("CONCURRENCY_LIMIT_EXCEEDED");
+        
+        // Permits free up as soon as in-flight requests complete
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        
+        return new ResponseEntity<>(errorResponse, headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+    
+    /**
+     * Handle request deadline exceptions.
+     */
+    @ExceptionHandler(DeadlineExceededException.class)
+    public ResponseEntity<ErrorResponse> handleDeadlineExceededException(
+            DeadlineExceededException ex, WebRequest request) {
+        
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.GATEWAY_TIMEOUT.value(),
+                "Gateway Timeout",
+                ex.getMessage(),
+                request.getDescription(false)
+        );
+        errorResponse.setErrorCode("DEADLINE_EXCEEDED");
+        
+        return new ResponseEntity<>(errorResponse, HttpStatus.GATEWAY_TIMEOUT);
+    }
+    
     /**
      * Handle general runtime exceptions.
      */
@@ -214,6 +306,13 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleRuntimeException(
             RuntimeException ex, WebRequest request) {
         
+        // Async v2 endpoints wrap failures from their futures; surface a missed deadline as such
+        for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof DeadlineExceededException deadlineExceeded) {
+                return handleDeadlineExceededException(deadlineExceeded, request);
+            }
+        }
+        
         ErrorResponse errorResponse = new ErrorResponse(
                 HttpStatus.INTERNAL_SERVER_ERROR.value(),
                 "Internal Server Error",
@@ -242,4 +341,4 @@ public class GlobalExceptionHandler {
         
         return new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.lsh.transaction.exception;
+
+/**
+ * Exception thrown when a request is shed to protect higher priority work
+ */
+public class LoadSheddingException extends RuntimeException {
+    
+    public LoadSheddingException(String message) {
+        super(message);
+    }
+    
+    public LoadSheddingException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
\ No newline at end of file
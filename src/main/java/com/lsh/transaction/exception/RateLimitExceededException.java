@@ -5,11 +5,26 @@ package com.lsh.transaction.exception;
  */
 public class RateLimitExceededException extends RuntimeException {
     
+    private final long retryAfterSeconds;
+    
     public RateLimitExceededException(String message) {
+        this(message, 0);
+    }
+    
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
         super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
     }
     
     public RateLimitExceededException(String message, Throwable cause) {
         super(message, cause);
+        this.retryAfterSeconds = 0;
+    }
+    
+    /**
+     * Seconds until the limiter window resets, or 0 when unknown
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
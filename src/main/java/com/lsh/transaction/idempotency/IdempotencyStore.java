@@ -0,0 +1,220 @@
+package com.lsh.transaction.idempotency;
+
+import com.lsh.transaction.exception.DuplicateResourceException;
+import com.lsh.transaction.exception.TransactionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-memory store of idempotency keys and the results they produced.
+ * Keys are scoped by the client they belong to, the account the request writes to, so one
+ * client reusing another's key neither replays nor blocks the other's result.
+ * The first request for a key claims it and runs; retries with the same key get the
+ * original result, or wait for it while the first attempt is still in flight. Failed
+ * attempts release the key so the client can retry. Entries expire after the TTL and
+ * the oldest are evicted once the store is full.
+ */
+@Component
+public class IdempotencyStore {
+    
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 255;
+    
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final ConcurrentHashMap<ScopedKey, Entry> entries = new ConcurrentHashMap<>();
+    // Keys in insertion order; with a fixed TTL this is also expiry order
+    private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicLong replayCount = new AtomicLong(0);
+    private final AtomicLong evictionCount = new AtomicLong(0);
+    
+    public IdempotencyStore(@Value("${app.idempotency.ttl-seconds:86400}") long ttlSeconds,
+                            @Value("${app.idempotency.max-entries:100000}") int maxEntries) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+    
+    /**
+     * Run the action once per key within the scope; a null key runs it unconditionally
+     */
+    public <T> T execute(String scope, String key, Object fingerprint, Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        Entry entry = new Entry(new ScopedKey(scope, validate(key)), fingerprint, System.nanoTime() + ttlNanos);
+        Entry existing = claim(entry);
+        if (existing != null) {
+            return await(existing);
+        }
+        
+        try {
+            T result = action.get();
+            entry.result.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            release(entry, e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Asynchronous variant of {@link #execute(String, String, Object, Supplier)}.
+     * The key is bound to the future returned by the action, which must represent the work
+     * itself: apply deadlines to the returned copy, never inside the action, or a write that
+     * commits after the caller timed out would release the key and let a retry run it again.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> executeAsync(String scope, String key, Object fingerprint,
+                                                 Supplier<CompletableFuture<T>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        Entry entry = new Entry(new ScopedKey(scope, validate(key)), fingerprint, System.nanoTime() + ttlNanos);
+        Entry existing = claim(entry);
+        if (existing != null) {
+            // Copy so a caller cancelling its future cannot complete the shared one
+            return (CompletableFuture<T>) existing.result.thenApply(result -> result);
+        }
+        
+        CompletableFuture<T> future;
+        try {
+            future = action.get();
+        } catch (RuntimeException | Error e) {
+            release(entry, e);
+            throw e;
+        }
+        future.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                release(entry, throwable);
+            } else {
+                entry.result.complete(result);
+            }
+        });
+        // Copy so a caller timing out or cancelling its future cannot skip the binding above
+        return (CompletableFuture<T>) entry.result.thenApply(result -> result);
+    }
+    
+    /**
+     * Check whether a key has been seen within the scope and not yet expired, including attempts still in flight
+     */
+    public boolean contains(String scope, String key) {
+        if (key == null) {
+            return false;
+        }
+        Entry entry = entries.get(new ScopedKey(scope, key));
+        return entry != null && !entry.isExpired(System.nanoTime());
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+    
+    public long getReplayCount() {
+        return replayCount.get();
+    }
+    
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+    
+    /**
+     * Claim the key for this entry, or return the live entry that already holds it
+     */
+    private Entry claim(Entry entry) {
+        for (;;) {
+            Entry existing = entries.putIfAbsent(entry.key, entry);
+            if (existing == null) {
+                insertionOrder.offer(entry);
+                evict(System.nanoTime());
+                return null;
+            }
+            if (existing.isExpired(System.nanoTime())) {
+                entries.remove(existing.key, existing);
+                continue;
+            }
+            if (!Objects.equals(existing.fingerprint, entry.fingerprint)) {
+                throw new DuplicateResourceException("Idempotency key '" + entry.key.key()
+                        + "' was already used with a different request");
+            }
+            replayCount.incrementAndGet();
+            return existing;
+        }
+    }
+    
+    private void release(Entry entry, Throwable cause) {
+        entries.remove(entry.key, entry);
+        entry.result.completeExceptionally(cause);
+    }
+    
+    /**
+     * Drop expired entries from the head of the queue, then the oldest while over capacity
+     */
+    private void evict(long now) {
+        Entry head;
+        while ((head = insertionOrder.peek()) != null
+                && (head.isExpired(now) || entries.size() > maxEntries || entries.get(head.key) != head)) {
+            if (insertionOrder.remove(head) && entries.remove(head.key, head) && !head.isExpired(now)) {
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> T await(Entry entry) {
+        try {
+            return (T) entry.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+    
+    private static String validate(String key) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new TransactionException("Idempotency key must be between 1 and " + MAX_KEY_LENGTH + " characters",
+                    "INVALID_IDEMPOTENCY_KEY");
+        }
+        return key;
+    }
+    
+    /**
+     * A client's key; the scope may be null for requests without a client identity
+     */
+    private record ScopedKey(String scope, String key) {
+    }
+    
+    /**
+     * A claimed key with the fingerprint of the request that claimed it and its eventual result
+     */
+    private static final class Entry {
+        final ScopedKey key;
+        final Object fingerprint;
+        final long expiresAtNanos;
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        
+        Entry(ScopedKey key, Object fingerprint, long expiresAtNanos) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+        
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.lsh.transaction.interceptor;
+
+import com.lsh.transaction.exception.ConcurrencyLimitExceededException;
+import com.lsh.transaction.limiter.AdaptiveConcurrencyLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adaptive concurrency limiting per endpoint group.
+ * Endpoints are grouped by controller and read/write, each group gets its own
+ * {@link AdaptiveConcurrencyLimiter} fed with the observed request latency.
+ */
+@Component
+public class AdaptiveConcurrencyInterceptor implements HandlerInterceptor {
+    
+    private static final String PERMIT_ATTRIBUTE = AdaptiveConcurrencyInterceptor.class.getName() + ".permit";
+    private static final String START_ATTRIBUTE = AdaptiveConcurrencyInterceptor.class.getName() + ".start";
+    
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    
+    private final ConcurrentHashMap<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Method, AdaptiveConcurrencyLimiter> limitersByMethod = new ConcurrentHashMap<>();
+    
+    public AdaptiveConcurrencyInterceptor(@Value("${app.concurrency.initial-limit:50}") int initialLimit,
+                                          @Value("${app.concurrency.min-limit:8}") int minLimit,
+                                          @Value("${app.concurrency.max-limit:2000}") int maxLimit,
+                                          @Value("${app.concurrency.tolerance:2.0}") double tolerance) {
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+    }
+    
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        // Async re-dispatch of a request that already holds a permit
+        if (!(handler instanceof HandlerMethod handlerMethod)
+                || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        
+        AdaptiveConcurrencyLimiter limiter = limiterFor(handlerMethod);
+        if (!limiter.tryAcquire()) {
+            throw new ConcurrencyLimitExceededException(
+                    "Service is at capacity for " + limiter.getName() + ". Please try again later.");
+        }
+        
+        request.setAttribute(PERMIT_ATTRIBUTE, limiter);
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+    
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception {
+        Object permit = request.getAttribute(PERMIT_ATTRIBUTE);
+        if (!(permit instanceof AdaptiveConcurrencyLimiter limiter)) {
+            return;
+        }
+        request.removeAttribute(PERMIT_ATTRIBUTE);
+        
+        long rttNanos = System.nanoTime() - (Long) request.getAttribute(START_ATTRIBUTE);
+        // Only server side failures indicate overload; client errors say nothing about capacity
+        boolean failed = ex != null || response.getStatus() >= 500;
+        limiter.release(rttNanos, failed);
+    }
+    
+    /**
+     * All endpoint group limiters, for monitoring
+     */
+    public Collection<AdaptiveConcurrencyLimiter> getLimiters() {
+        return limiters.values();
+    }
+    
+    /**
+     * Limiter of the endpoint group the handler belongs to
+     */
+    public AdaptiveConcurrencyLimiter limiterFor(HandlerMethod handlerMethod) {
+        Method method = handlerMethod.getMethod();
+        AdaptiveConcurrencyLimiter limiter = limitersByMethod.get(method);
+        if (limiter == null) {
+            String group = groupOf(handlerMethod);
+            limiter = limitersByMethod.computeIfAbsent(method, m -> limiters.computeIfAbsent(group,
+                    g -> new AdaptiveConcurrencyLimiter(g, initialLimit, minLimit, maxLimit, tolerance)));
+        }
+        return limiter;
+    }
+    
+    private static String groupOf(HandlerMethod handlerMethod) {
+        boolean read = AnnotatedElementUtils.hasAnnotation(handlerMethod.getMethod(), GetMapping.class);
+        return handlerMethod.getBeanType().getSimpleName() + (read ? ":read" : ":write");
+    }
+}
\ No newline at end of file
@@ -1,9 +1,11 @@
 package com.lsh.transaction.interceptor;
 
+import com.lsh.transaction.exception.GlobalExceptionHandler;
 import com.lsh.transaction.exception.RateLimitExceededException;
-import com.lsh.transaction.limiter.MemoryRateLimiter;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.lsh.transaction.limiter.LongKeyRateLimiter;
+import com.lsh.transaction.limiter.RateLimitDecision;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
@@ -16,43 +18,98 @@ import jakarta.servlet.http.HttpServletResponse;
 @Component
 public class GlobalRateLimitInterceptor implements HandlerInterceptor {
     
-    @Autowired
-    @Qualifier("globalRateLimiter")
-    private MemoryRateLimiter globalRateLimiter;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    
+    private final LongKeyRateLimiter globalRateLimiter;
+    private final int globalLimit;
+    private final int windowSeconds;
+    
+    public GlobalRateLimitInterceptor(@Qualifier("globalRateLimiter") LongKeyRateLimiter globalRateLimiter,
+                                      @Value("${app.rate-limit.global.limit:120000}") int globalLimit,
+                                      @Value("${app.rate-limit.global.window-seconds:60}") int windowSeconds) {
+        this.globalRateLimiter = globalRateLimiter;
+        this.globalLimit = globalLimit;
+        this.windowSeconds = windowSeconds;
+    }
     
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-        String clientIp = getClientIpAddress(request);
-        String userAgent = request.getHeader("User-Agent");
+        // Rate limit key: hash of client IP + User-Agent, built without intermediate strings
+        long clientKey = clientKey(request);
         
-        // Generate rate limit key: IP + User-Agent
-        String rateLimitKey = "global:" + clientIp + ":" + (userAgent != null ? userAgent.hashCode() : "unknown");
-        
-        // Global rate limiting: Based on actual performance test results
-        // QPS: ~2500, Safe operating range: 80% of max capacity
-        // 2500 * 0.8 * 60 = 120,000 requests/minute per client
-        int globalLimit = (int)(2500 * 0.8 * 60); // 120,000 requests/minute
-        if (!globalRateLimiter.isAllowed(rateLimitKey, globalLimit, 60)) {
-            throw new RateLimitExceededException("Global rate limit exceeded. Please try again later.");
+        long decision = globalRateLimiter.tryAcquire(clientKey, globalLimit, windowSeconds);
+        if (!RateLimitDecision.isAllowed(decision)) {
+            throw new RateLimitExceededException("Global rate limit exceeded. Please try again later.",
+                    RateLimitDecision.resetSeconds(decision));
         }
         
+        response.setIntHeader(GlobalExceptionHandler.RATE_LIMIT_REMAINING_HEADER, RateLimitDecision.remaining(decision));
         return true;
     }
     
+    public int getGlobalLimit() {
+        return globalLimit;
+    }
+    
+    public int getWindowSeconds() {
+        return windowSeconds;
+    }
+    
     /**
-     * Get client IP address from request
+     * Compute the numeric client key for an IP address and User-Agent.
+     * Only the first entry of a comma separated forwarding chain is used.
      */
-    private String getClientIpAddress(HttpServletRequest request) {
+    public static long clientKey(String clientIp, String userAgent) {
+        long ipHash = hashFirstAddress(clientIp);
+        long uaHash = userAgent != null ? userAgent.hashCode() : 0;
+        return ipHash ^ (uaHash * 0x9e3779b97f4a7c15L);
+    }
+    
+    private long clientKey(HttpServletRequest request) {
+        String userAgent = request.getHeader("User-Agent");
+        
         String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty() && !"unknown".equalsIgnoreCase(xForwardedFor)) {
-            return xForwardedFor.split(",")[0].trim();
+        if (isPresent(xForwardedFor)) {
+            return clientKey(xForwardedFor, userAgent);
         }
         
         String xRealIp = request.getHeader("X-Real-IP");
-        if (xRealIp != null && !xRealIp.isEmpty() && !"unknown".equalsIgnoreCase(xRealIp)) {
-            return xRealIp;
+        if (isPresent(xRealIp)) {
+            return clientKey(xRealIp, userAgent);
         }
         
-        return request.getRemoteAddr();
+        return clientKey(request.getRemoteAddr(), userAgent);
+    }
+    
+    private static boolean isPresent(String header) {
+        return header != null && !header.isEmpty() && !"unknown".equalsIgnoreCase(header);
+    }
+    
+    /**
+     * FNV-1a hash of the first address in the value, trimmed, without splitting the string
+     */
+    private static long hashFirstAddress(String value) {
+        if (value == null) {
+            return FNV_OFFSET_BASIS;
+        }
+        int end = value.indexOf(',');
+        if (end < 0) {
+            end = value.length();
+        }
+        int start = 0;
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = start; i < end; i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
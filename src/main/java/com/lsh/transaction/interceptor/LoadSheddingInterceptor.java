@@ -0,0 +1,79 @@
+package com.lsh.transaction.interceptor;
+
+import com.lsh.transaction.annotation.Criticality;
+import com.lsh.transaction.exception.LoadSheddingException;
+import com.lsh.transaction.shedding.LoadShedder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Load shedding in front of the transaction handlers.
+ * Resolves the endpoint's criticality (deep pagination is demoted to sheddable) and
+ * rejects the request when its endpoint group's queueing delay is over that level's threshold.
+ */
+@Component
+public class LoadSheddingInterceptor implements HandlerInterceptor {
+    
+    private final LoadShedder loadShedder;
+    private final long deepPageOffset;
+    private final ConcurrentHashMap<Method, Criticality.Level> levels = new ConcurrentHashMap<>();
+    
+    public LoadSheddingInterceptor(LoadShedder loadShedder,
+                                   @Value("${app.load-shedding.deep-page-offset:1000}") long deepPageOffset) {
+        this.loadShedder = loadShedder;
+        this.deepPageOffset = deepPageOffset;
+    }
+    
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!(handler instanceof HandlerMethod handlerMethod)
+                || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        
+        Criticality.Level level = levelOf(handlerMethod);
+        if (level == Criticality.Level.DEFAULT && isDeepPage(request)) {
+            level = Criticality.Level.SHEDDABLE;
+        }
+        
+        if (!loadShedder.admit(handlerMethod, level)) {
+            throw new LoadSheddingException("Service is under heavy load and is shedding "
+                    + level.name().toLowerCase() + " requests. Please try again later.");
+        }
+        return true;
+    }
+    
+    private Criticality.Level levelOf(HandlerMethod handlerMethod) {
+        Method method = handlerMethod.getMethod();
+        Criticality.Level level = levels.get(method);
+        if (level == null) {
+            Criticality criticality = handlerMethod.getMethodAnnotation(Criticality.class);
+            level = criticality != null ? criticality.value() : Criticality.Level.DEFAULT;
+            levels.putIfAbsent(method, level);
+        }
+        return level;
+    }
+    
+    private boolean isDeepPage(HttpServletRequest request) {
+        String page = request.getParameter("page");
+        if (page == null) {
+            return false;
+        }
+        String size = request.getParameter("size");
+        try {
+            long offset = Long.parseLong(page) * (size != null ? Long.parseLong(size) : 10);
+            return offset >= deepPageOffset;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.lsh.transaction.interceptor;
+
+import com.lsh.transaction.annotation.RequestTimeout;
+import com.lsh.transaction.deadline.RequestDeadline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Turns the X-Request-Timeout header, or the endpoint's default, into a request deadline
+ */
+@Component
+public class RequestDeadlineInterceptor implements AsyncHandlerInterceptor {
+    
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout";
+    private static final String DEADLINE_ATTRIBUTE = RequestDeadlineInterceptor.class.getName() + ".deadline";
+    
+    private final long defaultTimeoutMillis;
+    private final long maxTimeoutMillis;
+    
+    public RequestDeadlineInterceptor(@Value("${app.deadline.default-timeout-ms:10000}") long defaultTimeoutMillis,
+                                      @Value("${app.deadline.max-timeout-ms:30000}") long maxTimeoutMillis) {
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        this.maxTimeoutMillis = maxTimeoutMillis;
+    }
+    
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        // The async re-dispatch only renders the result; the deadline was set on the first dispatch
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        
+        RequestDeadline deadline = RequestDeadline.after(timeoutFor(request, handler));
+        request.setAttribute(DEADLINE_ATTRIBUTE, deadline);
+        RequestDeadline.bind(deadline);
+        return true;
+    }
+    
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        // Request thread goes back to the pool while the async work continues
+        RequestDeadline.clear();
+    }
+    
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception {
+        RequestDeadline.clear();
+        // Response is done (or the client went away): anything still running for it is wasted work
+        if (request.getAttribute(DEADLINE_ATTRIBUTE) instanceof RequestDeadline deadline) {
+            deadline.cancel();
+        }
+    }
+    
+    private long timeoutFor(HttpServletRequest request, Object handler) {
+        long timeout = defaultTimeoutMillis;
+        if (handler instanceof HandlerMethod handlerMethod) {
+            RequestTimeout requestTimeout = handlerMethod.getMethodAnnotation(RequestTimeout.class);
+            if (requestTimeout != null) {
+                timeout = requestTimeout.value();
+            }
+        }
+        
+        String header = request.getHeader(TIMEOUT_HEADER);
+        if (header != null) {
+            try {
+                timeout = Long.parseLong(header.trim());
+            } catch (NumberFormatException e) {
+                // Ignore malformed header and keep the endpoint default
+            }
+        }
+        return Math.max(1, Math.min(timeout, maxTimeoutMillis));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,164 @@
+package com.lsh.transaction.limiter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Gradient based adaptive concurrency limiter.
+ * The permit count follows the ratio between the long term (no load) latency and the
+ * short term latency: while requests are as fast as usual the limit grows by a small
+ * queue allowance, once latency rises the limit shrinks proportionally. Failed calls
+ * cut the limit multiplicatively (AIMD style). No capacity numbers need tuning per pod.
+ */
+public class AdaptiveConcurrencyLimiter {
+    
+    private static final double SHORT_RTT_ALPHA = 2.0 / (10 + 1);
+    private static final double LONG_RTT_ALPHA = 2.0 / (600 + 1);
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+    // Queueing delay estimate halves for every half-life without a fresh latency sample
+    private static final double DELAY_HALF_LIFE_NANOS = 500_000_000.0;
+    
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final ReentrantLock updateLock = new ReentrantLock();
+    
+    private volatile double estimatedLimit;
+    private volatile int limit;
+    // Written under updateLock, read by monitoring and load shedding
+    private volatile double shortRttNanos;
+    private volatile double longRttNanos;
+    private volatile long lastSampleNanos;
+    
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+    
+    /**
+     * Take a permit if fewer than the current limit are in flight
+     */
+    public boolean tryAcquire() {
+        for (;;) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Return a permit and feed the observed latency into the limit estimate
+     */
+    public void release(long rttNanos, boolean failed) {
+        int current = inFlight.getAndDecrement();
+        if (failed) {
+            // Every failure backs off, so it waits for the lock instead of being skipped like a sample
+            updateLock.lock();
+            try {
+                estimatedLimit = Math.max(minLimit, estimatedLimit * BACKOFF_RATIO);
+                limit = (int) estimatedLimit;
+            } finally {
+                updateLock.unlock();
+            }
+            return;
+        }
+        // Latency samples are skipped under contention; the next release will pick the trend up
+        if (rttNanos <= 0 || !updateLock.tryLock()) {
+            return;
+        }
+        try {
+            lastSampleNanos = System.nanoTime();
+            if (longRttNanos == 0) {
+                shortRttNanos = rttNanos;
+                longRttNanos = rttNanos;
+            } else {
+                shortRttNanos += (rttNanos - shortRttNanos) * SHORT_RTT_ALPHA;
+                longRttNanos += (rttNanos - longRttNanos) * LONG_RTT_ALPHA;
+            }
+            // Let the baseline follow a sustained latency drop quickly
+            if (longRttNanos / shortRttNanos > 2) {
+                longRttNanos *= 0.95;
+            }
+            
+            // Do not grow while the limit is not being used
+            if (current < estimatedLimit / 2) {
+                return;
+            }
+            
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / shortRttNanos));
+            double queueSize = Math.sqrt(estimatedLimit);
+            double newLimit = estimatedLimit * gradient + queueSize;
+            newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+            estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+            limit = (int) estimatedLimit;
+        } finally {
+            updateLock.unlock();
+        }
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public int getLimit() {
+        return limit;
+    }
+    
+    public int getInFlight() {
+        return inFlight.get();
+    }
+    
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+    
+    /**
+     * Recent latency in excess of the long term baseline, an estimate of queueing delay
+     */
+    public long getQueueingDelayNanos() {
+        return getQueueingDelayNanos(System.nanoTime());
+    }
+    
+    /**
+     * Queueing delay estimate at the given time. The excess latency decays with the time since
+     * the last sample, so a group that stops receiving traffic (for instance because it is being
+     * shed) drifts back to zero instead of keeping its last reading.
+     */
+    public long getQueueingDelayNanos(long nowNanos) {
+        double excess = shortRttNanos - longRttNanos;
+        if (excess <= 0) {
+            return 0;
+        }
+        long age = Math.max(0, nowNanos - lastSampleNanos);
+        return (long) (excess * Math.pow(0.5, age / DELAY_HALF_LIFE_NANOS));
+    }
+    
+    /**
+     * Smoothed recent latency in milliseconds
+     */
+    public double getShortRttMillis() {
+        return shortRttNanos / 1_000_000.0;
+    }
+    
+    /**
+     * Long term baseline latency in milliseconds
+     */
+    public double getLongRttMillis() {
+        return longRttNanos / 1_000_000.0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,173 @@
+package com.lsh.transaction.limiter;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed window rate limiter keyed by primitive long values.
+ * Keys and window state live in flat atomic arrays (open addressing), so a check
+ * allocates nothing and never takes a lock. Slots whose window has expired are
+ * reused by new keys, which keeps memory bounded by the configured capacity.
+ */
+public class LongKeyRateLimiter {
+    
+    private static final long EMPTY = 0L;
+    private static final int MAX_PROBES = 8;
+    
+    private final int mask;
+    private final AtomicLongArray keys;
+    // High 32 bits: window start in epoch seconds, low 32 bits: request count
+    private final AtomicLongArray states;
+    
+    public LongKeyRateLimiter(int capacity) {
+        int size = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.keys = new AtomicLongArray(size);
+        this.states = new AtomicLongArray(size);
+    }
+    
+    /**
+     * Check if request is allowed based on rate limit
+     */
+    public boolean isAllowed(long key, int limit, int windowSeconds) {
+        return RateLimitDecision.isAllowed(tryAcquire(key, limit, windowSeconds));
+    }
+    
+    /**
+     * Acquire a permit and return the packed {@link RateLimitDecision} with remaining requests and reset time
+     */
+    public long tryAcquire(long key, int limit, int windowSeconds) {
+        long currentTime = Instant.now().getEpochSecond();
+        int slot = slotFor(normalize(key), currentTime, windowSeconds);
+        
+        for (;;) {
+            long state = states.get(slot);
+            long windowStart = state >>> 32;
+            long next;
+            if (currentTime - windowStart >= windowSeconds) {
+                // Window expired or never started: open a new one
+                next = (currentTime << 32) | 1;
+                windowStart = currentTime;
+            } else if ((int) state >= limit) {
+                return RateLimitDecision.rejected(windowStart + windowSeconds - currentTime);
+            } else {
+                next = state + 1;
+            }
+            if (states.compareAndSet(slot, state, next)) {
+                return RateLimitDecision.allowed(limit - (int) next, windowStart + windowSeconds - currentTime);
+            }
+        }
+    }
+    
+    /**
+     * Get current count for a key
+     */
+    public int getCurrentCount(long key) {
+        int slot = find(normalize(key));
+        return slot >= 0 ? (int) states.get(slot) : 0;
+    }
+    
+    /**
+     * Reset counter for a key
+     */
+    public void reset(long key) {
+        int slot = find(normalize(key));
+        if (slot >= 0) {
+            states.set(slot, 0L);
+        }
+    }
+    
+    /**
+     * Clear all counters
+     */
+    public void clear() {
+        for (int i = 0; i <= mask; i++) {
+            states.set(i, 0L);
+            keys.set(i, EMPTY);
+        }
+    }
+    
+    /**
+     * Number of keys whose window is still open, for monitoring
+     */
+    public int getActiveKeys(int windowSeconds) {
+        long currentTime = Instant.now().getEpochSecond();
+        int active = 0;
+        for (int i = 0; i <= mask; i++) {
+            if (keys.get(i) != EMPTY && currentTime - (states.get(i) >>> 32) < windowSeconds) {
+                active++;
+            }
+        }
+        return active;
+    }
+    
+    /**
+     * Slot capacity of the table
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+    
+    private int slotFor(long key, long currentTime, int windowSeconds) {
+        int home = home(key);
+        int reclaimable = -1;
+        
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = (home + probe) & mask;
+            long current = keys.get(slot);
+            if (current == key) {
+                return slot;
+            }
+            if (current == EMPTY) {
+                if (keys.compareAndSet(slot, EMPTY, key) || keys.get(slot) == key) {
+                    return slot;
+                }
+                continue;
+            }
+            if (reclaimable < 0 && currentTime - (states.get(slot) >>> 32) >= windowSeconds) {
+                reclaimable = slot;
+            }
+        }
+        
+        // Take over a slot whose window expired; its stale state restarts on first use
+        if (reclaimable >= 0) {
+            long previous = keys.get(reclaimable);
+            if (keys.compareAndSet(reclaimable, previous, key) || keys.get(reclaimable) == key) {
+                return reclaimable;
+            }
+        }
+        
+        // Neighbourhood is full of live keys: share the home slot rather than fail open
+        return home;
+    }
+    
+    private int find(long key) {
+        int home = home(key);
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = (home + probe) & mask;
+            long current = keys.get(slot);
+            if (current == key) {
+                return slot;
+            }
+            if (current == EMPTY) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+    
+    private int home(long key) {
+        // Murmur3 finalizer spreads nearby keys across the table
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+    
+    private static long normalize(long key) {
+        return key == EMPTY ? 1L : key;
+    }
+}
\ No newline at end of file
@@ -5,47 +5,79 @@ import org.springframework.stereotype.Component;
 import java.time.Instant;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * In-memory rate limiter implementation using sliding window algorithm
  * Fixed for high concurrency scenarios
+ * Counters for per-request keys (account numbers, SpEL results) are dropped once their window
+ * has expired, so distinct keys do not accumulate; counters handed out by {@link #counter(String)}
+ * are pinned and kept.
  */
 @Component
 public class MemoryRateLimiter {
     
+    // Idle counters are swept at most once per second, and only when the map has grown past this
+    private static final int SWEEP_THRESHOLD = 1024;
+    private static final long SWEEP_INTERVAL_SECONDS = 1;
+    
     private final ConcurrentHashMap<String, WindowCounter> counters = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong();
     
     /**
      * Check if request is allowed based on rate limit
      * Thread-safe implementation for high concurrency
      */
     public boolean isAllowed(String key, int limit, int windowSeconds) {
-        long currentTime = Instant.now().getEpochSecond();
-        long windowStart = currentTime - windowSeconds;
-        
-        // Get or create lock for this key
-        ReentrantLock lock = locks.computeIfAbsent(key, k -> new ReentrantLock());
-        
-        try {
-            lock.lock();
-            
+        return RateLimitDecision.isAllowed(tryAcquire(key, limit, windowSeconds));
+    }
+    
+    /**
+     * Check if request is allowed against a counter resolved earlier via {@link #counter(String)}.
+     * Lets callers with a fixed key skip the per-request map lookup.
+     */
+    public boolean isAllowed(WindowCounter counter, int limit, int windowSeconds) {
+        return RateLimitDecision.isAllowed(tryAcquire(counter, limit, windowSeconds));
+    }
+    
+    /**
+     * Acquire a permit and return the packed {@link RateLimitDecision} with remaining requests and reset time
+     */
+    public long tryAcquire(String key, int limit, int windowSeconds) {
+        long now = Instant.now().getEpochSecond();
+        while (true) {
             WindowCounter counter = counters.get(key);
-            
-            // If no counter exists or window has expired, create new counter
-            if (counter == null || counter.windowStart < windowStart) {
-                counter = new WindowCounter(windowStart, new AtomicInteger(1));
-                counters.put(key, counter);
-                return true;
+            if (counter == null) {
+                sweepIfDue(now);
+                counter = counters.computeIfAbsent(key, k -> new WindowCounter());
+            }
+            long decision = counter.tryAcquire(limit, windowSeconds, now);
+            if (decision != WindowCounter.EVICTED) {
+                return decision;
+            }
+            // Swept between the lookup and the acquire; a fresh counter replaces it
+            counters.remove(key, counter);
+        }
+    }
+    
+    /**
+     * Acquire a permit against a pre-resolved counter and return the packed {@link RateLimitDecision}
+     */
+    public long tryAcquire(WindowCounter counter, int limit, int windowSeconds) {
+        return counter.tryAcquire(limit, windowSeconds, Instant.now().getEpochSecond());
+    }
+    
+    /**
+     * Get or create the counter for a key and pin it.
+     * Pinned counters are never swept or replaced, so the returned handle stays valid across resets.
+     */
+    public WindowCounter counter(String key) {
+        while (true) {
+            WindowCounter counter = counters.computeIfAbsent(key, k -> new WindowCounter());
+            if (counter.pin()) {
+                return counter;
             }
-            
-            // Check if limit is exceeded
-            int currentCount = counter.count.incrementAndGet();
-            return currentCount <= limit;
-            
-        } finally {
-            lock.unlock();
         }
     }
     
@@ -61,16 +93,44 @@ public class MemoryRateLimiter {
      * Reset counter for a key
      */
     public void reset(String key) {
-        counters.remove(key);
-        locks.remove(key);
+        WindowCounter counter = counters.get(key);
+        if (counter != null) {
+            counter.reset();
+            if (counter.tryEvict(Long.MAX_VALUE)) {
+                counters.remove(key, counter);
+            }
+        }
     }
     
     /**
-     * Clear all counters
+     * Clear all counters; pinned counters are reset, all others removed
      */
     public void clear() {
-        counters.clear();
-        locks.clear();
+        counters.forEach((key, counter) -> {
+            counter.reset();
+            if (counter.tryEvict(Long.MAX_VALUE)) {
+                counters.remove(key, counter);
+            }
+        });
+    }
+    
+    /**
+     * Remove unpinned counters whose window has expired
+     */
+    void sweep(long now) {
+        counters.forEach((key, counter) -> {
+            if (counter.tryEvict(now)) {
+                counters.remove(key, counter);
+            }
+        });
+    }
+    
+    private void sweepIfDue(long now) {
+        long last = lastSweep.get();
+        if (counters.size() >= SWEEP_THRESHOLD && now - last >= SWEEP_INTERVAL_SECONDS
+                && lastSweep.compareAndSet(last, now)) {
+            sweep(now);
+        }
     }
     
     /**
@@ -84,12 +144,80 @@ public class MemoryRateLimiter {
      * Inner class to hold window counter information
      */
     public static class WindowCounter {
-        final long windowStart;
-        final AtomicInteger count;
+        // Returned by tryAcquire once the counter was swept; never a valid packed decision
+        static final long EVICTED = -1L;
         
-        WindowCounter(long windowStart, AtomicInteger count) {
-            this.windowStart = windowStart;
-            this.count = count;
+        private final ReentrantLock lock = new ReentrantLock();
+        volatile long windowStart;
+        final AtomicInteger count = new AtomicInteger(0);
+        private int windowSeconds;
+        private boolean pinned;
+        private boolean evicted;
+        
+        long tryAcquire(int limit, int windowSeconds, long currentTime) {
+            lock.lock();
+            try {
+                if (evicted) {
+                    return EVICTED;
+                }
+                this.windowSeconds = windowSeconds;
+                // Start a new window when none is active or the current one has expired
+                if (currentTime - windowStart >= windowSeconds) {
+                    windowStart = currentTime;
+                    count.set(1);
+                    return RateLimitDecision.allowed(limit - 1, windowSeconds);
+                }
+                
+                // Check if limit is exceeded
+                long resetSeconds = windowStart + windowSeconds - currentTime;
+                int current = count.incrementAndGet();
+                return current <= limit
+                        ? RateLimitDecision.allowed(limit - current, resetSeconds)
+                        : RateLimitDecision.rejected(resetSeconds);
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        /**
+         * Pin the counter unless it was already swept
+         */
+        boolean pin() {
+            lock.lock();
+            try {
+                pinned = !evicted;
+                return pinned;
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        /**
+         * Mark the counter evicted if it is unpinned and its window expired by the given time.
+         * Never waits: a counter in use is simply kept until the next sweep.
+         */
+        boolean tryEvict(long currentTime) {
+            if (!lock.tryLock()) {
+                return false;
+            }
+            try {
+                if (!pinned && !evicted && currentTime - windowStart >= windowSeconds) {
+                    evicted = true;
+                }
+                return evicted;
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        void reset() {
+            lock.lock();
+            try {
+                windowStart = 0;
+                count.set(0);
+            } finally {
+                lock.unlock();
+            }
         }
         
         public long getWindowStart() {
@@ -100,4 +228,4 @@ public class MemoryRateLimiter {
             return count.get();
         }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.lsh.transaction.limiter;
+
+/**
+ * Rate limit decision packed into a primitive long so limiter checks stay allocation-free.
+ * Bit 63: allowed flag, bits 32-62: seconds until the window resets, bits 0-31: remaining requests.
+ */
+public final class RateLimitDecision {
+    
+    private static final long ALLOWED_BIT = 1L << 63;
+    private static final long RESET_MASK = 0x7fffffffL;
+    
+    private RateLimitDecision() {
+    }
+    
+    /**
+     * Encode an allowed request
+     */
+    public static long allowed(int remaining, long resetSeconds) {
+        return ALLOWED_BIT | encode(remaining, resetSeconds);
+    }
+    
+    /**
+     * Encode a rejected request; nothing remains until the window resets
+     */
+    public static long rejected(long resetSeconds) {
+        return encode(0, resetSeconds);
+    }
+    
+    public static boolean isAllowed(long decision) {
+        return (decision & ALLOWED_BIT) != 0;
+    }
+    
+    /**
+     * Requests left in the current window
+     */
+    public static int remaining(long decision) {
+        return (int) decision;
+    }
+    
+    /**
+     * Seconds until the current window resets, at least 1 so it can be used as Retry-After
+     */
+    public static long resetSeconds(long decision) {
+        return Math.max(1, (decision >>> 32) & RESET_MASK);
+    }
+    
+    private static long encode(int remaining, long resetSeconds) {
+        long reset = Math.min(Math.max(resetSeconds, 0), RESET_MASK);
+        return (reset << 32) | (Math.max(remaining, 0) & 0xffffffffL);
+    }
+}
\ No newline at end of file
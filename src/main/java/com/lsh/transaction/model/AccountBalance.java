@@ -0,0 +1,73 @@
+package com.lsh.transaction.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Current balance of an account as tracked by the balance ledger.
+ */
+public class AccountBalance {
+    
+    private String accountNumber;
+    private BigDecimal balance;
+    private long transactionCount;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime asOf;
+    
+    // Default constructor
+    public AccountBalance() {}
+    
+    // Constructor with all fields
+    public AccountBalance(String accountNumber, BigDecimal balance, long transactionCount, LocalDateTime asOf) {
+        this.accountNumber = accountNumber;
+        this.balance = balance;
+        this.transactionCount = transactionCount;
+        this.asOf = asOf;
+    }
+    
+    // Getters and Setters
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+    
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+    
+    public BigDecimal getBalance() {
+        return balance;
+    }
+    
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+    
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+    
+    public void setTransactionCount(long transactionCount) {
+        this.transactionCount = transactionCount;
+    }
+    
+    public LocalDateTime getAsOf() {
+        return asOf;
+    }
+    
+    public void setAsOf(LocalDateTime asOf) {
+        this.asOf = asOf;
+    }
+    
+    @Override
+    public String toString() {
+        return "AccountBalance{" +
+                "accountNumber='" + accountNumber + '\'' +
+                ", balance=" + balance +
+                ", transactionCount=" + transactionCount +
+                ", asOf=" + asOf +
+                '}';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,122 @@
+package com.lsh.transaction.model;
+
+import java.util.List;
+
+/**
+ * Result of a batch create request.
+ * Holds one item per submitted request, in request order, so clients can match
+ * rejections back to the rows they sent.
+ */
+public class BatchCreateResult {
+    
+    private int total;
+    private int created;
+    private int rejected;
+    private List<ItemResult> results;
+    
+    // Default constructor
+    public BatchCreateResult() {}
+    
+    // Constructor with all fields
+    public BatchCreateResult(int total, int created, int rejected, List<ItemResult> results) {
+        this.total = total;
+        this.created = created;
+        this.rejected = rejected;
+        this.results = results;
+    }
+    
+    // Getters and Setters
+    public int getTotal() {
+        return total;
+    }
+    
+    public void setTotal(int total) {
+        this.total = total;
+    }
+    
+    public int getCreated() {
+        return created;
+    }
+    
+    public void setCreated(int created) {
+        this.created = created;
+    }
+    
+    public int getRejected() {
+        return rejected;
+    }
+    
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+    
+    public List<ItemResult> getResults() {
+        return results;
+    }
+    
+    public void setResults(List<ItemResult> results) {
+        this.results = results;
+    }
+    
+    /**
+     * Outcome of a single item: the created transaction, or the reason it was rejected
+     */
+    public static class ItemResult {
+        
+        private int index;
+        private String status;
+        private Transaction transaction;
+        private String error;
+        
+        // Default constructor
+        public ItemResult() {}
+        
+        // Constructor with all fields
+        public ItemResult(int index, String status, Transaction transaction, String error) {
+            this.index = index;
+            this.status = status;
+            this.transaction = transaction;
+            this.error = error;
+        }
+        
+        public static ItemResult created(int index, Transaction transaction) {
+            return new ItemResult(index, "CREATED", transaction, null);
+        }
+        
+        public static ItemResult rejected(int index, String error) {
+            return new ItemResult(index, "REJECTED", null, error);
+        }
+        
+        public int getIndex() {
+            return index;
+        }
+        
+        public void setIndex(int index) {
+            this.index = index;
+        }
+        
+        public String getStatus() {
+            return status;
+        }
+        
+        public void setStatus(String status) {
+            this.status = status;
+        }
+        
+        public Transaction getTransaction() {
+            return transaction;
+        }
+        
+        public void setTransaction(Transaction transaction) {
+            this.transaction = transaction;
+        }
+        
+        public String getError() {
+            return error;
+        }
+        
+        public void setError(String error) {
+            this.error = error;
+        }
+    }
+}
\ No newline at end of file
@@ -58,6 +58,18 @@ public class Transaction {
         this.description = description;
     }
     
+    // Copy constructor, for a snapshot that later in-place updates do not change
+    public Transaction(Transaction other) {
+        this.id = other.id;
+        this.accountNumber = other.accountNumber;
+        this.transactionType = other.transactionType;
+        this.amount = other.amount;
+        this.description = other.description;
+        this.timestamp = other.timestamp;
+        this.recipientAccount = other.recipientAccount;
+        this.status = other.status;
+    }
+    
     // Getters and Setters
     public UUID getId() {
         return id;
@@ -0,0 +1,160 @@
+package com.lsh.transaction.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Search criteria for transactions.
+ * Every criterion is optional and all given criteria must match. Amount bounds are
+ * inclusive; the time range is [from, to).
+ */
+public class TransactionFilter {
+    
+    private String accountNumber;
+    private String transactionType;
+    private String status;
+    private String recipientAccount;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    
+    // Default constructor
+    public TransactionFilter() {}
+    
+    public static TransactionFilter byAccount(String accountNumber) {
+        TransactionFilter filter = new TransactionFilter();
+        filter.setAccountNumber(accountNumber);
+        return filter;
+    }
+    
+    public static TransactionFilter byType(String transactionType) {
+        TransactionFilter filter = new TransactionFilter();
+        filter.setTransactionType(transactionType);
+        return filter;
+    }
+    
+    /**
+     * Check whether the transaction satisfies every criterion of this filter
+     */
+    public boolean matches(Transaction transaction) {
+        if (accountNumber != null && !accountNumber.equals(transaction.getAccountNumber())) {
+            return false;
+        }
+        if (transactionType != null && !transactionType.equals(transaction.getTransactionType())) {
+            return false;
+        }
+        if (status != null && !status.equals(transaction.getStatus())) {
+            return false;
+        }
+        if (recipientAccount != null && !recipientAccount.equals(transaction.getRecipientAccount())) {
+            return false;
+        }
+        BigDecimal amount = transaction.getAmount();
+        if (minAmount != null && (amount == null || amount.compareTo(minAmount) < 0)) {
+            return false;
+        }
+        if (maxAmount != null && (amount == null || amount.compareTo(maxAmount) > 0)) {
+            return false;
+        }
+        LocalDateTime timestamp = transaction.getTimestamp();
+        if (from != null && (timestamp == null || timestamp.isBefore(from))) {
+            return false;
+        }
+        if (to != null && (timestamp == null || !timestamp.isBefore(to))) {
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * True when no criterion is set, i.e. the filter matches every transaction
+     */
+    public boolean isEmpty() {
+        return accountNumber == null && transactionType == null && status == null && recipientAccount == null
+                && minAmount == null && maxAmount == null && from == null && to == null;
+    }
+    
+    // Getters and Setters
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+    
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = blankToNull(accountNumber);
+    }
+    
+    public String getTransactionType() {
+        return transactionType;
+    }
+    
+    public void setTransactionType(String transactionType) {
+        this.transactionType = blankToNull(transactionType);
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = blankToNull(status);
+    }
+    
+    public String getRecipientAccount() {
+        return recipientAccount;
+    }
+    
+    public void setRecipientAccount(String recipientAccount) {
+        this.recipientAccount = blankToNull(recipientAccount);
+    }
+    
+    public BigDecimal getMinAmount() {
+        return minAmount;
+    }
+    
+    public void setMinAmount(BigDecimal minAmount) {
+        this.minAmount = minAmount;
+    }
+    
+    public BigDecimal getMaxAmount() {
+        return maxAmount;
+    }
+    
+    public void setMaxAmount(BigDecimal maxAmount) {
+        this.maxAmount = maxAmount;
+    }
+    
+    public LocalDateTime getFrom() {
+        return from;
+    }
+    
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+    
+    public LocalDateTime getTo() {
+        return to;
+    }
+    
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+    
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+    
+    @Override
+    public String toString() {
+        return "TransactionFilter{" +
+                "accountNumber='" + accountNumber + '\'' +
+                ", transactionType='" + transactionType + '\'' +
+                ", status='" + status + '\'' +
+                ", recipientAccount='" + recipientAccount + '\'' +
+                ", minAmount=" + minAmount +
+                ", maxAmount=" + maxAmount +
+                ", from=" + from +
+                ", to=" + to +
+                '}';
+    }
+}
\ No newline at end of file
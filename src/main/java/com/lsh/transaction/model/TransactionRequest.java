@@ -2,6 +2,7 @@ package com.lsh.transaction.model;
 
 import jakarta.validation.constraints.*;
 import java.math.BigDecimal;
+import java.util.Objects;
 
 /**
  * DTO for creating and updating transactions.
@@ -100,6 +101,25 @@ public class TransactionRequest {
                recipientAccount.matches("^[A-Z0-9]{10,20}$");
     }
     
+    // Equality is used to detect an idempotency key being reused with a different request body
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TransactionRequest that = (TransactionRequest) o;
+        return Objects.equals(accountNumber, that.accountNumber) &&
+               Objects.equals(transactionType, that.transactionType) &&
+               (amount == null ? that.amount == null : that.amount != null && amount.compareTo(that.amount) == 0) &&
+               Objects.equals(description, that.description) &&
+               Objects.equals(recipientAccount, that.recipientAccount);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(accountNumber, transactionType,
+                amount != null ? amount.stripTrailingZeros() : null, description, recipientAccount);
+    }
+    
     @Override
     public String toString() {
         return "TransactionRequest{" +
@@ -0,0 +1,276 @@
+package com.lsh.transaction.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Time-ordered log of one account's transaction ids, kept in chunks of at most 256 entries.
+ * Transactions are created with the current time, so adds are almost always appends to the
+ * last chunk; out-of-order adds and removals shift within a single chunk. Newest-first pages
+ * are reverse slices located by walking chunk sizes from the end, with no sorting.
+ * Most accounts hold a handful of transactions, so chunk arrays start small and double as
+ * they fill, and the log is guarded by one StampedLock, which is lighter than a ReentrantReadWriteLock.
+ */
+class AccountLog {
+    
+    private static final int CHUNK_SIZE = 256;
+    private static final int INITIAL_CHUNK_CAPACITY = 4;
+    private static final int BATCH_SIZE = 64;
+    private static final UUID MIN_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+    
+    private final StampedLock lock = new StampedLock();
+    private final List<Chunk> chunks = new ArrayList<>(1);
+    private volatile int size;
+    
+    void add(LocalDateTime timestamp, UUID id) {
+        Entry entry = new Entry(timestamp, id);
+        long stamp = lock.writeLock();
+        try {
+            Chunk last = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+            if (last != null && last.size < CHUNK_SIZE && entry.compareTo(last.last()) > 0) {
+                last.append(entry);
+            } else if (last == null || entry.compareTo(last.last()) > 0) {
+                Chunk chunk = new Chunk(INITIAL_CHUNK_CAPACITY);
+                chunk.append(entry);
+                chunks.add(chunk);
+            } else if (!insert(entry)) {
+                return;
+            }
+            size++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    void remove(LocalDateTime timestamp, UUID id) {
+        Entry entry = new Entry(timestamp, id);
+        long stamp = lock.writeLock();
+        try {
+            int chunkIndex = chunkFor(entry);
+            if (chunkIndex == chunks.size()) {
+                return;
+            }
+            Chunk chunk = chunks.get(chunkIndex);
+            int position = chunk.search(entry);
+            if (position < 0) {
+                return;
+            }
+            System.arraycopy(chunk.entries, position + 1, chunk.entries, position, chunk.size - position - 1);
+            chunk.entries[--chunk.size] = null;
+            if (chunk.size == 0) {
+                chunks.remove(chunkIndex);
+            }
+            size--;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    boolean isEmpty() {
+        return size() == 0;
+    }
+    
+    /**
+     * Ids of the page, newest first: skip offset entries from the newest end and take up to limit
+     */
+    List<UUID> page(long offset, int limit) {
+        long stamp = lock.readLock();
+        try {
+            List<UUID> page = new ArrayList<>(Math.min(limit, size));
+            long skip = offset;
+            for (int c = chunks.size() - 1; c >= 0 && page.size() < limit; c--) {
+                Chunk chunk = chunks.get(c);
+                if (skip >= chunk.size) {
+                    skip -= chunk.size;
+                    continue;
+                }
+                for (int i = chunk.size - 1 - (int) skip; i >= 0 && page.size() < limit; i--) {
+                    page.add(chunk.entries[i].id);
+                }
+                skip = 0;
+            }
+            return page;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Ids with a timestamp in [from, to), newest first; null bounds are open.
+     * The stream is read in small batches, each resuming below the last entry returned, so it
+     * stays valid while the log is modified.
+     */
+    Stream<UUID> newestFirst(LocalDateTime from, LocalDateTime to) {
+        Iterator<UUID> iterator = new Iterator<>() {
+            private Entry cursor = to != null ? new Entry(to, MIN_ID) : null;
+            private List<Entry> batch = List.of();
+            private int next;
+            private boolean exhausted;
+            
+            @Override
+            public boolean hasNext() {
+                if (next < batch.size()) {
+                    return true;
+                }
+                if (exhausted) {
+                    return false;
+                }
+                batch = olderThan(cursor, from);
+                next = 0;
+                exhausted = batch.size() < BATCH_SIZE;
+                if (!batch.isEmpty()) {
+                    cursor = batch.get(batch.size() - 1);
+                }
+                return !batch.isEmpty();
+            }
+            
+            @Override
+            public UUID next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return batch.get(next++).id;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+    }
+    
+    /**
+     * Up to one batch of entries strictly older than the cursor (or the newest, without one) and not before from
+     */
+    private List<Entry> olderThan(Entry cursor, LocalDateTime from) {
+        long stamp = lock.readLock();
+        try {
+            List<Entry> batch = new ArrayList<>(BATCH_SIZE);
+            int c;
+            int i;
+            if (cursor == null) {
+                c = chunks.size() - 1;
+                i = c >= 0 ? chunks.get(c).size - 1 : -1;
+            } else {
+                c = Math.min(chunkFor(cursor), chunks.size() - 1);
+                if (c < 0) {
+                    return batch;
+                }
+                int position = chunks.get(c).search(cursor);
+                i = (position >= 0 ? position : -position - 1) - 1;
+            }
+            while (c >= 0 && batch.size() < BATCH_SIZE) {
+                Chunk chunk = chunks.get(c);
+                for (; i >= 0 && batch.size() < BATCH_SIZE; i--) {
+                    Entry entry = chunk.entries[i];
+                    if (from != null && entry.timestamp.isBefore(from)) {
+                        return batch;
+                    }
+                    batch.add(entry);
+                }
+                if (--c >= 0) {
+                    i = chunks.get(c).size - 1;
+                }
+            }
+            return batch;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    private boolean insert(Entry entry) {
+        int chunkIndex = Math.min(chunkFor(entry), chunks.size() - 1);
+        Chunk chunk = chunks.get(chunkIndex);
+        if (chunk.size == CHUNK_SIZE) {
+            // Split a full chunk in half so later out-of-order adds near it stay cheap
+            int half = CHUNK_SIZE / 2;
+            Chunk upper = new Chunk(CHUNK_SIZE);
+            System.arraycopy(chunk.entries, half, upper.entries, 0, CHUNK_SIZE - half);
+            Arrays.fill(chunk.entries, half, CHUNK_SIZE, null);
+            upper.size = CHUNK_SIZE - half;
+            chunk.size = half;
+            chunks.add(chunkIndex + 1, upper);
+            if (entry.compareTo(chunk.last()) > 0) {
+                chunk = upper;
+            }
+        }
+        int position = -chunk.search(entry) - 1;
+        if (position < 0) {
+            return false;
+        }
+        chunk.ensureCapacity(chunk.size + 1);
+        System.arraycopy(chunk.entries, position, chunk.entries, position + 1, chunk.size - position);
+        chunk.entries[position] = entry;
+        chunk.size++;
+        return true;
+    }
+    
+    /**
+     * Index of the first chunk whose last entry is not below the entry, or the chunk count
+     */
+    private int chunkFor(Entry entry) {
+        int low = 0;
+        int high = chunks.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (chunks.get(mid).last().compareTo(entry) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+    
+    private static final class Chunk {
+        private Entry[] entries;
+        private int size;
+        
+        Chunk(int capacity) {
+            entries = new Entry[capacity];
+        }
+        
+        void append(Entry entry) {
+            ensureCapacity(size + 1);
+            entries[size++] = entry;
+        }
+        
+        /**
+         * Grow the array geometrically, never beyond CHUNK_SIZE
+         */
+        void ensureCapacity(int capacity) {
+            if (capacity > entries.length) {
+                entries = Arrays.copyOf(entries, Math.min(CHUNK_SIZE, Math.max(capacity, entries.length * 2)));
+            }
+        }
+        
+        Entry last() {
+            return entries[size - 1];
+        }
+        
+        int search(Entry entry) {
+            return Arrays.binarySearch(entries, 0, size, entry);
+        }
+    }
+    
+    /**
+     * Entry of the log, ordered by timestamp then id
+     */
+    private record Entry(LocalDateTime timestamp, UUID id) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int result = timestamp.compareTo(other.timestamp);
+            return result != 0 ? result : id.compareTo(other.id);
+        }
+    }
+}
\ No newline at end of file
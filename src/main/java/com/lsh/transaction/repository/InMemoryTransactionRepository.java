@@ -1,30 +1,77 @@
 package com.lsh.transaction.repository;
 
 import com.lsh.transaction.model.Transaction;
-import org.springframework.stereotype.Repository;
+import com.lsh.transaction.model.TransactionFilter;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * In-memory implementation of TransactionRepository.
  * This class provides thread-safe transaction storage using ConcurrentHashMap.
+ * Secondary indexes (hash postings for account, type, status and recipient, sorted postings
+ * for amount, a time-partitioned timestamp index and a time-ordered log per account) are
+ * maintained on every write, and filtered queries are planned over them so they never scan
+ * the whole map.
+ * Used on its own or as one shard of {@link ShardedTransactionRepository}.
  */
-@Repository
 public class InMemoryTransactionRepository implements TransactionRepository {
     
+    private static final UUID MIN_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+    private static final UUID MAX_ID = new UUID(Long.MAX_VALUE, Long.MAX_VALUE);
+    
+    /**
+     * Newest first, ties broken by id; matches the order the time index yields ids in
+     */
+    static final Comparator<Transaction> NEWEST_FIRST =
+            Comparator.comparing(InMemoryTransactionRepository::timeKey).thenComparing(Transaction::getId).reversed();
+    
     private final Map<UUID, Transaction> transactions = new ConcurrentHashMap<>();
     
+    // Index keys each transaction was indexed under; transactions are mutable, so the old keys
+    // cannot be read back from the object when it is updated in place
+    private final Map<UUID, IndexKeys> indexed = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AccountLog> accountLogs = new ConcurrentHashMap<>();
+    private final HashIndex typeIndex = new HashIndex();
+    private final HashIndex statusIndex = new HashIndex();
+    private final HashIndex recipientIndex = new HashIndex();
+    private final NavigableSet<Posting<BigDecimal>> amountIndex = new ConcurrentSkipListSet<>();
+    private final TimePartitionedIndex timeIndex;
+    
+    public InMemoryTransactionRepository() {
+        this(60);
+    }
+    
+    public InMemoryTransactionRepository(long partitionMinutes) {
+        this.timeIndex = new TimePartitionedIndex(Duration.ofMinutes(partitionMinutes));
+    }
+    
     @Override
     public Transaction save(Transaction transaction) {
         if (transaction.getId() == null) {
             transaction.setId(UUID.randomUUID());
         }
-        transactions.put(transaction.getId(), transaction);
+        store(transaction);
         return transaction;
     }
     
+    @Override
+    public List<Transaction> saveAll(List<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            if (transaction.getId() == null) {
+                transaction.setId(UUID.randomUUID());
+            }
+            store(transaction);
+        }
+        return transactions;
+    }
+    
     @Override
     public Optional<Transaction> findById(UUID id) {
         return Optional.ofNullable(transactions.get(id));
@@ -32,45 +79,130 @@ public class InMemoryTransactionRepository implements TransactionRepository {
     
     @Override
     public List<Transaction> findAll(int page, int size) {
-        return transactions.values().stream()
-                .sorted(Comparator.comparing(Transaction::getTimestamp).reversed())
-                .skip((long) page * size)
-                .limit(size)
-                .collect(Collectors.toList());
+        return search(new TransactionFilter(), page, size);
     }
     
     @Override
     public List<Transaction> findByAccountNumber(String accountNumber, int page, int size) {
-        return transactions.values().stream()
-                .filter(t -> accountNumber.equals(t.getAccountNumber()))
-                .sorted(Comparator.comparing(Transaction::getTimestamp).reversed())
-                .skip((long) page * size)
-                .limit(size)
-                .collect(Collectors.toList());
+        AccountLog log = accountLogs.get(accountNumber);
+        if (log == null) {
+            return new ArrayList<>();
+        }
+        // Reverse slice of the account's log: already newest first, no filtering or sorting
+        List<Transaction> result = new ArrayList<>(size);
+        for (UUID id : log.page((long) page * size, size)) {
+            Transaction transaction = transactions.get(id);
+            if (transaction != null) {
+                result.add(transaction);
+            }
+        }
+        return result;
     }
     
     @Override
     public List<Transaction> findByTransactionType(String transactionType, int page, int size) {
-        return transactions.values().stream()
-                .filter(t -> transactionType.equals(t.getTransactionType()))
-                .sorted(Comparator.comparing(Transaction::getTimestamp).reversed())
-                .skip((long) page * size)
-                .limit(size)
+        return search(TransactionFilter.byType(transactionType), page, size);
+    }
+    
+    @Override
+    public List<Transaction> findByTimestampBetween(LocalDateTime from, LocalDateTime to, int page, int size) {
+        return search(timeRange(null, from, to), page, size);
+    }
+    
+    @Override
+    public List<Transaction> findByAccountNumberAndTimestampBetween(String accountNumber, LocalDateTime from,
+                                                                    LocalDateTime to, int page, int size) {
+        return search(timeRange(accountNumber, from, to), page, size);
+    }
+    
+    @Override
+    public long countByTimestampBetween(LocalDateTime from, LocalDateTime to) {
+        return count(timeRange(null, from, to));
+    }
+    
+    @Override
+    public List<Transaction> search(TransactionFilter filter, int page, int size) {
+        Plan plan = plan(filter);
+        long offset = (long) page * size;
+        if (plan.newestFirst) {
+            // Driver already yields rows in result order: stop as soon as the page is filled
+            return plan.matches(filter).skip(offset).limit(size).collect(Collectors.toList());
+        }
+        
+        // Keep only the newest offset + size matches instead of sorting every match
+        long wanted = offset + size;
+        PriorityQueue<Transaction> newest = new PriorityQueue<>(NEWEST_FIRST.reversed());
+        plan.matches(filter).forEach(transaction -> {
+            newest.offer(transaction);
+            if (newest.size() > wanted) {
+                newest.poll();
+            }
+        });
+        return newest.stream()
+                .sorted(NEWEST_FIRST)
+                .skip(offset)
                 .collect(Collectors.toList());
     }
     
+    @Override
+    public long count(TransactionFilter filter) {
+        if (filter.isEmpty()) {
+            return transactions.size();
+        }
+        return plan(filter).matches(filter).count();
+    }
+    
+    @Override
+    public Stream<Transaction> stream(TransactionFilter filter) {
+        if (filter.isEmpty()) {
+            return transactions.values().stream();
+        }
+        return plan(filter).matches(filter);
+    }
+    
     @Override
     public Transaction update(Transaction transaction) {
-        if (!transactions.containsKey(transaction.getId())) {
+        if (transactions.computeIfPresent(transaction.getId(), (id, existing) -> {
+            reindex(id, transaction);
+            return transaction;
+        }) == null) {
             throw new IllegalArgumentException("Transaction with ID " + transaction.getId() + " does not exist");
         }
-        transactions.put(transaction.getId(), transaction);
         return transaction;
     }
     
     @Override
     public boolean deleteById(UUID id) {
-        return transactions.remove(id) != null;
+        Transaction[] removed = new Transaction[1];
+        transactions.computeIfPresent(id, (key, existing) -> {
+            unindex(key, indexed.remove(key));
+            removed[0] = existing;
+            return null;
+        });
+        return removed[0] != null;
+    }
+    
+    @Override
+    public int evict(List<Transaction> evicted) {
+        int removed = 0;
+        Set<LocalDateTime> partitions = new HashSet<>();
+        for (Transaction snapshot : evicted) {
+            IndexKeys[] keys = new IndexKeys[1];
+            transactions.computeIfPresent(snapshot.getId(), (key, existing) -> {
+                if (!unchanged(existing, snapshot)) {
+                    return existing;
+                }
+                keys[0] = indexed.remove(key);
+                unindex(key, keys[0]);
+                return null;
+            });
+            if (keys[0] != null) {
+                partitions.add(keys[0].timestamp());
+                removed++;
+            }
+        }
+        partitions.forEach(timeIndex::dropIfEmpty);
+        return removed;
     }
     
     @Override
@@ -80,16 +212,13 @@ public class InMemoryTransactionRepository implements TransactionRepository {
     
     @Override
     public long countByAccountNumber(String accountNumber) {
-        return transactions.values().stream()
-                .filter(t -> accountNumber.equals(t.getAccountNumber()))
-                .count();
+        AccountLog log = accountLogs.get(accountNumber);
+        return log != null ? log.size() : 0;
     }
     
     @Override
     public long countByTransactionType(String transactionType) {
-        return transactions.values().stream()
-                .filter(t -> transactionType.equals(t.getTransactionType()))
-                .count();
+        return typeIndex.get(transactionType).size();
     }
     
     @Override
@@ -102,6 +231,13 @@ public class InMemoryTransactionRepository implements TransactionRepository {
      */
     public void clear() {
         transactions.clear();
+        indexed.clear();
+        accountLogs.clear();
+        typeIndex.clear();
+        statusIndex.clear();
+        recipientIndex.clear();
+        amountIndex.clear();
+        timeIndex.clear();
     }
     
     /**
@@ -110,4 +246,268 @@ public class InMemoryTransactionRepository implements TransactionRepository {
     public List<Transaction> getAllTransactions() {
         return new ArrayList<>(transactions.values());
     }
-} 
\ No newline at end of file
+    
+    @Override
+    public Map<LocalDateTime, Integer> getTimePartitions() {
+        return timeIndex.partitionSizes();
+    }
+    
+    @Override
+    public Stream<Transaction> streamAll() {
+        return transactions.values().stream();
+    }
+    
+    private static TransactionFilter timeRange(String accountNumber, LocalDateTime from, LocalDateTime to) {
+        TransactionFilter filter = TransactionFilter.byAccount(accountNumber);
+        filter.setFrom(from);
+        filter.setTo(to);
+        return filter;
+    }
+    
+    // Indexing
+    
+    /**
+     * Insert or replace a transaction; the per-key lock of the map serializes index updates per id
+     */
+    private void store(Transaction transaction) {
+        transactions.compute(transaction.getId(), (id, existing) -> {
+            reindex(id, transaction);
+            return transaction;
+        });
+    }
+    
+    private void reindex(UUID id, Transaction transaction) {
+        IndexKeys keys = IndexKeys.of(transaction);
+        IndexKeys previous = indexed.put(id, keys);
+        if (keys.equals(previous)) {
+            return;
+        }
+        unindex(id, previous);
+        if (keys.accountNumber != null) {
+            accountLogs.compute(keys.accountNumber, (account, log) -> {
+                AccountLog accountLog = log != null ? log : new AccountLog();
+                accountLog.add(keys.timestamp, id);
+                return accountLog;
+            });
+        }
+        typeIndex.add(keys.transactionType, id);
+        statusIndex.add(keys.status, id);
+        recipientIndex.add(keys.recipientAccount, id);
+        if (keys.amount != null) {
+            amountIndex.add(new Posting<>(keys.amount, id));
+        }
+        timeIndex.add(keys.timestamp, id);
+    }
+    
+    private void unindex(UUID id, IndexKeys keys) {
+        if (keys == null) {
+            return;
+        }
+        if (keys.accountNumber != null) {
+            // Like the hash postings, the log is dropped once empty under the key's lock
+            accountLogs.computeIfPresent(keys.accountNumber, (account, log) -> {
+                log.remove(keys.timestamp, id);
+                return log.isEmpty() ? null : log;
+            });
+        }
+        typeIndex.remove(keys.transactionType, id);
+        statusIndex.remove(keys.status, id);
+        recipientIndex.remove(keys.recipientAccount, id);
+        if (keys.amount != null) {
+            amountIndex.remove(new Posting<>(keys.amount, id));
+        }
+        timeIndex.remove(keys.timestamp, id);
+    }
+    
+    private static LocalDateTime timeKey(Transaction transaction) {
+        return transaction.getTimestamp() != null ? transaction.getTimestamp() : LocalDateTime.MIN;
+    }
+    
+    // Query planning
+    
+    /**
+     * Pick the most selective index to drive the query and probe the other hash postings per id.
+     * Hash postings and account logs know their size; range postings are only counted up to the
+     * best size found so far, so an unselective range never costs more than the index it loses to.
+     * The account is never probed per id: the final filter check on the stored row covers it.
+     */
+    private Plan plan(TransactionFilter filter) {
+        List<Set<UUID>> postings = new ArrayList<>(3);
+        AccountLog accountLog = null;
+        if (filter.getAccountNumber() != null) {
+            accountLog = accountLogs.get(filter.getAccountNumber());
+            if (accountLog == null) {
+                return new Plan(Stream.empty(), List.of(), true);
+            }
+        }
+        if (!addPosting(postings, typeIndex, filter.getTransactionType())
+                || !addPosting(postings, statusIndex, filter.getStatus())
+                || !addPosting(postings, recipientIndex, filter.getRecipientAccount())) {
+            return new Plan(Stream.empty(), List.of(), true);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        NavigableSet<Posting<BigDecimal>> amounts = amountRange(filter);
+        LocalDateTime from = filter.getFrom();
+        LocalDateTime to = filter.getTo();
+        if (postings.isEmpty() && accountLog == null && amounts == null) {
+            // The time index also yields rows newest first, which lets paging stop early
+            return new Plan(timeIndex.newestFirst(from, to), postings, true);
+        }
+        
+        long postingSize = postings.isEmpty() ? Long.MAX_VALUE : postings.get(0).size();
+        long accountSize = accountLog != null ? accountLog.size() : Long.MAX_VALUE;
+        long best = Math.min(postingSize, accountSize);
+        long amountSize = amounts != null ? countUpTo(amounts, best) : Long.MAX_VALUE;
+        boolean amountDrives = amountSize < best;
+        best = Math.min(best, amountSize);
+        if ((from != null || to != null) && timeIndex.countUpTo(from, to, best) < best) {
+            return new Plan(timeIndex.newestFirst(from, to), postings, true);
+        }
+        if (amountDrives) {
+            return new Plan(amounts.stream().map(Posting::id), postings, false);
+        }
+        if (accountLog != null && accountSize <= postingSize) {
+            // The account's log yields ids newest first and already honours the time bounds
+            return new Plan(accountLog.newestFirst(from, to), postings, true);
+        }
+        return new Plan(postings.get(0).stream(), postings.subList(1, postings.size()), false);
+    }
+    
+    private static boolean addPosting(List<Set<UUID>> postings, HashIndex index, String key) {
+        if (key == null) {
+            return true;
+        }
+        Set<UUID> ids = index.get(key);
+        postings.add(ids);
+        return !ids.isEmpty();
+    }
+    
+    private NavigableSet<Posting<BigDecimal>> amountRange(TransactionFilter filter) {
+        BigDecimal min = filter.getMinAmount();
+        BigDecimal max = filter.getMaxAmount();
+        if (min == null && max == null) {
+            return null;
+        }
+        if (min == null) {
+            return amountIndex.headSet(new Posting<>(max, MAX_ID), true);
+        }
+        if (max == null) {
+            return amountIndex.tailSet(new Posting<>(min, MIN_ID), true);
+        }
+        if (min.compareTo(max) > 0) {
+            return Collections.emptyNavigableSet();
+        }
+        return amountIndex.subSet(new Posting<>(min, MIN_ID), true, new Posting<>(max, MAX_ID), true);
+    }
+    
+    /**
+     * Size of the set, counting no further than the limit
+     */
+    private static long countUpTo(Set<?> set, long limit) {
+        long count = 0;
+        Iterator<?> iterator = set.iterator();
+        while (count < limit && iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        return iterator.hasNext() ? Long.MAX_VALUE : count;
+    }
+    
+    /**
+     * Chosen access path: ids from the driving index, hash postings to intersect with, and
+     * whether the driver already yields ids newest first
+     */
+    private final class Plan {
+        private final Stream<UUID> driver;
+        private final List<Set<UUID>> probes;
+        private final boolean newestFirst;
+        
+        Plan(Stream<UUID> driver, List<Set<UUID>> probes, boolean newestFirst) {
+            this.driver = driver;
+            this.probes = probes;
+            this.newestFirst = newestFirst;
+        }
+        
+        Stream<Transaction> matches(TransactionFilter filter) {
+            Stream<UUID> ids = driver;
+            for (Set<UUID> probe : probes) {
+                ids = ids.filter(probe::contains);
+            }
+            // Re-check the full filter against the stored object, which may have changed since it was indexed
+            return ids.map(transactions::get)
+                    .filter(Objects::nonNull)
+                    .filter(filter::matches);
+        }
+    }
+    
+    /**
+     * Hash index from a key to the ids of the transactions holding it
+     */
+    private static final class HashIndex {
+        private final ConcurrentHashMap<String, Set<UUID>> postings = new ConcurrentHashMap<>();
+        
+        void add(String key, UUID id) {
+            if (key != null) {
+                postings.compute(key, (k, ids) -> {
+                    Set<UUID> set = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                    set.add(id);
+                    return set;
+                });
+            }
+        }
+        
+        void remove(String key, UUID id) {
+            if (key != null) {
+                // Drop the posting list once empty; compute holds the key's lock, so a concurrent add cannot be lost
+                postings.computeIfPresent(key, (k, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+        
+        Set<UUID> get(String key) {
+            return postings.getOrDefault(key, Collections.emptySet());
+        }
+        
+        void clear() {
+            postings.clear();
+        }
+    }
+    
+    /**
+     * Entry of a sorted index, ordered by key then id so equal keys can coexist
+     */
+    private record Posting<K extends Comparable<? super K>>(K key, UUID id) implements Comparable<Posting<K>> {
+        @Override
+        public int compareTo(Posting<K> other) {
+            int result = key.compareTo(other.key);
+            return result != 0 ? result : id.compareTo(other.id);
+        }
+    }
+    
+    /**
+     * Whether a stored transaction still has every field of an earlier snapshot of it
+     */
+    private static boolean unchanged(Transaction stored, Transaction snapshot) {
+        return Objects.equals(stored.getAccountNumber(), snapshot.getAccountNumber())
+                && Objects.equals(stored.getTransactionType(), snapshot.getTransactionType())
+                && Objects.equals(stored.getAmount(), snapshot.getAmount())
+                && Objects.equals(stored.getDescription(), snapshot.getDescription())
+                && Objects.equals(stored.getTimestamp(), snapshot.getTimestamp())
+                && Objects.equals(stored.getRecipientAccount(), snapshot.getRecipientAccount())
+                && Objects.equals(stored.getStatus(), snapshot.getStatus());
+    }
+    
+    /**
+     * Snapshot of the indexed fields of a transaction
+     */
+    private record IndexKeys(String accountNumber, String transactionType, String status, String recipientAccount,
+                             BigDecimal amount, LocalDateTime timestamp) {
+        static IndexKeys of(Transaction transaction) {
+            return new IndexKeys(transaction.getAccountNumber(), transaction.getTransactionType(),
+                    transaction.getStatus(), transaction.getRecipientAccount(), transaction.getAmount(),
+                    timeKey(transaction));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,337 @@
+package com.lsh.transaction.repository;
+
+import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.model.TransactionFilter;
+import com.lsh.transaction.exception.TransactionException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Transaction repository split into independent shards routed by account number hash.
+ * Each shard is a full {@link InMemoryTransactionRepository} with its own maps and indexes,
+ * so writes to different accounts never contend on the same structures. Queries for one
+ * account go to its shard; cross-shard queries merge the shards' newest-first pages, which
+ * costs offset + size rows per shard, so their offset is capped. Lookups by id go through an
+ * id to shard routing table instead of probing every shard.
+ * Default repository, used unless app.repository.mode is single-writer.
+ */
+@Repository
+@ConditionalOnProperty(name = "app.repository.mode", havingValue = "concurrent", matchIfMissing = true)
+@Qualifier(TieredTransactionRepository.HOT)
+@Slf4j
+public class ShardedTransactionRepository implements TransactionRepository {
+    
+    private static final long DEFAULT_MAX_MERGE_OFFSET = 10_000;
+    
+    private final InMemoryTransactionRepository[] shards;
+    // Shard holding each id; written after the shard write, so a routed shard always has the id
+    private final ConcurrentHashMap<UUID, InMemoryTransactionRepository> routes = new ConcurrentHashMap<>();
+    private final long maxMergeOffset;
+    
+    public ShardedTransactionRepository(int shardCount, long partitionMinutes) {
+        this(shardCount, partitionMinutes, DEFAULT_MAX_MERGE_OFFSET);
+    }
+    
+    @Autowired
+    public ShardedTransactionRepository(@Value("${app.repository.shards:0}") int shardCount,
+                                        @Value("${app.repository.partition-minutes:60}") long partitionMinutes,
+                                        @Value("${app.repository.max-merge-offset:10000}") long maxMergeOffset) {
+        this.maxMergeOffset = Math.min(maxMergeOffset, Integer.MAX_VALUE / 2);
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new InMemoryTransactionRepository[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new InMemoryTransactionRepository(partitionMinutes);
+        }
+        log.info("ShardedTransactionRepository initialized - Shards: {}, Partition: {}min", count, partitionMinutes);
+    }
+    
+    @Override
+    public Transaction save(Transaction transaction) {
+        InMemoryTransactionRepository shard = shardFor(transaction.getAccountNumber());
+        shard.save(transaction);
+        routes.put(transaction.getId(), shard);
+        return transaction;
+    }
+    
+    @Override
+    public List<Transaction> saveAll(List<Transaction> transactions) {
+        // One bulk write per shard instead of one write per transaction
+        Map<InMemoryTransactionRepository, List<Transaction>> byShard = new IdentityHashMap<>();
+        for (Transaction transaction : transactions) {
+            byShard.computeIfAbsent(shardFor(transaction.getAccountNumber()), shard -> new ArrayList<>())
+                    .add(transaction);
+        }
+        byShard.forEach((shard, batch) -> {
+            shard.saveAll(batch);
+            for (Transaction transaction : batch) {
+                routes.put(transaction.getId(), shard);
+            }
+        });
+        return transactions;
+    }
+    
+    @Override
+    public Optional<Transaction> findById(UUID id) {
+        InMemoryTransactionRepository shard = shardOf(id);
+        return shard != null ? shard.findById(id) : Optional.empty();
+    }
+    
+    @Override
+    public List<Transaction> findAll(int page, int size) {
+        return search(new TransactionFilter(), page, size);
+    }
+    
+    @Override
+    public List<Transaction> findByAccountNumber(String accountNumber, int page, int size) {
+        return shardFor(accountNumber).findByAccountNumber(accountNumber, page, size);
+    }
+    
+    @Override
+    public List<Transaction> findByTransactionType(String transactionType, int page, int size) {
+        return search(TransactionFilter.byType(transactionType), page, size);
+    }
+    
+    @Override
+    public List<Transaction> findByTimestampBetween(LocalDateTime from, LocalDateTime to, int page, int size) {
+        TransactionFilter filter = new TransactionFilter();
+        filter.setFrom(from);
+        filter.setTo(to);
+        return search(filter, page, size);
+    }
+    
+    @Override
+    public List<Transaction> findByAccountNumberAndTimestampBetween(String accountNumber, LocalDateTime from,
+                                                                    LocalDateTime to, int page, int size) {
+        return shardFor(accountNumber).findByAccountNumberAndTimestampBetween(accountNumber, from, to, page, size);
+    }
+    
+    @Override
+    public long countByTimestampBetween(LocalDateTime from, LocalDateTime to) {
+        long total = 0;
+        for (InMemoryTransactionRepository shard : shards) {
+            total += shard.countByTimestampBetween(from, to);
+        }
+        return total;
+    }
+    
+    @Override
+    public List<Transaction> search(TransactionFilter filter, int page, int size) {
+        if (filter.getAccountNumber() != null) {
+            return shardFor(filter.getAccountNumber()).search(filter, page, size);
+        }
+        
+        // Every shard returns its newest offset + size matches; a k-way merge picks the page
+        long offset = (long) page * size;
+        if (offset > maxMergeOffset) {
+            throw new TransactionException("Page offset " + offset + " exceeds " + maxMergeOffset
+                    + " for queries across accounts. Filter by account or narrow the time range",
+                    "PAGE_TOO_DEEP");
+        }
+        int wanted = (int) offset + size;
+        List<Iterator<Transaction>> runs = new ArrayList<>(shards.length);
+        for (InMemoryTransactionRepository shard : shards) {
+            runs.add(shard.search(filter, 0, wanted).iterator());
+        }
+        return merge(runs, (int) offset, size);
+    }
+    
+    @Override
+    public long count(TransactionFilter filter) {
+        if (filter.getAccountNumber() != null) {
+            return shardFor(filter.getAccountNumber()).count(filter);
+        }
+        long total = 0;
+        for (InMemoryTransactionRepository shard : shards) {
+            total += shard.count(filter);
+        }
+        return total;
+    }
+    
+    @Override
+    public Stream<Transaction> stream(TransactionFilter filter) {
+        if (filter.getAccountNumber() != null) {
+            return shardFor(filter.getAccountNumber()).stream(filter);
+        }
+        return Arrays.stream(shards).flatMap(shard -> shard.stream(filter));
+    }
+    
+    @Override
+    public Transaction update(Transaction transaction) {
+        InMemoryTransactionRepository owner = shardOf(transaction.getId());
+        if (owner == null) {
+            throw new IllegalArgumentException("Transaction with ID " + transaction.getId() + " does not exist");
+        }
+        InMemoryTransactionRepository target = shardFor(transaction.getAccountNumber());
+        if (target == owner) {
+            return owner.update(transaction);
+        }
+        // Account changed: insert into the new shard and reroute before removing from the old one,
+        // so the transaction is never missing from lookups by id
+        target.save(transaction);
+        routes.put(transaction.getId(), target);
+        owner.deleteById(transaction.getId());
+        return transaction;
+    }
+    
+    @Override
+    public boolean deleteById(UUID id) {
+        InMemoryTransactionRepository shard = shardOf(id);
+        if (shard == null || !shard.deleteById(id)) {
+            return false;
+        }
+        routes.remove(id, shard);
+        return true;
+    }
+    
+    @Override
+    public int evict(List<Transaction> transactions) {
+        Map<InMemoryTransactionRepository, List<Transaction>> byShard = new IdentityHashMap<>();
+        for (Transaction transaction : transactions) {
+            byShard.computeIfAbsent(shardFor(transaction.getAccountNumber()), shard -> new ArrayList<>())
+                    .add(transaction);
+        }
+        int removed = 0;
+        for (Map.Entry<InMemoryTransactionRepository, List<Transaction>> entry : byShard.entrySet()) {
+            InMemoryTransactionRepository shard = entry.getKey();
+            removed += shard.evict(entry.getValue());
+            for (Transaction transaction : entry.getValue()) {
+                if (!shard.existsById(transaction.getId())) {
+                    routes.remove(transaction.getId(), shard);
+                }
+            }
+        }
+        return removed;
+    }
+    
+    @Override
+    public long count() {
+        long total = 0;
+        for (InMemoryTransactionRepository shard : shards) {
+            total += shard.count();
+        }
+        return total;
+    }
+    
+    @Override
+    public long countByAccountNumber(String accountNumber) {
+        return shardFor(accountNumber).countByAccountNumber(accountNumber);
+    }
+    
+    @Override
+    public long countByTransactionType(String transactionType) {
+        long total = 0;
+        for (InMemoryTransactionRepository shard : shards) {
+            total += shard.countByTransactionType(transactionType);
+        }
+        return total;
+    }
+    
+    @Override
+    public boolean existsById(UUID id) {
+        return shardOf(id) != null;
+    }
+    
+    @Override
+    public List<Transaction> getAllTransactions() {
+        List<Transaction> all = new ArrayList<>();
+        for (InMemoryTransactionRepository shard : shards) {
+            all.addAll(shard.getAllTransactions());
+        }
+        return all;
+    }
+    
+    @Override
+    public Stream<Transaction> streamAll() {
+        return Arrays.stream(shards).flatMap(InMemoryTransactionRepository::streamAll);
+    }
+    
+    /**
+     * Clear all shards (useful for testing).
+     */
+    public void clear() {
+        for (InMemoryTransactionRepository shard : shards) {
+            shard.clear();
+        }
+        routes.clear();
+    }
+    
+    /**
+     * Start time and size of each time partition summed over the shards, oldest first
+     */
+    @Override
+    public Map<LocalDateTime, Integer> getTimePartitions() {
+        Map<LocalDateTime, Integer> partitions = new TreeMap<>();
+        for (InMemoryTransactionRepository shard : shards) {
+            shard.getTimePartitions().forEach((start, size) -> partitions.merge(start, size, Integer::sum));
+        }
+        return partitions;
+    }
+    
+    /**
+     * Number of transactions held by each shard
+     */
+    public List<Long> getShardSizes() {
+        return Arrays.stream(shards).map(InMemoryTransactionRepository::count).collect(Collectors.toList());
+    }
+    
+    public int getShardCount() {
+        return shards.length;
+    }
+    
+    private InMemoryTransactionRepository shardFor(String accountNumber) {
+        if (accountNumber == null) {
+            return shards[0];
+        }
+        int hash = accountNumber.hashCode();
+        return shards[Math.floorMod(hash ^ (hash >>> 16), shards.length)];
+    }
+    
+    /**
+     * Shard currently holding the id; ids carry no account, so they are routed through the table
+     */
+    private InMemoryTransactionRepository shardOf(UUID id) {
+        InMemoryTransactionRepository shard = routes.get(id);
+        return shard != null && shard.existsById(id) ? shard : null;
+    }
+    
+    /**
+     * Merge newest-first runs, skipping the first offset rows and returning at most size rows
+     */
+    private static List<Transaction> merge(List<Iterator<Transaction>> runs, int offset, int size) {
+        PriorityQueue<Head> heads = new PriorityQueue<>(runs.size(),
+                (a, b) -> InMemoryTransactionRepository.NEWEST_FIRST.compare(a.transaction, b.transaction));
+        for (Iterator<Transaction> run : runs) {
+            if (run.hasNext()) {
+                heads.add(new Head(run.next(), run));
+            }
+        }
+        
+        List<Transaction> page = new ArrayList<>(size);
+        int skipped = 0;
+        while (page.size() < size && !heads.isEmpty()) {
+            Head head = heads.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                page.add(head.transaction);
+            }
+            if (head.run.hasNext()) {
+                heads.add(new Head(head.run.next(), head.run));
+            }
+        }
+        return page;
+    }
+    
+    private record Head(Transaction transaction, Iterator<Transaction> run) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,164 @@
+package com.lsh.transaction.repository;
+
+import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.model.TransactionFilter;
+import com.lsh.transaction.writer.SingleWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Transaction repository whose mutations all run on the {@link SingleWriter} thread.
+ * There is one unsharded {@link InMemoryTransactionRepository}; writes are serialized through
+ * the ring buffer in sequence order and reads go straight to its concurrent maps and indexes,
+ * which only the writer thread ever changes.
+ * Active when app.repository.mode is single-writer.
+ */
+@Repository
+@ConditionalOnProperty(name = "app.repository.mode", havingValue = "single-writer")
+@Qualifier(TieredTransactionRepository.HOT)
+@Slf4j
+public class SingleWriterTransactionRepository implements TransactionRepository {
+    
+    private final SingleWriter singleWriter;
+    private final InMemoryTransactionRepository store;
+    
+    public SingleWriterTransactionRepository(SingleWriter singleWriter,
+                                             @Value("${app.repository.partition-minutes:60}") long partitionMinutes) {
+        this.singleWriter = singleWriter;
+        this.store = new InMemoryTransactionRepository(partitionMinutes);
+        log.info("SingleWriterTransactionRepository initialized - Ring size: {}, Partition: {}min",
+                singleWriter.getRingSize(), partitionMinutes);
+    }
+    
+    @Override
+    public Transaction save(Transaction transaction) {
+        return singleWriter.execute(() -> store.save(transaction));
+    }
+    
+    @Override
+    public List<Transaction> saveAll(List<Transaction> transactions) {
+        // One command for the whole batch keeps it contiguous in the write order
+        return singleWriter.execute(() -> store.saveAll(transactions));
+    }
+    
+    @Override
+    public Optional<Transaction> findById(UUID id) {
+        return store.findById(id);
+    }
+    
+    @Override
+    public List<Transaction> findAll(int page, int size) {
+        return store.findAll(page, size);
+    }
+    
+    @Override
+    public List<Transaction> findByAccountNumber(String accountNumber, int page, int size) {
+        return store.findByAccountNumber(accountNumber, page, size);
+    }
+    
+    @Override
+    public List<Transaction> findByTransactionType(String transactionType, int page, int size) {
+        return store.findByTransactionType(transactionType, page, size);
+    }
+    
+    @Override
+    public List<Transaction> findByTimestampBetween(LocalDateTime from, LocalDateTime to, int page, int size) {
+        return store.findByTimestampBetween(from, to, page, size);
+    }
+    
+    @Override
+    public List<Transaction> findByAccountNumberAndTimestampBetween(String accountNumber, LocalDateTime from,
+                                                                    LocalDateTime to, int page, int size) {
+        return store.findByAccountNumberAndTimestampBetween(accountNumber, from, to, page, size);
+    }
+    
+    @Override
+    public long countByTimestampBetween(LocalDateTime from, LocalDateTime to) {
+        return store.countByTimestampBetween(from, to);
+    }
+    
+    @Override
+    public List<Transaction> search(TransactionFilter filter, int page, int size) {
+        return store.search(filter, page, size);
+    }
+    
+    @Override
+    public long count(TransactionFilter filter) {
+        return store.count(filter);
+    }
+    
+    @Override
+    public Stream<Transaction> stream(TransactionFilter filter) {
+        return store.stream(filter);
+    }
+    
+    @Override
+    public Transaction update(Transaction transaction) {
+        return singleWriter.execute(() -> store.update(transaction));
+    }
+    
+    @Override
+    public boolean deleteById(UUID id) {
+        return singleWriter.execute(() -> store.deleteById(id));
+    }
+    
+    @Override
+    public int evict(List<Transaction> transactions) {
+        return singleWriter.execute(() -> store.evict(transactions));
+    }
+    
+    @Override
+    public long count() {
+        return store.count();
+    }
+    
+    @Override
+    public long countByAccountNumber(String accountNumber) {
+        return store.countByAccountNumber(accountNumber);
+    }
+    
+    @Override
+    public long countByTransactionType(String transactionType) {
+        return store.countByTransactionType(transactionType);
+    }
+    
+    @Override
+    public boolean existsById(UUID id) {
+        return store.existsById(id);
+    }
+    
+    @Override
+    public List<Transaction> getAllTransactions() {
+        return store.getAllTransactions();
+    }
+    
+    @Override
+    public Stream<Transaction> streamAll() {
+        return store.streamAll();
+    }
+    
+    /**
+     * Clear all transactions (useful for testing)
+     */
+    public void clear() {
+        singleWriter.execute(() -> {
+            store.clear();
+            return null;
+        });
+    }
+    
+    @Override
+    public Map<LocalDateTime, Integer> getTimePartitions() {
+        return store.getTimePartitions();
+    }
+}
\ No newline at end of file
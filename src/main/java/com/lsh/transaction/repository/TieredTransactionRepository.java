@@ -0,0 +1,205 @@
+package com.lsh.transaction.repository;
+
+import com.lsh.transaction.archive.ArchiveStore;
+import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.model.TransactionFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * The repository the services use: the in-memory hot repository in front of the cold,
+ * memory-mapped segments of the {@link ArchiveStore}.
+ * Writes go to the hot repository only; archived transactions are read-only. Reads fall through
+ * to the archive, and pages continue from the hot matches into the archived ones, since
+ * retention only archives transactions older than everything kept in memory (apart from ones
+ * that were still pending).
+ */
+@Repository
+@Primary
+@Slf4j
+public class TieredTransactionRepository implements TransactionRepository {
+    
+    /**
+     * Qualifier of the hot repository, whichever repository mode is active
+     */
+    public static final String HOT = "hotTransactionRepository";
+    
+    private final TransactionRepository hot;
+    private final ArchiveStore cold;
+    
+    public TieredTransactionRepository(@Qualifier(HOT) TransactionRepository hot, ArchiveStore cold) {
+        this.hot = hot;
+        this.cold = cold;
+        log.info("TieredTransactionRepository initialized - Hot: {}, Cold segments: {}",
+                hot.getClass().getSimpleName(), cold.getSegmentCount());
+    }
+    
+    @Override
+    public Transaction save(Transaction transaction) {
+        return hot.save(transaction);
+    }
+    
+    @Override
+    public List<Transaction> saveAll(List<Transaction> transactions) {
+        return hot.saveAll(transactions);
+    }
+    
+    @Override
+    public Optional<Transaction> findById(UUID id) {
+        Optional<Transaction> transaction = hot.findById(id);
+        return transaction.isPresent() ? transaction : cold.findById(id);
+    }
+    
+    @Override
+    public List<Transaction> findAll(int page, int size) {
+        return search(new TransactionFilter(), page, size);
+    }
+    
+    @Override
+    public List<Transaction> findByAccountNumber(String accountNumber, int page, int size) {
+        // The hot repository pages an account from its log directly; only a short page reaches the archive
+        List<Transaction> hotPage = hot.findByAccountNumber(accountNumber, page, size);
+        if (hotPage.size() == size || cold.isEmpty()) {
+            return hotPage;
+        }
+        return fillFromCold(TransactionFilter.byAccount(accountNumber), page, size, hotPage,
+                () -> hot.countByAccountNumber(accountNumber));
+    }
+    
+    @Override
+    public List<Transaction> findByTransactionType(String transactionType, int page, int size) {
+        return search(TransactionFilter.byType(transactionType), page, size);
+    }
+    
+    @Override
+    public List<Transaction> findByTimestampBetween(LocalDateTime from, LocalDateTime to, int page, int size) {
+        return search(range(null, from, to), page, size);
+    }
+    
+    @Override
+    public List<Transaction> findByAccountNumberAndTimestampBetween(String accountNumber, LocalDateTime from,
+                                                                    LocalDateTime to, int page, int size) {
+        return search(range(accountNumber, from, to), page, size);
+    }
+    
+    @Override
+    public long countByTimestampBetween(LocalDateTime from, LocalDateTime to) {
+        return count(range(null, from, to));
+    }
+    
+    @Override
+    public List<Transaction> search(TransactionFilter filter, int page, int size) {
+        List<Transaction> hotPage = hot.search(filter, page, size);
+        if (hotPage.size() == size || cold.isEmpty()) {
+            return hotPage;
+        }
+        return fillFromCold(filter, page, size, hotPage, () -> hot.count(filter));
+    }
+    
+    @Override
+    public long count(TransactionFilter filter) {
+        return hot.count(filter) + cold.count(filter);
+    }
+    
+    @Override
+    public Stream<Transaction> stream(TransactionFilter filter) {
+        return Stream.concat(hot.stream(filter), cold.stream(filter));
+    }
+    
+    @Override
+    public Transaction update(Transaction transaction) {
+        if (isReadOnly(transaction.getId())) {
+            throw new IllegalArgumentException("Transaction with ID " + transaction.getId() + " is archived and read-only");
+        }
+        return hot.update(transaction);
+    }
+    
+    /**
+     * Archived transactions are read-only; one still in memory while being archived can be updated
+     */
+    @Override
+    public boolean isReadOnly(UUID id) {
+        return !hot.existsById(id) && cold.existsById(id);
+    }
+    
+    @Override
+    public boolean deleteById(UUID id) {
+        // Archived transactions are immutable and stay in their segment
+        return hot.deleteById(id);
+    }
+    
+    @Override
+    public long count() {
+        return hot.count() + cold.getTransactionCount();
+    }
+    
+    @Override
+    public long countByAccountNumber(String accountNumber) {
+        return hot.countByAccountNumber(accountNumber) + cold.count(TransactionFilter.byAccount(accountNumber));
+    }
+    
+    @Override
+    public long countByTransactionType(String transactionType) {
+        return hot.countByTransactionType(transactionType) + cold.count(TransactionFilter.byType(transactionType));
+    }
+    
+    @Override
+    public boolean existsById(UUID id) {
+        return hot.existsById(id) || cold.existsById(id);
+    }
+    
+    /**
+     * The transactions in memory only: materialising the archive would undo the memory bound
+     * retention exists for. Use {@link #streamAll()} to walk archived transactions as well.
+     */
+    @Override
+    public List<Transaction> getAllTransactions() {
+        return hot.getAllTransactions();
+    }
+    
+    @Override
+    public Stream<Transaction> streamAll() {
+        return Stream.concat(hot.streamAll(), cold.stream(new TransactionFilter()));
+    }
+    
+    @Override
+    public int evict(List<Transaction> transactions) {
+        return hot.evict(transactions);
+    }
+    
+    @Override
+    public Map<LocalDateTime, Integer> getTimePartitions() {
+        return hot.getTimePartitions();
+    }
+    
+    /**
+     * The hot matches ran out on this page: fill it from the start of the archived matches,
+     * or, past the last hot match, skip the archived matches earlier pages already showed
+     */
+    private List<Transaction> fillFromCold(TransactionFilter filter, int page, int size, List<Transaction> hotPage,
+                                           LongSupplier hotCount) {
+        long offset = (long) page * size;
+        long coldOffset = hotPage.isEmpty() ? Math.max(0, offset - hotCount.getAsLong()) : 0;
+        List<Transaction> result = new ArrayList<>(hotPage);
+        result.addAll(cold.search(filter, coldOffset, size - hotPage.size()));
+        return result;
+    }
+    
+    private static TransactionFilter range(String accountNumber, LocalDateTime from, LocalDateTime to) {
+        TransactionFilter filter = TransactionFilter.byAccount(accountNumber);
+        filter.setFrom(from);
+        filter.setTo(to);
+        return filter;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,195 @@
+package com.lsh.transaction.repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Timestamp index split into fixed-width time partitions (one hour by default).
+ * A range query only visits the partitions overlapping the range, partition sizes are kept
+ * so fully covered partitions are counted without iterating, and a partition can be dropped
+ * as a unit once its transactions age out.
+ */
+class TimePartitionedIndex {
+    
+    private static final UUID MIN_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+    
+    private final long partitionSeconds;
+    private final ConcurrentSkipListMap<Long, Partition> partitions = new ConcurrentSkipListMap<>();
+    
+    TimePartitionedIndex(Duration partitionWidth) {
+        if (partitionWidth.getSeconds() <= 0) {
+            throw new IllegalArgumentException("Partition width must be at least one second");
+        }
+        this.partitionSeconds = partitionWidth.getSeconds();
+    }
+    
+    void add(LocalDateTime timestamp, UUID id) {
+        Partition partition = partitions.computeIfAbsent(partitionOf(timestamp), Partition::new);
+        if (partition.entries.add(new Entry(timestamp, id))) {
+            partition.size.incrementAndGet();
+        }
+    }
+    
+    void remove(LocalDateTime timestamp, UUID id) {
+        // Empty partitions are kept until dropped, so a concurrent add never lands in a discarded partition
+        Partition partition = partitions.get(partitionOf(timestamp));
+        if (partition != null && partition.entries.remove(new Entry(timestamp, id))) {
+            partition.size.decrementAndGet();
+        }
+    }
+    
+    /**
+     * Ids with a timestamp in [from, to), newest first; null bounds are open
+     */
+    Stream<UUID> newestFirst(LocalDateTime from, LocalDateTime to) {
+        if (isEmptyRange(from, to)) {
+            return Stream.empty();
+        }
+        return overlapping(from, to).descendingMap().values().stream()
+                .flatMap(partition -> range(partition, from, to).descendingSet().stream())
+                .map(Entry::id);
+    }
+    
+    /**
+     * Number of ids in [from, to), counting no further than the limit (Long.MAX_VALUE when over it)
+     */
+    long countUpTo(LocalDateTime from, LocalDateTime to, long limit) {
+        if (isEmptyRange(from, to)) {
+            return 0;
+        }
+        long count = 0;
+        for (Partition partition : overlapping(from, to).values()) {
+            if (covers(partition, from, to)) {
+                count += partition.size.get();
+            } else {
+                Iterator<Entry> iterator = range(partition, from, to).iterator();
+                while (count <= limit && iterator.hasNext()) {
+                    iterator.next();
+                    count++;
+                }
+            }
+            if (count > limit) {
+                return Long.MAX_VALUE;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Start time and size of each partition, oldest first
+     */
+    Map<LocalDateTime, Integer> partitionSizes() {
+        Map<LocalDateTime, Integer> sizes = new LinkedHashMap<>();
+        for (Partition partition : partitions.values()) {
+            sizes.put(startOf(partition.key), partition.size.get());
+        }
+        return sizes;
+    }
+    
+    /**
+     * Drop the partition holding the timestamp if it is empty.
+     * Only called for partitions past the retention cutoff, which new writes no longer land in.
+     */
+    void dropIfEmpty(LocalDateTime timestamp) {
+        long key = partitionOf(timestamp);
+        Partition partition = partitions.get(key);
+        if (partition != null && partition.size.get() == 0) {
+            partitions.remove(key, partition);
+        }
+    }
+    
+    int partitionCount() {
+        return partitions.size();
+    }
+    
+    void clear() {
+        partitions.clear();
+    }
+    
+    private NavigableMap<Long, Partition> overlapping(LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            return partitions;
+        }
+        if (from == null) {
+            return partitions.headMap(partitionOf(to), true);
+        }
+        if (to == null) {
+            return partitions.tailMap(partitionOf(from), true);
+        }
+        return partitions.subMap(partitionOf(from), true, partitionOf(to), true);
+    }
+    
+    private NavigableSet<Entry> range(Partition partition, LocalDateTime from, LocalDateTime to) {
+        NavigableSet<Entry> entries = partition.entries;
+        if (from != null && !from.isAfter(startOf(partition.key))) {
+            from = null;
+        }
+        if (to != null && !to.isBefore(startOf(partition.key + 1))) {
+            to = null;
+        }
+        if (from == null && to == null) {
+            return entries;
+        }
+        if (from == null) {
+            return entries.headSet(new Entry(to, MIN_ID), false);
+        }
+        if (to == null) {
+            return entries.tailSet(new Entry(from, MIN_ID), true);
+        }
+        return entries.subSet(new Entry(from, MIN_ID), true, new Entry(to, MIN_ID), false);
+    }
+    
+    private boolean covers(Partition partition, LocalDateTime from, LocalDateTime to) {
+        return (from == null || !from.isAfter(startOf(partition.key)))
+                && (to == null || !to.isBefore(startOf(partition.key + 1)));
+    }
+    
+    private static boolean isEmptyRange(LocalDateTime from, LocalDateTime to) {
+        return from != null && to != null && !from.isBefore(to);
+    }
+    
+    private long partitionOf(LocalDateTime timestamp) {
+        return Math.floorDiv(timestamp.toEpochSecond(ZoneOffset.UTC), partitionSeconds);
+    }
+    
+    private LocalDateTime startOf(long partition) {
+        long epochSecond = partition * partitionSeconds;
+        // The oldest partition holds transactions without a timestamp, indexed at LocalDateTime.MIN
+        if (epochSecond <= LocalDateTime.MIN.toEpochSecond(ZoneOffset.UTC)) {
+            return LocalDateTime.MIN;
+        }
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+    
+    private static final class Partition {
+        private final long key;
+        private final NavigableSet<Entry> entries = new ConcurrentSkipListSet<>();
+        private final AtomicInteger size = new AtomicInteger();
+        
+        Partition(long key) {
+            this.key = key;
+        }
+    }
+    
+    /**
+     * Entry of a partition, ordered by timestamp then id
+     */
+    private record Entry(LocalDateTime timestamp, UUID id) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int result = timestamp.compareTo(other.timestamp);
+            return result != 0 ? result : id.compareTo(other.id);
+        }
+    }
+}
\ No newline at end of file
@@ -1,9 +1,13 @@
 package com.lsh.transaction.repository;
 
 import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.model.TransactionFilter;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for transaction data access.
@@ -18,6 +22,13 @@ public interface TransactionRepository {
      */
     Transaction save(Transaction transaction);
     
+    /**
+     * Save a batch of new transactions in a single write.
+     * @param transactions the transactions to save
+     * @return the saved transactions, in the same order
+     */
+    List<Transaction> saveAll(List<Transaction> transactions);
+    
     /**
      * Find a transaction by its ID.
      * @param id the transaction ID
@@ -51,6 +62,61 @@ public interface TransactionRepository {
      */
     List<Transaction> findByTransactionType(String transactionType, int page, int size);
     
+    /**
+     * Find transactions with a timestamp in [from, to), newest first.
+     * Only the time partitions overlapping the range are visited.
+     * @param from inclusive lower bound, or null for no lower bound
+     * @param to exclusive upper bound, or null for no upper bound
+     * @param page the page number (0-based)
+     * @param size the page size
+     * @return list of transactions in the range for the specified page
+     */
+    List<Transaction> findByTimestampBetween(LocalDateTime from, LocalDateTime to, int page, int size);
+    
+    /**
+     * Find transactions of an account with a timestamp in [from, to), newest first.
+     * @param accountNumber the account number to search for
+     * @param from inclusive lower bound, or null for no lower bound
+     * @param to exclusive upper bound, or null for no upper bound
+     * @param page the page number (0-based)
+     * @param size the page size
+     * @return list of transactions of the account in the range for the specified page
+     */
+    List<Transaction> findByAccountNumberAndTimestampBetween(String accountNumber, LocalDateTime from, LocalDateTime to,
+                                                             int page, int size);
+    
+    /**
+     * Count transactions with a timestamp in [from, to).
+     * @param from inclusive lower bound, or null for no lower bound
+     * @param to exclusive upper bound, or null for no upper bound
+     * @return number of transactions in the range
+     */
+    long countByTimestampBetween(LocalDateTime from, LocalDateTime to);
+    
+    /**
+     * Find transactions matching every criterion of the filter, newest first.
+     * @param filter the search criteria
+     * @param page the page number (0-based)
+     * @param size the page size
+     * @return list of matching transactions for the specified page
+     */
+    List<Transaction> search(TransactionFilter filter, int page, int size);
+    
+    /**
+     * Count transactions matching every criterion of the filter.
+     * @param filter the search criteria
+     * @return number of matching transactions
+     */
+    long count(TransactionFilter filter);
+    
+    /**
+     * Stream transactions matching the filter, in no particular order.
+     * Weakly consistent, like {@link #streamAll()}.
+     * @param filter the search criteria
+     * @return lazy stream over the matching transactions
+     */
+    Stream<Transaction> stream(TransactionFilter filter);
+    
     /**
      * Update an existing transaction.
      * @param transaction the transaction to update
@@ -92,9 +158,42 @@ public interface TransactionRepository {
      */
     boolean existsById(UUID id);
     
+    /**
+     * Check if a transaction exists but cannot be updated, such as an archived one.
+     * @param id the transaction ID
+     * @return true if updating the transaction would be rejected
+     */
+    default boolean isReadOnly(UUID id) {
+        return false;
+    }
+    
     /**
      * Get all transactions without pagination (useful for statistics).
      * @return list of all transactions
      */
     List<Transaction> getAllTransactions();
-} 
\ No newline at end of file
+    
+    /**
+     * Stream all transactions without copying them.
+     * The stream is weakly consistent: it never fails on concurrent writes and may or may not
+     * reflect writes made after it was created.
+     * @return lazy stream over all transactions
+     */
+    Stream<Transaction> streamAll();
+    
+    /**
+     * Remove transactions from the store and its indexes in bulk, without touching balances.
+     * A transaction is only removed while its stored fields still equal the given snapshot, so one
+     * updated after the snapshot was archived stays. Time partitions left empty are dropped.
+     * Used by retention once the transactions are archived.
+     * @param transactions snapshots of the transactions to remove
+     * @return the number of transactions removed
+     */
+    int evict(List<Transaction> transactions);
+    
+    /**
+     * Start time and size of each time partition, oldest first.
+     * @return partition sizes keyed by partition start
+     */
+    Map<LocalDateTime, Integer> getTimePartitions();
+}
\ No newline at end of file
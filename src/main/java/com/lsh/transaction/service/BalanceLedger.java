@@ -0,0 +1,111 @@
+package com.lsh.transaction.service;
+
+import com.lsh.transaction.model.AccountBalance;
+import com.lsh.transaction.model.Transaction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Running per-account balances.
+ * Every created, updated or deleted transaction is applied as a delta: deposits credit the
+ * account, withdrawals debit it, and transfers debit the account and credit the recipient.
+ * Each balance is updated with a lock-free compare-and-set, so writers to different accounts
+ * never contend and a balance read is a single lookup instead of an account history scan.
+ */
+@Service
+@Slf4j
+public class BalanceLedger {
+    
+    private final ConcurrentHashMap<String, Balance> balances = new ConcurrentHashMap<>();
+    
+    /**
+     * Snapshot of the fields of a transaction that affect balances.
+     * Transactions are updated in place, so take it before changing the transaction.
+     */
+    public record Effect(String accountNumber, String transactionType, BigDecimal amount, String recipientAccount) {
+        
+        public static Effect of(Transaction transaction) {
+            return new Effect(transaction.getAccountNumber(), transaction.getTransactionType(),
+                    transaction.getAmount(), transaction.getRecipientAccount());
+        }
+    }
+    
+    /**
+     * Apply a newly stored transaction
+     */
+    public void apply(Transaction transaction) {
+        apply(Effect.of(transaction), 1);
+    }
+    
+    /**
+     * Undo a transaction that has been removed
+     */
+    public void revert(Effect effect) {
+        apply(effect, -1);
+    }
+    
+    /**
+     * Replace the effect a transaction had before an update with its current one
+     */
+    public void replace(Effect before, Transaction after) {
+        Effect current = Effect.of(after);
+        if (!current.equals(before)) {
+            apply(before, -1);
+            apply(current, 1);
+        }
+    }
+    
+    public AccountBalance getBalance(String accountNumber) {
+        Balance balance = balances.get(accountNumber);
+        if (balance == null) {
+            return new AccountBalance(accountNumber, BigDecimal.ZERO, 0, LocalDateTime.now());
+        }
+        return new AccountBalance(accountNumber, balance.amount.get(), balance.transactions.get(), LocalDateTime.now());
+    }
+    
+    /**
+     * Number of accounts with a balance entry
+     */
+    public int getAccountCount() {
+        return balances.size();
+    }
+    
+    private void apply(Effect effect, int sign) {
+        if (effect.amount() == null || effect.transactionType() == null) {
+            return;
+        }
+        BigDecimal amount = sign > 0 ? effect.amount() : effect.amount().negate();
+        switch (effect.transactionType()) {
+            case "DEPOSIT" -> add(effect.accountNumber(), amount, sign);
+            case "WITHDRAWAL" -> add(effect.accountNumber(), amount.negate(), sign);
+            case "TRANSFER" -> {
+                add(effect.accountNumber(), amount.negate(), sign);
+                add(effect.recipientAccount(), amount, sign);
+            }
+            default -> log.warn("Unknown transaction type ignored by balance ledger - Type: {}", effect.transactionType());
+        }
+    }
+    
+    private void add(String accountNumber, BigDecimal delta, int sign) {
+        if (accountNumber == null) {
+            return;
+        }
+        Balance balance = balances.get(accountNumber);
+        if (balance == null) {
+            balance = balances.computeIfAbsent(accountNumber, account -> new Balance());
+        }
+        balance.amount.accumulateAndGet(delta, BigDecimal::add);
+        balance.transactions.addAndGet(sign);
+    }
+    
+    private static final class Balance {
+        private final AtomicReference<BigDecimal> amount = new AtomicReference<>(BigDecimal.ZERO);
+        private final AtomicLong transactions = new AtomicLong();
+    }
+}
\ No newline at end of file
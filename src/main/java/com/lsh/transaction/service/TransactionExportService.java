@@ -0,0 +1,173 @@
+package com.lsh.transaction.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.lsh.transaction.exception.TransactionException;
+import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.model.TransactionFilter;
+import com.lsh.transaction.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streaming export of the transaction ledger as NDJSON or CSV.
+ * Rows are pulled one at a time from the repository's weakly consistent, index-driven stream and written
+ * straight to the output, so heap use does not grow with the number of exported rows.
+ */
+@Service
+@Slf4j
+public class TransactionExportService {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String CSV_HEADER = "id,accountNumber,transactionType,amount,description,timestamp,recipientAccount,status";
+    
+    private final TransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+    // Flushing after every row would turn each row into a separate network write
+    private final ObjectWriter transactionWriter;
+    
+    public TransactionExportService(TransactionRepository transactionRepository, ObjectMapper objectMapper) {
+        this.transactionRepository = transactionRepository;
+        this.objectMapper = objectMapper;
+        this.transactionWriter = objectMapper.writerFor(Transaction.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        log.info("TransactionExportService initialized");
+    }
+    
+    /**
+     * Export formats and their response content types
+     */
+    public enum Format {
+        NDJSON(MediaType.APPLICATION_NDJSON),
+        CSV(new MediaType("text", "csv", StandardCharsets.UTF_8));
+        
+        private final MediaType mediaType;
+        
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+        
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+        
+        public static Format of(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new TransactionException("Unsupported export format: " + value + ". Use ndjson or csv",
+                    "INVALID_EXPORT_FORMAT");
+        }
+    }
+    
+    /**
+     * Write every transaction matching the optional filters; null filters match everything
+     * @return number of rows written
+     */
+    public long export(Format format, String accountNumber, String transactionType,
+                       LocalDateTime from, LocalDateTime to, OutputStream output) throws IOException {
+        long startTime = System.currentTimeMillis();
+        TransactionFilter filter = TransactionFilter.byAccount(accountNumber);
+        filter.setTransactionType(transactionType);
+        filter.setFrom(from);
+        filter.setTo(to);
+        
+        long rows;
+        try (Stream<Transaction> transactions = transactionRepository.stream(filter)) {
+            Iterator<Transaction> iterator = transactions.iterator();
+            rows = format == Format.CSV ? writeCsv(iterator, output) : writeNdjson(iterator, output);
+        }
+        
+        long duration = System.currentTimeMillis() - startTime;
+        log.info("Transactions exported - Format: {}, Account: {}, Type: {}, From: {}, To: {}, Rows: {}, Duration: {}ms",
+                format, accountNumber, transactionType, from, to, rows, duration);
+        return rows;
+    }
+    
+    private long writeNdjson(Iterator<Transaction> iterator, OutputStream output) throws IOException {
+        long rows = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generator.setRootValueSeparator(null);
+            while (iterator.hasNext()) {
+                transactionWriter.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                rows++;
+            }
+        }
+        return rows;
+    }
+    
+    private long writeCsv(Iterator<Transaction> iterator, OutputStream output) throws IOException {
+        long rows = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (iterator.hasNext()) {
+            Transaction t = iterator.next();
+            writer.write(String.valueOf(t.getId()));
+            writer.write(',');
+            writeCsvField(writer, t.getAccountNumber());
+            writer.write(',');
+            writeCsvField(writer, t.getTransactionType());
+            writer.write(',');
+            writeCsvField(writer, t.getAmount() != null ? t.getAmount().toPlainString() : null);
+            writer.write(',');
+            writeCsvField(writer, t.getDescription());
+            writer.write(',');
+            writeCsvField(writer, t.getTimestamp() != null ? TIMESTAMP_FORMAT.format(t.getTimestamp()) : null);
+            writer.write(',');
+            writeCsvField(writer, t.getRecipientAccount());
+            writer.write(',');
+            writeCsvField(writer, t.getStatus());
+            writer.write('\n');
+            rows++;
+        }
+        writer.flush();
+        return rows;
+    }
+    
+    /**
+     * Write a CSV field, quoting it when it contains a delimiter, quote or line break
+     */
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+}
\ No newline at end of file
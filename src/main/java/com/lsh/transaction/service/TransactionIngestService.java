@@ -0,0 +1,235 @@
+package com.lsh.transaction.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.lsh.transaction.model.BatchCreateResult;
+import com.lsh.transaction.model.TransactionRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming ingestion of newline-delimited JSON transaction requests.
+ * The upload is scanned in fixed-size chunks and every line is parsed on its own, so a
+ * malformed record only rejects that record. Records are applied in bounded micro-batches
+ * through the bulk create path and their results are written back as NDJSON before the
+ * next batch is read; a slow database therefore slows the reader and, through TCP flow
+ * control, the client. Memory use depends on the batch size, not the upload size.
+ */
+@Service
+@Slf4j
+public class TransactionIngestService {
+    
+    private static final int CHUNK_SIZE = 64 * 1024;
+    
+    private final TransactionService transactionService;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader requestReader;
+    private final int batchSize;
+    private final int maxRecordBytes;
+    
+    public TransactionIngestService(TransactionService transactionService, ObjectMapper objectMapper,
+                                    @Value("${app.ingest.batch-size:500}") int batchSize,
+                                    @Value("${app.ingest.max-record-bytes:65536}") int maxRecordBytes) {
+        this.transactionService = transactionService;
+        this.objectMapper = objectMapper;
+        this.requestReader = objectMapper.readerFor(TransactionRequest.class);
+        // Each micro-batch goes through createTransactions, which rejects larger batches outright
+        this.batchSize = Math.max(1, Math.min(TransactionService.MAX_BATCH_SIZE, batchSize));
+        this.maxRecordBytes = Math.max(1024, maxRecordBytes);
+        log.info("TransactionIngestService initialized - BatchSize: {}, MaxRecordBytes: {}", this.batchSize, this.maxRecordBytes);
+    }
+    
+    /**
+     * Read NDJSON requests from the input and write one result line per record to the output,
+     * followed by a summary line
+     */
+    public Summary ingest(InputStream input, OutputStream output) throws IOException {
+        long startTime = System.currentTimeMillis();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            // Records are separated by newlines written explicitly, not by the default space
+            generator.setRootValueSeparator(null);
+            Ingestion ingestion = new Ingestion(generator);
+            byte[] chunk = new byte[CHUNK_SIZE];
+            int read;
+            while ((read = input.read(chunk)) != -1) {
+                int start = 0;
+                for (int i = 0; i < read; i++) {
+                    if (chunk[i] == '\n') {
+                        ingestion.append(chunk, start, i - start);
+                        ingestion.endRecord();
+                        start = i + 1;
+                    }
+                }
+                ingestion.append(chunk, start, read - start);
+            }
+            ingestion.endRecord();
+            ingestion.flushBatch();
+            
+            Summary summary = ingestion.summary;
+            generator.writeStartObject();
+            generator.writeStringField("status", "COMPLETED");
+            generator.writeNumberField("total", summary.getTotal());
+            generator.writeNumberField("created", summary.getCreated());
+            generator.writeNumberField("rejected", summary.getRejected());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            
+            long duration = System.currentTimeMillis() - startTime;
+            log.info("Stream ingestion completed - Total: {}, Created: {}, Rejected: {}, Duration: {}ms",
+                    summary.getTotal(), summary.getCreated(), summary.getRejected(), duration);
+            return summary;
+        }
+    }
+    
+    /**
+     * Per-upload state: the record being assembled and the pending micro-batch
+     */
+    private final class Ingestion {
+        private final JsonGenerator generator;
+        private final Summary summary = new Summary();
+        private final byte[] record = new byte[maxRecordBytes];
+        private int recordLength;
+        private boolean oversized;
+        private long lineNumber;
+        
+        // Pending records in line order; a record either parsed into a request or failed with an error
+        private final TransactionRequest[] pendingRequests = new TransactionRequest[batchSize];
+        private final String[] pendingErrors = new String[batchSize];
+        private final long[] pendingLines = new long[batchSize];
+        private int pending;
+        
+        Ingestion(JsonGenerator generator) {
+            this.generator = generator;
+        }
+        
+        void append(byte[] bytes, int offset, int length) {
+            if (oversized || length == 0) {
+                return;
+            }
+            if (recordLength + length > maxRecordBytes) {
+                // Keep skipping until the end of the line instead of buffering it
+                oversized = true;
+                return;
+            }
+            System.arraycopy(bytes, offset, record, recordLength, length);
+            recordLength += length;
+        }
+        
+        void endRecord() throws IOException {
+            lineNumber++;
+            if (oversized) {
+                addPending(null, "Record exceeds " + maxRecordBytes + " bytes");
+            } else if (!isBlank()) {
+                try {
+                    TransactionRequest request = requestReader.readValue(record, 0, recordLength);
+                    addPending(request, request != null ? null : "Record is empty");
+                } catch (JsonProcessingException e) {
+                    addPending(null, "Malformed record: " + e.getOriginalMessage());
+                }
+            }
+            recordLength = 0;
+            oversized = false;
+        }
+        
+        private boolean isBlank() {
+            for (int i = 0; i < recordLength; i++) {
+                byte b = record[i];
+                if (b != ' ' && b != '\t' && b != '\r') {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        private void addPending(TransactionRequest request, String error) throws IOException {
+            pendingRequests[pending] = request;
+            pendingErrors[pending] = error;
+            pendingLines[pending] = lineNumber;
+            pending++;
+            if (pending == batchSize) {
+                flushBatch();
+            }
+        }
+        
+        /**
+         * Apply the parsed records with one bulk write and stream every pending result in line order
+         */
+        void flushBatch() throws IOException {
+            if (pending == 0) {
+                return;
+            }
+            List<TransactionRequest> requests = new ArrayList<>(pending);
+            for (int i = 0; i < pending; i++) {
+                if (pendingErrors[i] == null) {
+                    requests.add(pendingRequests[i]);
+                }
+            }
+            List<BatchCreateResult.ItemResult> results = requests.isEmpty()
+                    ? List.of()
+                    : transactionService.createTransactions(requests).getResults();
+            
+            int next = 0;
+            for (int i = 0; i < pending; i++) {
+                if (pendingErrors[i] != null) {
+                    writeRejected(pendingLines[i], pendingErrors[i]);
+                } else {
+                    BatchCreateResult.ItemResult result = results.get(next++);
+                    if (result.getTransaction() != null) {
+                        writeCreated(pendingLines[i], result);
+                    } else {
+                        writeRejected(pendingLines[i], result.getError());
+                    }
+                }
+                pendingRequests[i] = null;
+                pendingErrors[i] = null;
+            }
+            pending = 0;
+            generator.flush();
+        }
+        
+        private void writeCreated(long line, BatchCreateResult.ItemResult result) throws IOException {
+            summary.total++;
+            summary.created++;
+            generator.writeStartObject();
+            generator.writeNumberField("line", line);
+            generator.writeStringField("status", result.getStatus());
+            generator.writeStringField("id", result.getTransaction().getId().toString());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+        
+        private void writeRejected(long line, String error) throws IOException {
+            summary.total++;
+            summary.rejected++;
+            generator.writeStartObject();
+            generator.writeNumberField("line", line);
+            generator.writeStringField("status", "REJECTED");
+            generator.writeStringField("error", error);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+    }
+    
+    /**
+     * Counts of records seen, created and rejected in one upload
+     */
+    public static class Summary {
+        private long total;
+        private long created;
+        private long rejected;
+        
+        public long getTotal() { return total; }
+        public long getCreated() { return created; }
+        public long getRejected() { return rejected; }
+    }
+}
\ No newline at end of file
@@ -1,10 +1,16 @@
 package com.lsh.transaction.service;
 
+import com.lsh.transaction.exception.DuplicateResourceException;
 import com.lsh.transaction.exception.ResourceNotFoundException;
+import com.lsh.transaction.exception.TransactionException;
+import com.lsh.transaction.model.AccountBalance;
+import com.lsh.transaction.model.BatchCreateResult;
 import com.lsh.transaction.model.PaginatedResponse;
 import com.lsh.transaction.model.Transaction;
 import com.lsh.transaction.model.TransactionRequest;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -13,6 +19,11 @@ import java.util.UUID;
  */
 public interface TransactionService {
     
+    /**
+     * Largest batch accepted by {@link #createTransactions(List)}
+     */
+    int MAX_BATCH_SIZE = 10_000;
+    
     /**
      * Create a new transaction.
      * @param request the transaction creation request
@@ -20,6 +31,24 @@ public interface TransactionService {
      */
     Transaction createTransaction(TransactionRequest request);
     
+    /**
+     * Create a new transaction at most once per idempotency key.
+     * A retry with the same key returns the transaction created by the first attempt.
+     * @param request the transaction creation request
+     * @param idempotencyKey the client supplied idempotency key, or null
+     * @return the created transaction
+     * @throws DuplicateResourceException if the key was already used with a different request
+     */
+    Transaction createTransaction(TransactionRequest request, String idempotencyKey);
+    
+    /**
+     * Create a batch of transactions with a single repository write.
+     * Every item is validated first; invalid items are rejected individually and the rest are saved.
+     * @param requests the transaction creation requests
+     * @return per-item results in request order
+     */
+    BatchCreateResult createTransactions(List<TransactionRequest> requests);
+    
     /**
      * Get a transaction by its ID.
      * @param id the transaction ID
@@ -54,6 +83,38 @@ public interface TransactionService {
      */
     PaginatedResponse<Transaction> getTransactionsByType(String transactionType, int page, int size);
     
+    /**
+     * Get transactions with a timestamp in [from, to), newest first, optionally for one account.
+     * @param accountNumber the account number, or null for all accounts
+     * @param from inclusive lower bound, or null for no lower bound
+     * @param to exclusive upper bound, or null for no upper bound
+     * @param page the page number (0-based)
+     * @param size the page size
+     * @return paginated response containing transactions in the range
+     */
+    PaginatedResponse<Transaction> getTransactionsByTimeRange(String accountNumber, LocalDateTime from, LocalDateTime to,
+                                                              int page, int size);
+    
+    /**
+     * Get the current balance of an account from the balance ledger.
+     * @param accountNumber the account number
+     * @return the account balance, zero for an account without transactions
+     */
+    AccountBalance getAccountBalance(String accountNumber);
+    
+    /**
+     * Get archived transactions in a time range, optionally for one account, newest first.
+     * Transactions move to the archive once they are older than the retention period.
+     * @param accountNumber only this account, or null for all accounts
+     * @param from inclusive start, or null for no lower bound
+     * @param to exclusive end, or null for no upper bound
+     * @param page the page number (0-based)
+     * @param size the page size
+     * @return paginated archived transactions
+     */
+    PaginatedResponse<Transaction> getArchivedTransactions(String accountNumber, LocalDateTime from, LocalDateTime to,
+                                                           int page, int size);
+    
     /**
      * Update an existing transaction.
      * @param id the transaction ID
@@ -71,6 +132,15 @@ public interface TransactionService {
      */
     boolean deleteTransaction(UUID id);
     
+    /**
+     * Cancel a pending transaction and revert its balance effect.
+     * @param id the transaction ID
+     * @return the cancelled transaction
+     * @throws ResourceNotFoundException if transaction not found
+     * @throws TransactionException if the transaction is no longer PENDING
+     */
+    Transaction cancelTransaction(UUID id);
+    
     /**
      * Get transaction statistics.
      * @return transaction statistics
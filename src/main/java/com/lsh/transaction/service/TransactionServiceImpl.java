@@ -1,18 +1,35 @@
 package com.lsh.transaction.service;
 
+import com.lsh.transaction.archive.ArchiveStore;
 import com.lsh.transaction.exception.ResourceNotFoundException;
 import com.lsh.transaction.exception.TransactionException;
+import com.lsh.transaction.idempotency.IdempotencyStore;
+import com.lsh.transaction.model.AccountBalance;
+import com.lsh.transaction.model.BatchCreateResult;
 import com.lsh.transaction.model.PaginatedResponse;
 import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.model.TransactionFilter;
 import com.lsh.transaction.model.TransactionRequest;
 import com.lsh.transaction.repository.TransactionRepository;
+import com.lsh.transaction.settlement.PendingQueue;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
@@ -20,10 +37,25 @@ public class TransactionServiceImpl implements TransactionService {
     
     private final TransactionRepository transactionRepository;
     private final CacheService cacheService;
+    private final IdempotencyStore idempotencyStore;
+    private final BalanceLedger balanceLedger;
+    private final TransferExecutor transferExecutor;
+    private final PendingQueue pendingQueue;
+    private final ArchiveStore archiveStore;
+    private final Validator validator;
     
-    public TransactionServiceImpl(TransactionRepository transactionRepository, CacheService cacheService) {
+    public TransactionServiceImpl(TransactionRepository transactionRepository, CacheService cacheService,
+                                  IdempotencyStore idempotencyStore, BalanceLedger balanceLedger,
+                                  TransferExecutor transferExecutor, PendingQueue pendingQueue,
+                                  ArchiveStore archiveStore, Validator validator) {
         this.transactionRepository = transactionRepository;
         this.cacheService = cacheService;
+        this.idempotencyStore = idempotencyStore;
+        this.balanceLedger = balanceLedger;
+        this.transferExecutor = transferExecutor;
+        this.pendingQueue = pendingQueue;
+        this.archiveStore = archiveStore;
+        this.validator = validator;
         log.info("TransactionServiceImpl initialized with repository and cache service");
     }
     
@@ -45,8 +77,9 @@ public class TransactionServiceImpl implements TransactionService {
             transaction.setDescription(request.getDescription());
             transaction.setRecipientAccount(request.getRecipientAccount());
             
-            // Save transaction first
-            Transaction savedTransaction = transactionRepository.save(transaction);
+            // Save and apply to balances under the locks of both accounts of a transfer
+            Transaction savedTransaction = transferExecutor.create(transaction, () -> transactionRepository.save(transaction));
+            pendingQueue.add(savedTransaction);
             
             // Clear related caches after creation
             clearRelatedCaches(savedTransaction.getId(), request.getAccountNumber());
@@ -64,6 +97,78 @@ public class TransactionServiceImpl implements TransactionService {
         }
     }
     
+    @Override
+    public Transaction createTransaction(TransactionRequest request, String idempotencyKey) {
+        return idempotencyStore.execute(request.getAccountNumber(), idempotencyKey, request, () -> createTransaction(request));
+    }
+    
+    @Override
+    public BatchCreateResult createTransactions(List<TransactionRequest> requests) {
+        long startTime = System.currentTimeMillis();
+        int total = requests != null ? requests.size() : 0;
+        log.info("Creating transaction batch - Count: {}", total);
+        
+        try {
+            if (total == 0 || total > MAX_BATCH_SIZE) {
+                log.error("Invalid batch size: {}", total);
+                throw new TransactionException("Batch must contain between 1 and " + MAX_BATCH_SIZE + " transactions",
+                        "INVALID_BATCH_SIZE");
+            }
+            
+            // Check every item against the request constraints before writing anything
+            BatchCreateResult.ItemResult[] results = new BatchCreateResult.ItemResult[total];
+            List<Transaction> candidates = new ArrayList<>(total);
+            int[] candidateIndexes = new int[total];
+            for (int i = 0; i < total; i++) {
+                TransactionRequest request = requests.get(i);
+                String error = rejectionReason(request);
+                if (error != null) {
+                    results[i] = BatchCreateResult.ItemResult.rejected(i, error);
+                    continue;
+                }
+                Transaction transaction = new Transaction(request.getAccountNumber(), request.getTransactionType(),
+                        request.getAmount(), request.getDescription());
+                transaction.setRecipientAccount(request.getRecipientAccount());
+                candidateIndexes[candidates.size()] = i;
+                candidates.add(transaction);
+            }
+            
+            // One repository write for the whole batch, funds-checked and applied to balances under the
+            // locks of all its accounts, so each funds check sees the earlier items
+            List<Transaction> saved = candidates.isEmpty() ? List.of() : transferExecutor.createAll(candidates,
+                    transactionRepository::saveAll,
+                    (error, k) -> results[candidateIndexes[k]] = BatchCreateResult.ItemResult.rejected(candidateIndexes[k], error));
+            
+            // One round of cache invalidation for the whole batch
+            Set<String> accounts = new HashSet<>();
+            if (!saved.isEmpty()) {
+                pendingQueue.addAll(saved);
+                int j = 0;
+                for (int k = 0; k < candidates.size(); k++) {
+                    int index = candidateIndexes[k];
+                    if (results[index] == null) {
+                        Transaction transaction = saved.get(j++);
+                        results[index] = BatchCreateResult.ItemResult.created(index, transaction);
+                        accounts.add(transaction.getAccountNumber());
+                    }
+                }
+                clearBatchCaches(accounts);
+            }
+            
+            int created = saved.size();
+            long duration = System.currentTimeMillis() - startTime;
+            log.info("Transaction batch created - Count: {}, Created: {}, Rejected: {}, Accounts: {}, Duration: {}ms",
+                    total, created, total - created, accounts.size(), duration);
+            
+            return new BatchCreateResult(total, created, total - created, Arrays.asList(results));
+        } catch (Exception e) {
+            long duration = System.currentTimeMillis() - startTime;
+            log.error("Failed to create transaction batch - Count: {}, Duration: {}ms, Error: {}",
+                    total, duration, e.getMessage(), e);
+            throw e;
+        }
+    }
+    
     @Override
     public Transaction getTransactionById(UUID id) {
         long startTime = System.currentTimeMillis();
@@ -189,6 +294,81 @@ public class TransactionServiceImpl implements TransactionService {
         }
     }
     
+    @Override
+    public PaginatedResponse<Transaction> getTransactionsByTimeRange(String accountNumber, LocalDateTime from,
+                                                                     LocalDateTime to, int page, int size) {
+        long startTime = System.currentTimeMillis();
+        log.info("Retrieving transactions by time range - Account: {}, From: {}, To: {}, Page: {}, Size: {}",
+                accountNumber, from, to, page, size);
+        
+        try {
+            validatePagination(page, size);
+            if (from != null && to != null && !from.isBefore(to)) {
+                throw new TransactionException("Time range start must be before its end", "INVALID_TIME_RANGE");
+            }
+            
+            // Not cached: ranges are usually relative to now, so keys would rarely repeat
+            TransactionFilter filter = TransactionFilter.byAccount(accountNumber);
+            filter.setFrom(from);
+            filter.setTo(to);
+            List<Transaction> transactions = transactionRepository.search(filter, page, size);
+            long totalElements = transactionRepository.count(filter);
+            PaginatedResponse<Transaction> response = PaginatedResponse.of(transactions, page, size, totalElements);
+            
+            long duration = System.currentTimeMillis() - startTime;
+            log.info("Time range transactions retrieved successfully - Account: {}, From: {}, To: {}, Total: {}, Duration: {}ms",
+                    accountNumber, from, to, totalElements, duration);
+            
+            return response;
+        } catch (Exception e) {
+            long duration = System.currentTimeMillis() - startTime;
+            log.error("Failed to retrieve time range transactions - Account: {}, From: {}, To: {}, Duration: {}ms, Error: {}",
+                    accountNumber, from, to, duration, e.getMessage(), e);
+            throw e;
+        }
+    }
+    
+    @Override
+    public PaginatedResponse<Transaction> getArchivedTransactions(String accountNumber, LocalDateTime from,
+                                                                  LocalDateTime to, int page, int size) {
+        long startTime = System.currentTimeMillis();
+        log.info("Retrieving archived transactions - Account: {}, From: {}, To: {}, Page: {}, Size: {}",
+                accountNumber, from, to, page, size);
+        
+        try {
+            validatePagination(page, size);
+            if (from != null && to != null && !from.isBefore(to)) {
+                throw new TransactionException("Time range start must be before its end", "INVALID_TIME_RANGE");
+            }
+            
+            TransactionFilter filter = TransactionFilter.byAccount(accountNumber);
+            filter.setFrom(from);
+            filter.setTo(to);
+            List<Transaction> transactions = archiveStore.search(filter, (long) page * size, size);
+            long totalElements = archiveStore.count(filter);
+            PaginatedResponse<Transaction> response = PaginatedResponse.of(transactions, page, size, totalElements);
+            
+            long duration = System.currentTimeMillis() - startTime;
+            log.info("Archived transactions retrieved successfully - Account: {}, Total: {}, Duration: {}ms",
+                    accountNumber, totalElements, duration);
+            
+            return response;
+        } catch (Exception e) {
+            long duration = System.currentTimeMillis() - startTime;
+            log.error("Failed to retrieve archived transactions - Account: {}, Duration: {}ms, Error: {}",
+                    accountNumber, duration, e.getMessage(), e);
+            throw e;
+        }
+    }
+    
+    @Override
+    public AccountBalance getAccountBalance(String accountNumber) {
+        validateAccountNumber(accountNumber);
+        AccountBalance balance = balanceLedger.getBalance(accountNumber);
+        log.info("Account balance retrieved - Account: {}, Balance: {}", accountNumber, balance.getBalance());
+        return balance;
+    }
+    
     @Override
     public Transaction updateTransaction(UUID id, TransactionRequest request) {
         long startTime = System.currentTimeMillis();
@@ -202,18 +382,15 @@ public class TransactionServiceImpl implements TransactionService {
             // Validate business rules
             validateTransactionRequest(request);
             
-            // Update transaction fields
-            existingTransaction.setAccountNumber(request.getAccountNumber());
-            existingTransaction.setTransactionType(request.getTransactionType());
-            existingTransaction.setAmount(request.getAmount());
-            existingTransaction.setDescription(request.getDescription());
-            existingTransaction.setRecipientAccount(request.getRecipientAccount());
-            
-            // Update timestamp
-            existingTransaction.setTimestamp(java.time.LocalDateTime.now());
+            // Archived transactions are read-only: reject them before touching the possibly cached copy
+            if (transactionRepository.isReadOnly(id)) {
+                throw new TransactionException("Transaction " + id + " is archived and read-only", "TRANSACTION_ARCHIVED");
+            }
             
-            // Save updated transaction first
-            Transaction updatedTransaction = transactionRepository.update(existingTransaction);
+            // Apply the new fields, save and move the balance effect under the locks of the old and new accounts
+            Transaction updatedTransaction = transferExecutor.update(existingTransaction,
+                    request.getAccountNumber(), request.getRecipientAccount(), transaction -> applyRequest(transaction, request),
+                    () -> transactionRepository.update(existingTransaction));
             
             // Clear related caches and update specific cache
             clearRelatedCaches(id, request.getAccountNumber());
@@ -225,6 +402,8 @@ public class TransactionServiceImpl implements TransactionService {
             
             return updatedTransaction;
         } catch (Exception e) {
+            // Drop the cached copy so the next read sees the stored transaction
+            cacheService.conditionalEvict("transactions", id.toString(), true);
             long duration = System.currentTimeMillis() - startTime;
             log.error("Failed to update transaction - ID: {}, Duration: {}ms, Error: {}", 
                     id, duration, e.getMessage(), e);
@@ -242,7 +421,7 @@ public class TransactionServiceImpl implements TransactionService {
             Transaction existingTransaction = getTransactionById(id);
             
             // Delete transaction first
-            boolean deleted = transactionRepository.deleteById(id);
+            boolean deleted = transferExecutor.delete(existingTransaction, () -> transactionRepository.deleteById(id));
             
             if (deleted) {
                 // Clear related caches after deletion
@@ -262,6 +441,39 @@ public class TransactionServiceImpl implements TransactionService {
         }
     }
     
+    @Override
+    public Transaction cancelTransaction(UUID id) {
+        long startTime = System.currentTimeMillis();
+        log.info("Cancelling transaction - ID: {}", id);
+        
+        try {
+            Transaction existingTransaction = transactionRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Transaction not found with id: " + id));
+            
+            // Only a transaction that settlement has not picked up yet can be cancelled
+            boolean cancelled = transferExecutor.cancel(existingTransaction,
+                    () -> transactionRepository.update(existingTransaction));
+            if (!cancelled) {
+                log.error("Transaction cannot be cancelled - ID: {}, Status: {}", id, existingTransaction.getStatus());
+                throw new TransactionException("Only PENDING transactions can be cancelled, transaction " + id
+                        + " is " + existingTransaction.getStatus(), "INVALID_STATUS_TRANSITION");
+            }
+            
+            clearRelatedCaches(id, existingTransaction.getAccountNumber());
+            
+            long duration = System.currentTimeMillis() - startTime;
+            log.info("Transaction cancelled - ID: {}, Account: {}, Duration: {}ms",
+                    id, existingTransaction.getAccountNumber(), duration);
+            
+            return existingTransaction;
+        } catch (Exception e) {
+            long duration = System.currentTimeMillis() - startTime;
+            log.error("Failed to cancel transaction - ID: {}, Duration: {}ms, Error: {}",
+                    id, duration, e.getMessage(), e);
+            throw e;
+        }
+    }
+    
     @Override
     public TransactionStatistics getTransactionStatistics() {
         long startTime = System.currentTimeMillis();
@@ -271,10 +483,8 @@ public class TransactionServiceImpl implements TransactionService {
             TransactionStatistics statistics = cacheService.getWithNullProtection(
                 "transactionStats",
                 "all",
-                () -> {
-                    List<Transaction> allTransactions = transactionRepository.getAllTransactions();
-                    return calculateStatistics(allTransactions);
-                }
+                // Streamed, so archived transactions are decoded a block at a time instead of all at once
+                () -> calculateStatistics(transactionRepository.streamAll())
             );
             
             long duration = System.currentTimeMillis() - startTime;
@@ -312,6 +522,50 @@ public class TransactionServiceImpl implements TransactionService {
                 request.getAccountNumber(), request.getAmount(), request.getTransactionType());
     }
     
+    /**
+     * Copy the fields of an update request onto a stored transaction
+     */
+    private static void applyRequest(Transaction transaction, TransactionRequest request) {
+        transaction.setAccountNumber(request.getAccountNumber());
+        transaction.setTransactionType(request.getTransactionType());
+        transaction.setAmount(request.getAmount());
+        transaction.setDescription(request.getDescription());
+        transaction.setRecipientAccount(request.getRecipientAccount());
+        transaction.setTimestamp(java.time.LocalDateTime.now());
+    }
+    
+    /**
+     * Check a batch item against the request's bean validation constraints and the transfer rules
+     * without logging, returning null when valid. Every violated constraint's message is reported.
+     */
+    private String rejectionReason(TransactionRequest request) {
+        if (request == null) {
+            return "Transaction request is required";
+        }
+        Set<ConstraintViolation<TransactionRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .sorted(Comparator.comparing((ConstraintViolation<TransactionRequest> v) -> v.getPropertyPath().toString())
+                            .thenComparing(ConstraintViolation::getMessage))
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.joining("; "));
+        }
+        String recipient = request.getRecipientAccount();
+        boolean hasRecipient = recipient != null && !recipient.trim().isEmpty();
+        if ("TRANSFER".equals(request.getTransactionType()) && !hasRecipient) {
+            return "Recipient account is required for TRANSFER transactions";
+        }
+        if (hasRecipient) {
+            // The request leaves the recipient optional; its format is the stored transaction's constraint
+            Set<ConstraintViolation<Transaction>> recipientViolations =
+                    validator.validateValue(Transaction.class, "recipientAccount", recipient);
+            if (!recipientViolations.isEmpty()) {
+                return recipientViolations.iterator().next().getMessage();
+            }
+        }
+        return null;
+    }
+    
     private void validatePagination(int page, int size) {
         if (page < 0) {
             log.error("Invalid page number: {}", page);
@@ -356,11 +610,27 @@ public class TransactionServiceImpl implements TransactionService {
         }
     }
     
-    private TransactionStatistics calculateStatistics(List<Transaction> transactions) {
-        long totalTransactions = transactions.size();
-        BigDecimal totalAmount = transactions.stream()
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private void clearBatchCaches(Set<String> accountNumbers) {
+        try {
+            for (String accountNumber : accountNumbers) {
+                cacheService.conditionalEvict("transactions", "account_" + accountNumber, true);
+            }
+            cacheService.conditionalEvict("transactionStats", "all", true);
+            
+            log.info("Related caches cleared for batch - Accounts: {}", accountNumbers.size());
+        } catch (Exception e) {
+            log.error("Failed to clear related caches for batch - Accounts: {}, Error: {}",
+                    accountNumbers.size(), e.getMessage(), e);
+        }
+    }
+    
+    private TransactionStatistics calculateStatistics(Stream<Transaction> transactions) {
+        long totalTransactions = 0;
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        for (Iterator<Transaction> iterator = transactions.iterator(); iterator.hasNext(); ) {
+            totalAmount = totalAmount.add(iterator.next().getAmount());
+            totalTransactions++;
+        }
         
         double averageAmount = totalTransactions > 0 ? 
                 totalAmount.doubleValue() / totalTransactions : 0.0;
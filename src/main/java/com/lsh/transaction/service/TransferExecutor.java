@@ -0,0 +1,343 @@
+package com.lsh.transaction.service;
+
+import com.lsh.transaction.exception.TransactionException;
+import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.writer.SingleWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Runs transaction writes and their balance effects under per-account locks.
+ * Accounts map onto a fixed set of {@link ReentrantLock} stripes, which park waiting virtual
+ * threads instead of pinning their carrier. Every write takes the stripes of all accounts it
+ * touches in ascending stripe order, so concurrent A to B and B to A transfers cannot deadlock,
+ * and the funds check, the repository write and both balance changes happen as one step.
+ * In single-writer mode the same step runs as one command on the {@link SingleWriter} instead.
+ * Balance effects are held from creation; settlement either keeps them (COMPLETED) or reverts
+ * them (FAILED), as does cancelling a pending transaction. Settlement decides on the funds check
+ * the transaction itself passed or failed when it was created or last updated, not on whatever the
+ * account's balance has become since, so one debit is never failed for another write's overdraft.
+ */
+@Service
+@Slf4j
+public class TransferExecutor {
+    
+    private final BalanceLedger balanceLedger;
+    private final SingleWriter singleWriter;
+    private final ReentrantLock[] stripes;
+    private final boolean allowOverdraft;
+    private final AtomicLong insufficientFundsCount = new AtomicLong();
+    // Pending debits that were updated beyond the funds of their account; settlement fails them
+    private final Set<UUID> unfunded = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * Returned from a guarded update whose transaction moved to other accounts before the locks were taken
+     */
+    private static final Object RETRY = new Object();
+    
+    public TransferExecutor(BalanceLedger balanceLedger,
+                            @Value("${app.ledger.lock-stripes:1024}") int stripeCount,
+                            @Value("${app.ledger.allow-overdraft:true}") boolean allowOverdraft) {
+        this(balanceLedger, Optional.empty(), stripeCount, allowOverdraft);
+    }
+    
+    @Autowired
+    public TransferExecutor(BalanceLedger balanceLedger, Optional<SingleWriter> singleWriter,
+                            @Value("${app.ledger.lock-stripes:1024}") int stripeCount,
+                            @Value("${app.ledger.allow-overdraft:true}") boolean allowOverdraft) {
+        this.balanceLedger = balanceLedger;
+        this.singleWriter = singleWriter.orElse(null);
+        // Power of two so the stripe is a mask of the spread hash
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.allowOverdraft = allowOverdraft;
+        log.info("TransferExecutor initialized - Mode: {}, Stripes: {}, Allow overdraft: {}",
+                this.singleWriter != null ? "single-writer" : "striped locks", size, allowOverdraft);
+    }
+    
+    /**
+     * Store a new transaction and apply it to the balances.
+     * Without overdraft, withdrawals and transfers beyond the current balance are rejected.
+     */
+    public <T> T create(Transaction transaction, Supplier<T> write) {
+        return guarded(() -> {
+            checkFunds(transaction);
+            T result = write.get();
+            balanceLedger.apply(transaction);
+            return result;
+        }, transaction.getAccountNumber(), recipientOf(transaction));
+    }
+    
+    /**
+     * Store a batch of new transactions with one write and apply them to the balances, all under
+     * the locks of every account in the batch. Items are funds-checked and applied in order, so each
+     * check sees the earlier items; an item that fails its check is passed to rejected with its index
+     * and left out of the write. If the write fails, the applied items are reverted.
+     * Returns the stored transactions, or an empty list if every item was rejected.
+     */
+    public List<Transaction> createAll(List<Transaction> transactions, UnaryOperator<List<Transaction>> write,
+                                       ObjIntConsumer<String> rejected) {
+        String[] accounts = new String[transactions.size() * 2];
+        for (int i = 0; i < transactions.size(); i++) {
+            accounts[2 * i] = transactions.get(i).getAccountNumber();
+            accounts[2 * i + 1] = recipientOf(transactions.get(i));
+        }
+        return guarded(() -> {
+            List<Transaction> accepted = new ArrayList<>(transactions.size());
+            for (int i = 0; i < transactions.size(); i++) {
+                Transaction transaction = transactions.get(i);
+                try {
+                    checkFunds(transaction);
+                } catch (TransactionException e) {
+                    rejected.accept(e.getMessage(), i);
+                    continue;
+                }
+                balanceLedger.apply(transaction);
+                accepted.add(transaction);
+            }
+            if (accepted.isEmpty()) {
+                return List.of();
+            }
+            try {
+                return write.apply(accepted);
+            } catch (RuntimeException e) {
+                accepted.forEach(transaction -> balanceLedger.revert(BalanceLedger.Effect.of(transaction)));
+                throw e;
+            }
+        }, accounts);
+    }
+    
+    /**
+     * Apply changes to a stored transaction, store it and move its balance effect from the old
+     * accounts to the new ones. The old effect is read and the changes are applied under the locks
+     * of both, so a concurrent settle, cancel or delete never sees a half-updated transaction.
+     * The accounts it moves to must be given up front; if a concurrent update moved it to other
+     * accounts before the locks were taken, they are taken again. The changes are undone if the
+     * write fails.
+     */
+    public <T> T update(Transaction existing, String accountNumber, String recipientAccount,
+                        Consumer<Transaction> changes, Supplier<T> write) {
+        while (true) {
+            BalanceLedger.Effect seen = BalanceLedger.Effect.of(existing);
+            Object result = guarded(() -> {
+                BalanceLedger.Effect before = BalanceLedger.Effect.of(existing);
+                if (singleWriter == null && !sameAccounts(before, seen)) {
+                    return RETRY;
+                }
+                String description = existing.getDescription();
+                LocalDateTime timestamp = existing.getTimestamp();
+                changes.accept(existing);
+                T written;
+                try {
+                    written = write.get();
+                } catch (RuntimeException e) {
+                    restore(existing, before, description, timestamp);
+                    throw e;
+                }
+                if (holdsBalance(existing)) {
+                    balanceLedger.replace(before, existing);
+                }
+                recordFunds(existing);
+                return written;
+            }, seen.accountNumber(), recipientOf(seen), accountNumber, recipientAccount);
+            if (result != RETRY) {
+                @SuppressWarnings("unchecked")
+                T written = (T) result;
+                return written;
+            }
+        }
+    }
+    
+    /**
+     * Delete a transaction and undo its balance effect if the delete succeeded
+     */
+    public boolean delete(Transaction existing, BooleanSupplier delete) {
+        return guarded(() -> {
+            boolean deleted = delete.getAsBoolean();
+            if (deleted && holdsBalance(existing)) {
+                balanceLedger.revert(BalanceLedger.Effect.of(existing));
+            }
+            if (deleted) {
+                unfunded.remove(existing.getId());
+            }
+            return deleted;
+        }, existing.getAccountNumber(), recipientOf(existing));
+    }
+    
+    /**
+     * Settle a pending transaction and store its new status. It fails, and its balance effect is
+     * reverted, when overdraft is not allowed and its last update took it beyond the funds of its
+     * account; otherwise it completes. Creation never leaves a debit unfunded, as it is rejected instead.
+     * Returns the new status, or null if the transaction is no longer pending.
+     */
+    public String settle(Transaction transaction, Runnable write) {
+        return guarded(() -> {
+            if (!"PENDING".equals(transaction.getStatus())) {
+                return null;
+            }
+            String status = unfunded.remove(transaction.getId()) ? "FAILED" : "COMPLETED";
+            if ("FAILED".equals(status)) {
+                balanceLedger.revert(BalanceLedger.Effect.of(transaction));
+            }
+            transaction.setStatus(status);
+            write.run();
+            return status;
+        }, transaction.getAccountNumber(), recipientOf(transaction));
+    }
+    
+    /**
+     * Cancel a pending transaction, store it and revert its balance effect.
+     * Returns false if the transaction is no longer pending.
+     */
+    public boolean cancel(Transaction transaction, Runnable write) {
+        return guarded(() -> {
+            if (!"PENDING".equals(transaction.getStatus())) {
+                return false;
+            }
+            balanceLedger.revert(BalanceLedger.Effect.of(transaction));
+            unfunded.remove(transaction.getId());
+            transaction.setStatus("CANCELLED");
+            write.run();
+            return true;
+        }, transaction.getAccountNumber(), recipientOf(transaction));
+    }
+    
+    public int getStripeCount() {
+        return stripes.length;
+    }
+    
+    public boolean isAllowOverdraft() {
+        return allowOverdraft;
+    }
+    
+    public long getInsufficientFundsCount() {
+        return insufficientFundsCount.get();
+    }
+    
+    private void checkFunds(Transaction transaction) {
+        String type = transaction.getTransactionType();
+        if (allowOverdraft || !("WITHDRAWAL".equals(type) || "TRANSFER".equals(type))) {
+            return;
+        }
+        BigDecimal balance = balanceLedger.getBalance(transaction.getAccountNumber()).getBalance();
+        if (balance.compareTo(transaction.getAmount()) < 0) {
+            insufficientFundsCount.incrementAndGet();
+            throw new TransactionException("Insufficient funds in account " + transaction.getAccountNumber()
+                    + ": balance " + balance + ", requested " + transaction.getAmount(), "INSUFFICIENT_FUNDS");
+        }
+    }
+    
+    /**
+     * Record whether a just applied pending debit fits the funds of its account, the same check
+     * creation makes before applying it: the balance it left may not be negative
+     */
+    private void recordFunds(Transaction transaction) {
+        String type = transaction.getTransactionType();
+        if (allowOverdraft || !"PENDING".equals(transaction.getStatus())
+                || !("WITHDRAWAL".equals(type) || "TRANSFER".equals(type))
+                || balanceLedger.getBalance(transaction.getAccountNumber()).getBalance().signum() >= 0) {
+            unfunded.remove(transaction.getId());
+        } else {
+            unfunded.add(transaction.getId());
+        }
+    }
+    
+    /**
+     * Failed and cancelled transactions have had their balance effect reverted
+     */
+    private static boolean holdsBalance(Transaction transaction) {
+        return !"FAILED".equals(transaction.getStatus()) && !"CANCELLED".equals(transaction.getStatus());
+    }
+    
+    /**
+     * Run the action on the single writer when there is one, otherwise under the accounts' stripes
+     */
+    private <T> T guarded(Supplier<T> action, String... accounts) {
+        if (singleWriter != null) {
+            return singleWriter.execute(action);
+        }
+        int[] locked = lock(accounts);
+        try {
+            return action.get();
+        } finally {
+            unlock(locked);
+        }
+    }
+    
+    private static String recipientOf(Transaction transaction) {
+        return "TRANSFER".equals(transaction.getTransactionType()) ? transaction.getRecipientAccount() : null;
+    }
+    
+    private static String recipientOf(BalanceLedger.Effect effect) {
+        return "TRANSFER".equals(effect.transactionType()) ? effect.recipientAccount() : null;
+    }
+    
+    /**
+     * Whether two effects touch the same accounts, and so are guarded by the same stripes
+     */
+    private static boolean sameAccounts(BalanceLedger.Effect a, BalanceLedger.Effect b) {
+        return Objects.equals(a.accountNumber(), b.accountNumber()) && Objects.equals(recipientOf(a), recipientOf(b));
+    }
+    
+    private static void restore(Transaction transaction, BalanceLedger.Effect effect, String description,
+                                LocalDateTime timestamp) {
+        transaction.setAccountNumber(effect.accountNumber());
+        transaction.setTransactionType(effect.transactionType());
+        transaction.setAmount(effect.amount());
+        transaction.setRecipientAccount(effect.recipientAccount());
+        transaction.setDescription(description);
+        transaction.setTimestamp(timestamp);
+    }
+    
+    /**
+     * Lock the distinct stripes of the accounts in ascending order and return them
+     */
+    private int[] lock(String... accounts) {
+        int[] indexes = new int[accounts.length];
+        int count = 0;
+        for (String account : accounts) {
+            if (account != null) {
+                indexes[count++] = stripeOf(account);
+            }
+        }
+        int[] ordered = Arrays.stream(indexes, 0, count).sorted().distinct().toArray();
+        for (int i = 0; i < ordered.length; i++) {
+            stripes[ordered[i]].lock();
+        }
+        return ordered;
+    }
+    
+    private void unlock(int[] locked) {
+        for (int i = locked.length - 1; i >= 0; i--) {
+            stripes[locked[i]].unlock();
+        }
+    }
+    
+    private int stripeOf(String account) {
+        int hash = account.hashCode();
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+}
\ No newline at end of file
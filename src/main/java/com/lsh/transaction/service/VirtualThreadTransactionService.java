@@ -1,6 +1,8 @@
 package com.lsh.transaction.service;
 
+import com.lsh.transaction.model.BatchCreateResult;
 import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.model.TransactionFilter;
 import com.lsh.transaction.model.TransactionRequest;
 import com.lsh.transaction.model.PaginatedResponse;
 
@@ -9,58 +11,68 @@ import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 public interface VirtualThreadTransactionService {
-
+    
     /**
      * Create transaction using virtual threads for better I/O performance
      */
     CompletableFuture<Transaction> createTransactionAsync(TransactionRequest request);
-
+    
     /**
-     * Batch create transactions using virtual threads
+     * Create transaction at most once per idempotency key; retries get the original transaction
      */
-    CompletableFuture<List<Transaction>> createTransactionsBatchAsync(List<TransactionRequest> requests);
-
+    CompletableFuture<Transaction> createTransactionAsync(TransactionRequest request, String idempotencyKey);
+    
+    /**
+     * Batch create transactions with a single bulk write, returning a result per item
+     */
+    CompletableFuture<BatchCreateResult> createTransactionsBatchAsync(List<TransactionRequest> requests);
+    
     /**
      * Get transaction with virtual thread for cache/database operations
      */
     CompletableFuture<Transaction> getTransactionByIdAsync(UUID id);
-
+    
     /**
      * Get transaction statistics using CPU-intensive executor for calculations
      */
     CompletableFuture<TransactionStatistics> getTransactionStatisticsAsync();
-
+    
     /**
      * Search transactions with virtual threads for parallel processing
      */
     CompletableFuture<List<Transaction>> searchTransactionsAsync(
             String accountNumber, String type, int page, int size);
-
+    
+    /**
+     * Search transactions matching a composite filter, newest first
+     */
+    CompletableFuture<List<Transaction>> searchTransactionsAsync(TransactionFilter filter, int page, int size);
+    
     /**
      * Get all transactions with pagination using virtual threads
      */
     CompletableFuture<PaginatedResponse<Transaction>> getAllTransactionsAsync(int page, int size);
-
+    
     /**
      * Get transactions by account number with pagination using virtual threads
      */
     CompletableFuture<PaginatedResponse<Transaction>> getTransactionsByAccountAsync(String accountNumber, int page, int size);
-
+    
     /**
      * Get transactions by type with pagination using virtual threads
      */
     CompletableFuture<PaginatedResponse<Transaction>> getTransactionsByTypeAsync(String transactionType, int page, int size);
-
+    
     /**
      * Update transaction using virtual threads
      */
     CompletableFuture<Transaction> updateTransactionAsync(UUID id, TransactionRequest request);
-
+    
     /**
      * Delete transaction using virtual threads
      */
     CompletableFuture<Boolean> deleteTransactionAsync(UUID id);
-
+    
     /**
      * Simple statistics class
      */
@@ -68,13 +80,13 @@ public interface VirtualThreadTransactionService {
         private final int totalTransactions;
         private final double totalAmount;
         private final double averageAmount;
-
+        
         public TransactionStatistics(int totalTransactions, double totalAmount, double averageAmount) {
             this.totalTransactions = totalTransactions;
             this.totalAmount = totalAmount;
             this.averageAmount = averageAmount;
         }
-
+        
         // Getters
         public int getTotalTransactions() { return totalTransactions; }
         public double getTotalAmount() { return totalAmount; }
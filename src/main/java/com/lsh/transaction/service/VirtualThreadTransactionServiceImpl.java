@@ -1,101 +1,139 @@
 package com.lsh.transaction.service;
 
+import com.lsh.transaction.annotation.Bulkhead;
+import com.lsh.transaction.deadline.RequestDeadline;
+import com.lsh.transaction.exception.DeadlineExceededException;
 import com.lsh.transaction.exception.ResourceNotFoundException;
 import com.lsh.transaction.exception.TransactionException;
+import com.lsh.transaction.idempotency.IdempotencyStore;
+import com.lsh.transaction.model.BatchCreateResult;
 import com.lsh.transaction.model.PaginatedResponse;
 import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.model.TransactionFilter;
 import com.lsh.transaction.model.TransactionRequest;
 import com.lsh.transaction.repository.TransactionRepository;
+import com.lsh.transaction.settlement.PendingQueue;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 @Service
 @Slf4j
 public class VirtualThreadTransactionServiceImpl implements VirtualThreadTransactionService {
     
+    private static final int CHECKPOINT_INTERVAL = 4096;
+    
     private final TransactionRepository transactionRepository;
     private final CacheService cacheService;
+    private final TransactionService transactionService;
+    private final IdempotencyStore idempotencyStore;
+    private final TransferExecutor transferExecutor;
+    private final PendingQueue pendingQueue;
     private final ExecutorService virtualThreadExecutor;
     
-    public VirtualThreadTransactionServiceImpl(TransactionRepository transactionRepository, CacheService cacheService) {
+    public VirtualThreadTransactionServiceImpl(TransactionRepository transactionRepository, CacheService cacheService,
+                                               TransactionService transactionService, IdempotencyStore idempotencyStore,
+                                               TransferExecutor transferExecutor, PendingQueue pendingQueue) {
         this.transactionRepository = transactionRepository;
         this.cacheService = cacheService;
+        this.transactionService = transactionService;
+        this.idempotencyStore = idempotencyStore;
+        this.transferExecutor = transferExecutor;
+        this.pendingQueue = pendingQueue;
         this.virtualThreadExecutor = Executors.newVirtualThreadPerTaskExecutor();
         log.info("VirtualThreadTransactionServiceImpl initialized");
     }
     
     @Override
     public CompletableFuture<Transaction> createTransactionAsync(TransactionRequest request) {
-        return CompletableFuture.supplyAsync(() -> {
-            Transaction transaction = new Transaction();
-            transaction.setAccountNumber(request.getAccountNumber());
-            transaction.setTransactionType(request.getTransactionType());
-            transaction.setAmount(request.getAmount());
-            transaction.setDescription(request.getDescription());
-            return transactionRepository.save(transaction);
-        }, virtualThreadExecutor);
+        return supplyAsync(() -> create(request));
     }
     
     @Override
-    public CompletableFuture<List<Transaction>> createTransactionsBatchAsync(List<TransactionRequest> requests) {
-        List<CompletableFuture<Transaction>> futures = requests.stream()
-                .map(this::createTransactionAsync)
-                .toList();
-        
-        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-                .thenApply(v -> futures.stream()
-                        .map(CompletableFuture::join)
-                        .toList());
+    public CompletableFuture<Transaction> createTransactionAsync(TransactionRequest request, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return createTransactionAsync(request);
+        }
+        // The key follows the write itself; only the caller's view is cut off by the deadline
+        RequestDeadline deadline = RequestDeadline.current();
+        CompletableFuture<Transaction> result = idempotencyStore.executeAsync(request.getAccountNumber(), idempotencyKey, request,
+                () -> CompletableFuture.supplyAsync(RequestDeadline.propagate(() -> create(request)), virtualThreadExecutor));
+        return deadline != null ? withDeadline(result, deadline) : result;
+    }
+    
+    private Transaction create(TransactionRequest request) {
+        Transaction transaction = new Transaction();
+        transaction.setAccountNumber(request.getAccountNumber());
+        transaction.setTransactionType(request.getTransactionType());
+        transaction.setAmount(request.getAmount());
+        transaction.setDescription(request.getDescription());
+        transaction.setRecipientAccount(request.getRecipientAccount());
+        Transaction savedTransaction = transferExecutor.create(transaction, () -> transactionRepository.save(transaction));
+        pendingQueue.add(savedTransaction);
+        return savedTransaction;
+    }
+    
+    @Override
+    public CompletableFuture<BatchCreateResult> createTransactionsBatchAsync(List<TransactionRequest> requests) {
+        // One task for the whole batch: validation, the bulk write and cache invalidation are shared with v1
+        return supplyAsync(() -> transactionService.createTransactions(requests));
     }
     
     @Override
     public CompletableFuture<Transaction> getTransactionByIdAsync(UUID id) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             return cacheService.getWithNullProtection(
-                "transactions", 
-                id.toString(), 
+                "transactions",
+                id.toString(),
                 () -> transactionRepository.findById(id).orElse(null)
             );
-        }, virtualThreadExecutor);
+        });
     }
     
     @Override
     public CompletableFuture<PaginatedResponse<Transaction>> getAllTransactionsAsync(int page, int size) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             List<Transaction> transactions = transactionRepository.findAll(page, size);
+            RequestDeadline.checkpoint();
             long total = transactionRepository.count();
             return PaginatedResponse.of(transactions, page, size, total);
-        }, virtualThreadExecutor);
+        });
     }
     
     @Override
     public CompletableFuture<PaginatedResponse<Transaction>> getTransactionsByAccountAsync(String accountNumber, int page, int size) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             List<Transaction> transactions = transactionRepository.findByAccountNumber(accountNumber, page, size);
+            RequestDeadline.checkpoint();
             long total = transactionRepository.countByAccountNumber(accountNumber);
             return PaginatedResponse.of(transactions, page, size, total);
-        }, virtualThreadExecutor);
+        });
     }
     
     @Override
     public CompletableFuture<PaginatedResponse<Transaction>> getTransactionsByTypeAsync(String transactionType, int page, int size) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             List<Transaction> transactions = transactionRepository.findByTransactionType(transactionType, page, size);
+            RequestDeadline.checkpoint();
             long total = transactionRepository.countByTransactionType(transactionType);
             return PaginatedResponse.of(transactions, page, size, total);
-        }, virtualThreadExecutor);
+        });
     }
     
     @Override
     public CompletableFuture<Transaction> updateTransactionAsync(UUID id, TransactionRequest request) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyAsync(() -> {
             // Check if transaction exists first
             Transaction existingTransaction = getTransactionByIdAsync(id).join();
             if (existingTransaction == null) {
@@ -105,50 +143,111 @@ public class VirtualThreadTransactionServiceImpl implements VirtualThreadTransac
             // Validate business rules
             validateTransactionRequest(request);
             
-            // Update transaction fields
-            existingTransaction.setAccountNumber(request.getAccountNumber());
-            existingTransaction.setTransactionType(request.getTransactionType());
-            existingTransaction.setAmount(request.getAmount());
-            existingTransaction.setDescription(request.getDescription());
-            existingTransaction.setRecipientAccount(request.getRecipientAccount());
-            
-            // Update timestamp
-            existingTransaction.setTimestamp(java.time.LocalDateTime.now());
+            // Archived transactions are read-only: reject them before touching the possibly cached copy
+            if (transactionRepository.isReadOnly(id)) {
+                throw new TransactionException("Transaction " + id + " is archived and read-only", "TRANSACTION_ARCHIVED");
+            }
             
-            return transactionRepository.update(existingTransaction);
-        }, virtualThreadExecutor);
+            // Apply the new fields, save and move the balance effect under the locks of the old and new accounts
+            try {
+                return transferExecutor.update(existingTransaction,
+                        request.getAccountNumber(), request.getRecipientAccount(), transaction -> applyRequest(transaction, request),
+                        () -> transactionRepository.update(existingTransaction));
+            } catch (RuntimeException e) {
+                // Drop the cached copy so the next read sees the stored transaction
+                cacheService.conditionalEvict("transactions", id.toString(), true);
+                throw e;
+            }
+        });
     }
     
     @Override
     public CompletableFuture<Boolean> deleteTransactionAsync(UUID id) {
-        return CompletableFuture.supplyAsync(() -> {
-            return transactionRepository.deleteById(id);
-        }, virtualThreadExecutor);
+        return supplyAsync(() -> {
+            Transaction existingTransaction = transactionRepository.findById(id).orElse(null);
+            return existingTransaction != null
+                    && transferExecutor.delete(existingTransaction, () -> transactionRepository.deleteById(id));
+        });
     }
     
     @Override
+    @Bulkhead(name = "transactionStatistics", maxConcurrentCalls = 4, maxWaitDuration = 500, message = "Too many statistics requests in progress. Please try again later.")
     public CompletableFuture<TransactionStatistics> getTransactionStatisticsAsync() {
-        return CompletableFuture.supplyAsync(() -> {
-            List<Transaction> allTransactions = transactionRepository.getAllTransactions();
-            int totalTransactions = allTransactions.size();
-            double totalAmount = allTransactions.stream()
-                    .mapToDouble(t -> t.getAmount().doubleValue())
-                    .sum();
+        return supplyAsync(() -> {
+            // Streamed, so archived transactions are decoded a block at a time instead of all at once
+            Iterator<Transaction> transactions = transactionRepository.streamAll().iterator();
+            int totalTransactions = 0;
+            double totalAmount = 0.0;
+            while (transactions.hasNext()) {
+                // Stop scanning once the caller has given up
+                if ((totalTransactions & (CHECKPOINT_INTERVAL - 1)) == 0) {
+                    RequestDeadline.checkpoint();
+                }
+                totalAmount += transactions.next().getAmount().doubleValue();
+                totalTransactions++;
+            }
             double averageAmount = totalTransactions > 0 ? totalAmount / totalTransactions : 0.0;
             return new TransactionStatistics(totalTransactions, totalAmount, averageAmount);
-        }, virtualThreadExecutor);
+        });
     }
     
     @Override
     public CompletableFuture<List<Transaction>> searchTransactionsAsync(String accountNumber, String type, int page, int size) {
-        return CompletableFuture.supplyAsync(() -> {
-            List<Transaction> transactions = transactionRepository.findByAccountNumber(accountNumber, page, size);
-            return transactions.stream().limit(size).toList();
-        }, virtualThreadExecutor);
+        TransactionFilter filter = new TransactionFilter();
+        filter.setAccountNumber(accountNumber);
+        filter.setTransactionType(type);
+        return searchTransactionsAsync(filter, page, size);
+    }
+    
+    @Override
+    public CompletableFuture<List<Transaction>> searchTransactionsAsync(TransactionFilter filter, int page, int size) {
+        if (page < 0 || size <= 0 || size > 1000) {
+            throw new TransactionException("Page must be non-negative and size between 1 and 1000", "INVALID_PAGINATION");
+        }
+        return supplyAsync(() -> transactionRepository.search(filter, page, size));
     }
     
     // Private helper methods with logging
     
+    /**
+     * Run a task on a virtual thread under the current request deadline.
+     * The future times out with the deadline, and the task sees the same deadline at its checkpoints.
+     */
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        RequestDeadline deadline = RequestDeadline.current();
+        if (deadline == null) {
+            return CompletableFuture.supplyAsync(task, virtualThreadExecutor);
+        }
+        long remainingNanos = deadline.remainingNanos();
+        if (remainingNanos <= 0) {
+            // Already expired while queued: do not start the work at all
+            return CompletableFuture.failedFuture(new DeadlineExceededException(
+                    "Request deadline of " + deadline.getTimeoutMillis() + "ms exceeded"));
+        }
+        
+        return withDeadline(CompletableFuture.supplyAsync(RequestDeadline.propagate(task), virtualThreadExecutor), deadline);
+    }
+    
+    /**
+     * Fail the caller's view of the work with the deadline.
+     * Only a copy times out; the work future itself still completes with the real outcome.
+     */
+    private <T> CompletableFuture<T> withDeadline(CompletableFuture<T> work, RequestDeadline deadline) {
+        return work.copy()
+                .orTimeout(Math.max(0, deadline.remainingNanos()), TimeUnit.NANOSECONDS)
+                .exceptionally(throwable -> {
+                    Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                    if (cause instanceof TimeoutException) {
+                        // Let the running task stop at its next checkpoint
+                        deadline.cancel();
+                        throw new DeadlineExceededException(
+                                "Request deadline of " + deadline.getTimeoutMillis() + "ms exceeded", cause);
+                    }
+                    throw throwable instanceof CompletionException completionException
+                            ? completionException : new CompletionException(throwable);
+                });
+    }
+    
     private void validateTransactionRequest(TransactionRequest request) {
         if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
             log.error("Invalid transaction amount: {}", request.getAmount());
@@ -165,7 +264,19 @@ public class VirtualThreadTransactionServiceImpl implements VirtualThreadTransac
             throw new TransactionException("Transaction type is required", "INVALID_TYPE");
         }
         
-        log.info("Transaction request validation passed - Account: {}, Amount: {}, Type: {}", 
+        log.info("Transaction request validation passed - Account: {}, Amount: {}, Type: {}",
                 request.getAccountNumber(), request.getAmount(), request.getTransactionType());
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Copy the fields of an update request onto a stored transaction
+     */
+    private static void applyRequest(Transaction transaction, TransactionRequest request) {
+        transaction.setAccountNumber(request.getAccountNumber());
+        transaction.setTransactionType(request.getTransactionType());
+        transaction.setAmount(request.getAmount());
+        transaction.setDescription(request.getDescription());
+        transaction.setRecipientAccount(request.getRecipientAccount());
+        transaction.setTimestamp(java.time.LocalDateTime.now());
+    }
+}
\ No newline at end of file
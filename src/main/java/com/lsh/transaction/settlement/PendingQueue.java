@@ -0,0 +1,72 @@
+package com.lsh.transaction.settlement;
+
+import com.lsh.transaction.model.Transaction;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FIFO queue of transactions waiting for settlement, fed by the create paths.
+ * It holds the transactions themselves, so the settlement pipeline takes its work from here
+ * and never scans the store. Entries whose transaction was cancelled or deleted meanwhile
+ * are dropped by the pipeline when they come up.
+ */
+@Component
+public class PendingQueue {
+    
+    private final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() walks the whole queue
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong enqueued = new AtomicLong();
+    
+    public void add(Transaction transaction) {
+        queue.add(new Entry(transaction, System.nanoTime()));
+        size.incrementAndGet();
+        enqueued.incrementAndGet();
+    }
+    
+    public void addAll(List<Transaction> transactions) {
+        long now = System.nanoTime();
+        for (Transaction transaction : transactions) {
+            queue.add(new Entry(transaction, now));
+        }
+        size.addAndGet(transactions.size());
+        enqueued.addAndGet(transactions.size());
+    }
+    
+    /**
+     * Remove and return up to maxEntries of the oldest entries
+     */
+    public List<Entry> poll(int maxEntries) {
+        List<Entry> batch = new ArrayList<>(Math.min(maxEntries, 1024));
+        Entry entry;
+        while (batch.size() < maxEntries && (entry = queue.poll()) != null) {
+            batch.add(entry);
+        }
+        size.addAndGet(-batch.size());
+        return batch;
+    }
+    
+    public long size() {
+        return size.get();
+    }
+    
+    public long getEnqueuedCount() {
+        return enqueued.get();
+    }
+    
+    /**
+     * How long the oldest queued transaction has been waiting, 0 when the queue is empty
+     */
+    public long getOldestAgeMillis() {
+        Entry oldest = queue.peek();
+        return oldest != null ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.enqueuedAt()) : 0;
+    }
+    
+    public record Entry(Transaction transaction, long enqueuedAt) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,165 @@
+package com.lsh.transaction.settlement;
+
+import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.repository.TransactionRepository;
+import com.lsh.transaction.service.TransferExecutor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Settles pending transactions in batches on a background thread.
+ * Each run drains the {@link PendingQueue} batch by batch until it is empty, so a burst of
+ * creates is worked off at once instead of one batch per interval. Every transaction is moved
+ * from PENDING to COMPLETED or FAILED through {@link TransferExecutor#settle}, under the
+ * locks of its accounts; transactions that are no longer pending are skipped, and ones that
+ * cannot be settled because of an error are queued again.
+ */
+@Component
+@Slf4j
+public class SettlementPipeline {
+    
+    private static final int MAX_BATCHES_PER_RUN = 1000;
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    
+    private final PendingQueue pendingQueue;
+    private final TransactionRepository transactionRepository;
+    private final TransferExecutor transferExecutor;
+    private final int batchSize;
+    private final long intervalMillis;
+    private final ScheduledExecutorService scheduler;
+    
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong totalLatencyMillis = new AtomicLong();
+    
+    // Settled-per-second over the last full window, updated by the settlement thread
+    private long windowStart = System.nanoTime();
+    private long windowSettled;
+    private volatile double settledPerSecond;
+    
+    public SettlementPipeline(PendingQueue pendingQueue, TransactionRepository transactionRepository,
+                              TransferExecutor transferExecutor,
+                              @Value("${app.settlement.enabled:true}") boolean enabled,
+                              @Value("${app.settlement.batch-size:500}") int batchSize,
+                              @Value("${app.settlement.interval-ms:10}") long intervalMillis) {
+        this.pendingQueue = pendingQueue;
+        this.transactionRepository = transactionRepository;
+        this.transferExecutor = transferExecutor;
+        this.batchSize = Math.max(1, batchSize);
+        this.intervalMillis = intervalMillis;
+        this.scheduler = enabled
+                ? Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("settlement").daemon().factory())
+                : null;
+        log.info("SettlementPipeline initialized - Enabled: {}, BatchSize: {}, Interval: {}ms",
+                enabled, this.batchSize, intervalMillis);
+    }
+    
+    /**
+     * Start draining the pending queue once the pipeline is fully constructed
+     */
+    @PostConstruct
+    public void start() {
+        if (scheduler != null) {
+            scheduler.scheduleWithFixedDelay(this::drain, intervalMillis, Math.max(1, intervalMillis),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Settle one batch from the pending queue and return how many transactions changed status
+     */
+    public int settleBatch() {
+        List<PendingQueue.Entry> batch = pendingQueue.poll(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int settled = 0;
+        long now = System.nanoTime();
+        for (PendingQueue.Entry entry : batch) {
+            Transaction transaction = entry.transaction();
+            String status;
+            try {
+                status = transactionRepository.existsById(transaction.getId())
+                        ? transferExecutor.settle(transaction, () -> transactionRepository.update(transaction))
+                        : null;
+            } catch (RuntimeException e) {
+                // Leave it pending and retry it in a later batch
+                log.error("Failed to settle transaction - ID: {}, Error: {}", transaction.getId(), e.getMessage(), e);
+                pendingQueue.add(transaction);
+                continue;
+            }
+            if (status == null) {
+                // Cancelled or deleted since it was queued
+                skipped.incrementAndGet();
+                continue;
+            }
+            ("COMPLETED".equals(status) ? completed : failed).incrementAndGet();
+            totalLatencyMillis.addAndGet(TimeUnit.NANOSECONDS.toMillis(now - entry.enqueuedAt()));
+            settled++;
+        }
+        batches.incrementAndGet();
+        return settled;
+    }
+    
+    public long getCompletedCount() {
+        return completed.get();
+    }
+    
+    public long getFailedCount() {
+        return failed.get();
+    }
+    
+    public long getSkippedCount() {
+        return skipped.get();
+    }
+    
+    public long getBatchCount() {
+        return batches.get();
+    }
+    
+    public double getSettledPerSecond() {
+        return settledPerSecond;
+    }
+    
+    /**
+     * Average time from queueing to settlement
+     */
+    public double getAverageLatencyMillis() {
+        long settled = completed.get() + failed.get();
+        return settled == 0 ? 0 : (double) totalLatencyMillis.get() / settled;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+    
+    private void drain() {
+        long before = completed.get() + failed.get();
+        long batchesBefore = batches.get();
+        // Bounded so transactions requeued after an error wait for the next run
+        while (pendingQueue.size() > 0 && batches.get() - batchesBefore < MAX_BATCHES_PER_RUN) {
+            settleBatch();
+        }
+        windowSettled += completed.get() + failed.get() - before;
+        long now = System.nanoTime();
+        if (now - windowStart >= RATE_WINDOW_NANOS) {
+            settledPerSecond = windowSettled * (double) RATE_WINDOW_NANOS / (now - windowStart);
+            windowStart = now;
+            windowSettled = 0;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.lsh.transaction.shedding;
+
+import com.lsh.transaction.annotation.Criticality;
+import com.lsh.transaction.interceptor.AdaptiveConcurrencyInterceptor;
+import com.lsh.transaction.limiter.AdaptiveConcurrencyLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Priority-aware load shedder.
+ * Queueing delay is estimated per endpoint group from its adaptive concurrency limiter as the
+ * latency in excess of the group's baseline, so a slow group does not shed traffic for the others.
+ * Each criticality level has its own delay threshold, so sheddable work is dropped first and
+ * critical work is never dropped by this layer.
+ */
+@Component
+public class LoadShedder {
+    
+    private final AdaptiveConcurrencyInterceptor adaptiveConcurrencyInterceptor;
+    private final long[] delayThresholdNanos = new long[Criticality.Level.values().length];
+    private final AtomicLongArray shedCounts = new AtomicLongArray(Criticality.Level.values().length);
+    
+    public LoadShedder(AdaptiveConcurrencyInterceptor adaptiveConcurrencyInterceptor,
+                       @Value("${app.load-shedding.default-delay-threshold-ms:200}") long defaultThresholdMillis,
+                       @Value("${app.load-shedding.sheddable-delay-threshold-ms:50}") long sheddableThresholdMillis) {
+        this.adaptiveConcurrencyInterceptor = adaptiveConcurrencyInterceptor;
+        delayThresholdNanos[Criticality.Level.CRITICAL.ordinal()] = Long.MAX_VALUE;
+        delayThresholdNanos[Criticality.Level.DEFAULT.ordinal()] = TimeUnit.MILLISECONDS.toNanos(defaultThresholdMillis);
+        delayThresholdNanos[Criticality.Level.SHEDDABLE.ordinal()] = TimeUnit.MILLISECONDS.toNanos(sheddableThresholdMillis);
+    }
+    
+    /**
+     * Check whether a request of the given level should be admitted at the group's current delay
+     */
+    public boolean admit(AdaptiveConcurrencyLimiter group, Criticality.Level level) {
+        if (group.getQueueingDelayNanos() < delayThresholdNanos[level.ordinal()]) {
+            return true;
+        }
+        shedCounts.incrementAndGet(level.ordinal());
+        return false;
+    }
+    
+    /**
+     * Check whether a request for the given handler should be admitted
+     */
+    public boolean admit(HandlerMethod handlerMethod, Criticality.Level level) {
+        return admit(adaptiveConcurrencyInterceptor.limiterFor(handlerMethod), level);
+    }
+    
+    /**
+     * Current queueing delay estimate, the worst across endpoint groups, for monitoring
+     */
+    public long getQueueingDelayNanos() {
+        long now = System.nanoTime();
+        long delay = 0;
+        for (AdaptiveConcurrencyLimiter limiter : adaptiveConcurrencyInterceptor.getLimiters()) {
+            delay = Math.max(delay, limiter.getQueueingDelayNanos(now));
+        }
+        return delay;
+    }
+    
+    public long getShedCount(Criticality.Level level) {
+        return shedCounts.get(level.ordinal());
+    }
+}
\ No newline at end of file
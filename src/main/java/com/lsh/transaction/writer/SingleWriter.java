@@ -0,0 +1,199 @@
+package com.lsh.transaction.writer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Single writer thread fed by a bounded multi-producer ring buffer.
+ * Producers claim a sequence number, fill the slot and publish it; the writer thread runs the
+ * commands strictly in sequence order, so every mutation it owns is applied one at a time and
+ * in a deterministic order without any lock. Callers wait for the command's result.
+ * On shutdown the command in progress finishes, and every command that has not started, or is
+ * issued afterwards, fails with an {@link IllegalStateException} instead of waiting forever.
+ * Active when app.repository.mode is single-writer.
+ */
+@Component
+@ConditionalOnProperty(name = "app.repository.mode", havingValue = "single-writer")
+@Slf4j
+public class SingleWriter {
+    
+    private static final int SPINS_BEFORE_PARK = 1000;
+    private static final long SHUTDOWN_WAIT_MILLIS = 5_000;
+    
+    private final int mask;
+    private final AtomicReferenceArray<Command<?>> slots;
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    // Last sequence the writer has finished; producers wait on it when the ring is full
+    private final AtomicLong applied = new AtomicLong(-1);
+    // Set once by start(), before any command is issued
+    private Thread writer;
+    private volatile boolean running = true;
+    
+    public SingleWriter(@Value("${app.repository.ring-size:65536}") int ringSize) {
+        int size = Integer.highestOneBit(Math.max(2, ringSize - 1)) << 1;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        log.info("SingleWriter initialized - Ring size: {}", size);
+    }
+    
+    /**
+     * Start the writer thread once the ring is fully constructed
+     */
+    @PostConstruct
+    public void start() {
+        this.writer = Thread.ofPlatform().name("single-writer").daemon().start(this::run);
+    }
+    
+    /**
+     * Run the command on the writer thread and return its result.
+     * Commands issued from the writer thread itself run inline.
+     */
+    public <T> T execute(Supplier<T> action) {
+        if (Thread.currentThread() == writer) {
+            return action.get();
+        }
+        if (!running) {
+            throw shutDown();
+        }
+        Command<T> command = new Command<>(action);
+        long sequence = claimed.incrementAndGet();
+        // Ring full: wait for the writer to free the slot this sequence wraps onto
+        while (sequence - applied.get() > mask + 1) {
+            if (!running) {
+                throw shutDown();
+            }
+            LockSupport.parkNanos(1_000);
+        }
+        int slot = (int) (sequence & mask);
+        slots.set(slot, command);
+        published.set(slot, sequence);
+        LockSupport.unpark(writer);
+        // Published after the writer drained the ring on its way out: nobody else will run it
+        if (!running) {
+            command.fail(shutDown());
+        }
+        try {
+            return command.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Sequence number of the last applied command, i.e. the position in the write order
+     */
+    public long getAppliedSequence() {
+        return applied.get();
+    }
+    
+    /**
+     * Commands claimed but not yet applied
+     */
+    public long getBacklog() {
+        return claimed.get() - applied.get();
+    }
+    
+    public int getRingSize() {
+        return mask + 1;
+    }
+    
+    public boolean isRunning() {
+        return running;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join(SHUTDOWN_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.info("SingleWriter stopped - Applied: {}, Backlog: {}", applied.get() + 1, getBacklog());
+    }
+    
+    private void run() {
+        long next = 0;
+        int idle = 0;
+        while (running) {
+            int slot = (int) (next & mask);
+            if (published.get(slot) != next) {
+                // Spin briefly for the next publish, then park until a producer or shutdown unparks us.
+                // Both unpark after their write, so the loop re-checks published and running on waking
+                if (++idle < SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.park(this);
+                }
+                continue;
+            }
+            idle = 0;
+            Command<?> command = slots.getAndSet(slot, null);
+            command.run();
+            applied.set(next++);
+        }
+        // Fail whatever was published but not run, so its producers stop waiting
+        for (int slot = 0; slot <= mask; slot++) {
+            Command<?> command = slots.getAndSet(slot, null);
+            if (command != null) {
+                command.fail(shutDown());
+            }
+        }
+    }
+    
+    private static IllegalStateException shutDown() {
+        return new IllegalStateException("SingleWriter is shut down");
+    }
+    
+    private static final class Command<T> {
+        private final Supplier<T> action;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        // Set by whichever of run and fail gets the command first, so a failed command never runs
+        private final AtomicBoolean taken = new AtomicBoolean();
+        
+        Command(Supplier<T> action) {
+            this.action = action;
+        }
+        
+        void run() {
+            if (!taken.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                result.complete(action.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }
+        
+        void fail(RuntimeException e) {
+            if (taken.compareAndSet(false, true)) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,124 @@
+package com.lsh.transaction;
+
+import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.model.TransactionRequest;
+import com.lsh.transaction.repository.TransactionRepository;
+import com.lsh.transaction.service.TransactionService;
+import com.lsh.transaction.service.VirtualThreadTransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "app.ledger.allow-overdraft=false")
+@ActiveProfiles("local")
+class TransferStressTest {
+    
+    private static final String[] ACCOUNTS = {
+            "TRANSFER0000000001", "TRANSFER0000000002", "TRANSFER0000000003", "TRANSFER0000000004"
+    };
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000.00");
+    
+    @Autowired
+    private TransactionService transactionService;
+    
+    @Autowired
+    private VirtualThreadTransactionService virtualThreadService;
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Test
+    void concurrentOpposingTransfers_ShouldNotDeadlockAndShouldConserveBalances() throws InterruptedException {
+        // Arrange
+        for (String account : ACCOUNTS) {
+            transactionService.createTransaction(new TransactionRequest(account, "DEPOSIT", OPENING_BALANCE, "Opening balance", null));
+        }
+        int numberOfThreads = 64;
+        int transfersPerThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        CountDownLatch latch = new CountDownLatch(numberOfThreads);
+        AtomicInteger successCount = new AtomicInteger(0);
+        AtomicInteger insufficientFundsCount = new AtomicInteger(0);
+        AtomicInteger failureCount = new AtomicInteger(0);
+        
+        long startTime = System.currentTimeMillis();
+        
+        // Act: every thread moves money back and forth over a handful of accounts, half through each service
+        for (int i = 0; i < numberOfThreads; i++) {
+            final int threadId = i;
+            executor.submit(() -> {
+                try {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int j = 0; j < transfersPerThread; j++) {
+                        int from = random.nextInt(ACCOUNTS.length);
+                        int to = (from + 1 + random.nextInt(ACCOUNTS.length - 1)) % ACCOUNTS.length;
+                        TransactionRequest request = new TransactionRequest(ACCOUNTS[from], "TRANSFER",
+                                BigDecimal.valueOf(random.nextInt(1, 20_000), 2), "Stress transfer " + j, ACCOUNTS[to]);
+                        try {
+                            if (threadId % 2 == 0) {
+                                transactionService.createTransaction(request);
+                            } else {
+                                virtualThreadService.createTransactionAsync(request).join();
+                            }
+                            successCount.incrementAndGet();
+                        } catch (Exception e) {
+                            if (String.valueOf(e.getMessage()).contains("Insufficient funds")) {
+                                insufficientFundsCount.incrementAndGet();
+                            } else {
+                                failureCount.incrementAndGet();
+                                System.err.println("Error in transfer thread " + threadId + ": " + e.getMessage());
+                            }
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        
+        // A lock ordering bug shows up as threads that never finish
+        boolean completed = latch.await(60, TimeUnit.SECONDS);
+        executor.shutdownNow();
+        
+        long totalTime = System.currentTimeMillis() - startTime;
+        
+        // Assert
+        System.out.println("Transfer Stress Test Results:");
+        System.out.println("Total time: " + totalTime + "ms");
+        System.out.println("Successful transfers: " + successCount.get());
+        System.out.println("Rejected for insufficient funds: " + insufficientFundsCount.get());
+        System.out.println("Failed transfers: " + failureCount.get());
+        
+        assertTrue(completed, "All transfer threads should finish; a timeout indicates a deadlock");
+        assertEquals(0, failureCount.get());
+        assertEquals(numberOfThreads * transfersPerThread, successCount.get() + insufficientFundsCount.get());
+        
+        // Balances must match a replay of the stored history, never go negative, and sum to the opening total
+        Map<String, BigDecimal> replayed = new HashMap<>();
+        for (Transaction transaction : transactionRepository.getAllTransactions()) {
+            if ("DEPOSIT".equals(transaction.getTransactionType())) {
+                replayed.merge(transaction.getAccountNumber(), transaction.getAmount(), BigDecimal::add);
+            } else if ("TRANSFER".equals(transaction.getTransactionType())) {
+                replayed.merge(transaction.getAccountNumber(), transaction.getAmount().negate(), BigDecimal::add);
+                replayed.merge(transaction.getRecipientAccount(), transaction.getAmount(), BigDecimal::add);
+            }
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        for (String account : ACCOUNTS) {
+            BigDecimal balance = transactionService.getAccountBalance(account).getBalance();
+            assertTrue(balance.signum() >= 0, "Balance of " + account + " went negative: " + balance);
+            assertEquals(0, replayed.get(account).compareTo(balance), "Ledger and history disagree for " + account);
+            total = total.add(balance);
+        }
+        assertEquals(0, OPENING_BALANCE.multiply(BigDecimal.valueOf(ACCOUNTS.length)).compareTo(total));
+    }
+}
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.lsh.transaction;
 
+import com.lsh.transaction.model.BatchCreateResult;
 import com.lsh.transaction.model.TransactionRequest;
+import com.lsh.transaction.service.TransactionService;
 import com.lsh.transaction.service.VirtualThreadTransactionService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,6 +33,9 @@ class VirtualThreadPerformanceTest {
     @Autowired
     private VirtualThreadTransactionService virtualThreadService;
 
+    @Autowired
+    private TransactionService transactionService;
+
     @Test
     void virtualThreadVsPlatformThread_PerformanceComparison() throws InterruptedException, ExecutionException, TimeoutException {
         System.out.println("=== Virtual Thread vs Platform Thread Performance Test ===");
@@ -38,12 +43,14 @@ class VirtualThreadPerformanceTest {
         int numberOfRequests = 1000;
         List<TransactionRequest> requests = createTestRequests(numberOfRequests);
         
-        // Test with Virtual Threads
+        // Warm up both paths so neither timing includes class loading and JIT compilation
+        createTransactionsWithVirtualThreads(createTestRequests(numberOfRequests));
+        createTransactionsWithPlatformThreads(createTestRequests(numberOfRequests));
+        
+        // Both sides run the same per-request I/O wait and create through the service; only the thread type differs
         long virtualThreadStart = System.currentTimeMillis();
-        CompletableFuture<List<com.lsh.transaction.model.Transaction>> virtualThreadFuture = 
-            virtualThreadService.createTransactionsBatchAsync(requests);
         List<com.lsh.transaction.model.Transaction> virtualThreadResults = 
-            virtualThreadFuture.get(30, TimeUnit.SECONDS);
+            createTransactionsWithVirtualThreads(requests);
         long virtualThreadEnd = System.currentTimeMillis();
         long virtualThreadTime = virtualThreadEnd - virtualThreadStart;
         
@@ -76,7 +83,7 @@ class VirtualThreadPerformanceTest {
         assertTrue(virtualThreadTime <= platformThreadTime * 1.2, 
             "Virtual threads should not be significantly slower than platform threads");
     }
-
+    
     @Test
     void virtualThread_ConcurrentReadOperations() throws InterruptedException, ExecutionException, TimeoutException {
         System.out.println("=== Virtual Thread Concurrent Read Test ===");
@@ -130,13 +137,15 @@ class VirtualThreadPerformanceTest {
     void virtualThread_MemoryEfficiency() {
         System.out.println("=== Virtual Thread Memory Efficiency Test ===");
         
-        // Get initial memory usage
+        // Get initial memory usage, without the garbage earlier tests in this JVM left behind
         Runtime runtime = Runtime.getRuntime();
+        System.gc();
         long initialMemory = runtime.totalMemory() - runtime.freeMemory();
         
         // Create many virtual threads
         int numberOfThreads = 10000;
         List<CompletableFuture<String>> futures = new ArrayList<>();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
         
         for (int i = 0; i < numberOfThreads; i++) {
             final int threadId = i;
@@ -149,15 +158,17 @@ class VirtualThreadPerformanceTest {
                     Thread.currentThread().interrupt();
                     return "Thread " + threadId + " interrupted";
                 }
-            });
+            }, executor);
             futures.add(future);
         }
         
         // Wait for all to complete
         CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
             .join();
+        executor.close();
         
-        // Get final memory usage
+        // Get final memory usage once the garbage of the run itself is collected
+        System.gc();
         long finalMemory = runtime.totalMemory() - runtime.freeMemory();
         long memoryUsed = finalMemory - initialMemory;
         
@@ -171,6 +182,18 @@ class VirtualThreadPerformanceTest {
             "Virtual threads should use less than 1KB per thread on average");
     }
 
+    @Test
+    void virtualThread_BatchCreate_ShouldCreateEveryRequest() throws InterruptedException, ExecutionException, TimeoutException {
+        // Arrange
+        List<TransactionRequest> requests = createTestRequests(1000);
+        
+        // Act
+        BatchCreateResult result = virtualThreadService.createTransactionsBatchAsync(requests).get(30, TimeUnit.SECONDS);
+        
+        // Assert
+        assertEquals(requests.size(), result.getCreated());
+    }
+
     private List<TransactionRequest> createTestRequests(int count) {
         List<TransactionRequest> requests = new ArrayList<>();
         for (int i = 0; i < count; i++) {
@@ -185,43 +208,47 @@ class VirtualThreadPerformanceTest {
         return requests;
     }
 
+    private List<com.lsh.transaction.model.Transaction> createTransactionsWithVirtualThreads(
+            List<TransactionRequest> requests) throws InterruptedException, ExecutionException, TimeoutException {
+        
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            return createTransactions(requests, executor);
+        }
+    }
+
     private List<com.lsh.transaction.model.Transaction> createTransactionsWithPlatformThreads(
             List<TransactionRequest> requests) throws InterruptedException, ExecutionException, TimeoutException {
         
         ExecutorService executor = Executors.newFixedThreadPool(50);
-        List<CompletableFuture<com.lsh.transaction.model.Transaction>> futures = new ArrayList<>();
+        try {
+            return createTransactions(requests, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private List<com.lsh.transaction.model.Transaction> createTransactions(
+            List<TransactionRequest> requests, ExecutorService executor)
+            throws InterruptedException, ExecutionException, TimeoutException {
         
+        List<CompletableFuture<com.lsh.transaction.model.Transaction>> futures = new ArrayList<>();
         for (TransactionRequest request : requests) {
-            CompletableFuture<com.lsh.transaction.model.Transaction> future = 
-                CompletableFuture.supplyAsync(() -> {
-                    try {
-                        // Simulate the same work as virtual thread version
-                        Thread.sleep(10);
-                        
-                        com.lsh.transaction.model.Transaction transaction = 
-                            new com.lsh.transaction.model.Transaction();
-                        transaction.setId(java.util.UUID.randomUUID());
-                        transaction.setAccountNumber(request.getAccountNumber());
-                        transaction.setTransactionType(request.getTransactionType());
-                        transaction.setAmount(request.getAmount());
-                        transaction.setDescription(request.getDescription());
-                        transaction.setTimestamp(java.time.LocalDateTime.now());
-                        
-                        return transaction;
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        throw new RuntimeException("Transaction creation interrupted", e);
-                    }
-                }, executor);
-            
-            futures.add(future);
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    // Simulate the downstream I/O a request waits on before it is stored
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Transaction creation interrupted", e);
+                }
+                return transactionService.createTransaction(request);
+            }, executor));
         }
         
         CompletableFuture<Void> allFutures = CompletableFuture.allOf(
             futures.toArray(new CompletableFuture[0]));
         
         allFutures.get(30, TimeUnit.SECONDS);
-        executor.shutdown();
         
         return futures.stream()
             .map(CompletableFuture::join)
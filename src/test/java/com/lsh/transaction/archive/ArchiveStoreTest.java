@@ -0,0 +1,101 @@
+package com.lsh.transaction.archive;
+
+import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.model.TransactionFilter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchiveStoreTest {
+    
+    @TempDir
+    Path archiveDir;
+    
+    @Test
+    void findById_ManySegments_ShouldFindArchivedIdsAndSkipOthers() throws IOException {
+        // Arrange
+        ArchiveStore archiveStore = new ArchiveStore(archiveDir.toString());
+        LocalDateTime old = LocalDateTime.now().minusDays(40);
+        List<Transaction> archived = new ArrayList<>();
+        for (int s = 0; s < 5; s++) {
+            List<Transaction> segment = transactions(old.plusHours(s), 500);
+            archiveStore.write(segment);
+            archived.addAll(segment);
+        }
+        
+        // Act & Assert
+        for (Transaction transaction : archived) {
+            assertEquals(transaction.getId(), archiveStore.findById(transaction.getId()).orElseThrow().getId());
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(archiveStore.findById(UUID.randomUUID()).isEmpty());
+        }
+    }
+    
+    @Test
+    void count_ByAccount_ShouldUseAccountIndex() throws IOException {
+        // Arrange
+        ArchiveStore archiveStore = new ArchiveStore(archiveDir.toString());
+        LocalDateTime old = LocalDateTime.now().minusDays(40);
+        archiveStore.write(transactions(old, 500));
+        archiveStore.write(transactions(old.plusHours(1), 301));
+        
+        // Act & Assert
+        assertEquals(167 + 101, archiveStore.count(TransactionFilter.byAccount("ACCOUNT000000")));
+        assertEquals(167 + 100, archiveStore.count(TransactionFilter.byAccount("ACCOUNT000001")));
+        assertEquals(0, archiveStore.count(TransactionFilter.byAccount("ACCOUNT000009")));
+    }
+    
+    @Test
+    void search_Paged_ShouldReturnMatchesNewestFirstAcrossSegments() throws IOException {
+        // Arrange
+        ArchiveStore archiveStore = new ArchiveStore(archiveDir.toString());
+        LocalDateTime old = LocalDateTime.now().minusDays(40);
+        List<Transaction> archived = new ArrayList<>();
+        for (int s = 0; s < 3; s++) {
+            List<Transaction> segment = transactions(old.plusHours(s), 700);
+            archiveStore.write(segment);
+            archived.addAll(segment);
+        }
+        TransactionFilter ranged = new TransactionFilter();
+        ranged.setAccountNumber("ACCOUNT000002");
+        ranged.setFrom(old.plusMinutes(70));
+        TransactionFilter amounts = new TransactionFilter();
+        amounts.setMinAmount(new BigDecimal("12.00"));
+        
+        // Act & Assert
+        for (TransactionFilter filter : List.of(new TransactionFilter(), TransactionFilter.byAccount("ACCOUNT000001"),
+                ranged, amounts)) {
+            List<UUID> expected = archived.stream().filter(filter::matches)
+                    .sorted(Comparator.comparing(Transaction::getTimestamp).reversed())
+                    .map(Transaction::getId).toList();
+            List<UUID> paged = new ArrayList<>();
+            for (int offset = 0; offset < expected.size(); offset += 90) {
+                archiveStore.search(filter, offset, 90).forEach(transaction -> paged.add(transaction.getId()));
+            }
+            assertEquals(expected, paged, filter.toString());
+        }
+    }
+    
+    private static List<Transaction> transactions(LocalDateTime start, int count) {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Transaction transaction = new Transaction("ACCOUNT00000" + (i % 3), "DEPOSIT",
+                    new BigDecimal("10.00").add(new BigDecimal("0.01").multiply(BigDecimal.valueOf(i))), "Archive test");
+            transaction.setTimestamp(start.plusSeconds(i));
+            transaction.setStatus("COMPLETED");
+            transactions.add(transaction);
+        }
+        return transactions;
+    }
+}
\ No newline at end of file
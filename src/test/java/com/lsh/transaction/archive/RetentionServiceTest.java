@@ -0,0 +1,103 @@
+package com.lsh.transaction.archive;
+
+import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.model.TransactionFilter;
+import com.lsh.transaction.repository.ShardedTransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetentionServiceTest {
+    
+    @TempDir
+    Path archiveDir;
+    
+    @Test
+    void archiveBefore_OldPartitions_ShouldMoveSettledTransactionsToQueryableArchive() {
+        // Arrange
+        ShardedTransactionRepository repository = new ShardedTransactionRepository(2, 60);
+        ArchiveStore archiveStore = new ArchiveStore(archiveDir.toString());
+        RetentionService retention = new RetentionService(repository, archiveStore, false, 30, 10, 1, 60);
+        LocalDateTime old = LocalDateTime.now().minusDays(40).truncatedTo(ChronoUnit.HOURS);
+        Transaction older = save(repository, "ACCOUNT000001", old.plusMinutes(5), "COMPLETED");
+        Transaction newer = save(repository, "ACCOUNT000001", old.plusMinutes(10), "FAILED");
+        Transaction otherAccount = save(repository, "ACCOUNT000002", old.plusHours(2), "COMPLETED");
+        Transaction pending = save(repository, "ACCOUNT000001", old.plusMinutes(20), "PENDING");
+        Transaction recent = save(repository, "ACCOUNT000001", LocalDateTime.now(), "COMPLETED");
+        
+        // Act
+        int archived = retention.archiveBefore(LocalDateTime.now().minusDays(30));
+        
+        // Assert: pending and recent transactions stay in memory, emptied partitions are dropped
+        assertEquals(3, archived);
+        assertEquals(2, repository.count());
+        assertTrue(repository.existsById(pending.getId()));
+        assertTrue(repository.existsById(recent.getId()));
+        assertFalse(repository.existsById(older.getId()));
+        assertFalse(repository.getTimePartitions().containsKey(old.plusHours(2)));
+        assertEquals(2, archiveStore.getSegmentCount());
+        
+        TransactionFilter byAccount = TransactionFilter.byAccount("ACCOUNT000001");
+        List<Transaction> account = archiveStore.search(byAccount, 0, 10);
+        assertEquals(2, archiveStore.count(byAccount));
+        assertEquals(newer.getId(), account.get(0).getId());
+        assertEquals(older.getId(), account.get(1).getId());
+        assertEquals(new BigDecimal("12.50"), account.get(0).getAmount());
+        
+        // Segments survive a restart
+        ArchiveStore reopened = new ArchiveStore(archiveDir.toString());
+        TransactionFilter range = new TransactionFilter();
+        range.setFrom(old.plusHours(1));
+        List<Transaction> page = reopened.search(range, 0, 10);
+        assertEquals(1, reopened.count(range));
+        assertEquals(otherAccount.getId(), page.get(0).getId());
+    }
+    
+    @Test
+    void archiveBefore_TransactionUpdatedWhileArchiving_ShouldKeepItInMemory() throws IOException {
+        // Arrange: one transaction is updated after its copy was taken, while the segment is written
+        ShardedTransactionRepository repository = new ShardedTransactionRepository(2, 60);
+        LocalDateTime old = LocalDateTime.now().minusDays(40).truncatedTo(ChronoUnit.HOURS);
+        Transaction updated = save(repository, "ACCOUNT000001", old.plusMinutes(5), "COMPLETED");
+        Transaction untouched = save(repository, "ACCOUNT000001", old.plusMinutes(10), "COMPLETED");
+        ArchiveStore archiveStore = new ArchiveStore(archiveDir.toString()) {
+            @Override
+            public Path write(List<Transaction> transactions) throws IOException {
+                updated.setDescription("Updated while archiving");
+                return super.write(transactions);
+            }
+        };
+        RetentionService retention = new RetentionService(repository, archiveStore, false, 30, 10, 1, 60);
+        
+        // Act
+        int archived = retention.archiveBefore(LocalDateTime.now().minusDays(30));
+        
+        // Assert
+        assertEquals(1, archived);
+        assertFalse(repository.existsById(untouched.getId()));
+        assertEquals("Updated while archiving", repository.findById(updated.getId()).orElseThrow().getDescription());
+    }
+    
+    @Test
+    void constructor_RetentionEnabledWithoutArchiveDirectory_ShouldFail() {
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> new ArchiveStore("", true));
+        assertEquals(0, new ArchiveStore("", false).getSegmentCount());
+    }
+    
+    private static Transaction save(ShardedTransactionRepository repository, String account, LocalDateTime timestamp,
+                                    String status) {
+        Transaction transaction = new Transaction(account, "DEPOSIT", new BigDecimal("12.50"), "Retention test");
+        transaction.setTimestamp(timestamp);
+        transaction.setStatus(status);
+        return repository.save(transaction);
+    }
+}
\ No newline at end of file
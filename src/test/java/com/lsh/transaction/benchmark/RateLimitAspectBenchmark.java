@@ -0,0 +1,90 @@
+package com.lsh.transaction.benchmark;
+
+import com.lsh.transaction.annotation.RateLimit;
+import com.lsh.transaction.aspect.RateLimitAspect;
+import com.lsh.transaction.limiter.MemoryRateLimiter;
+import com.lsh.transaction.model.TransactionRequest;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark measuring the per-request overhead of RateLimitAspect.
+ * Compares a direct call against calls through the proxied aspect with a static key
+ * and with a static key plus an account key extracted from the request.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *           -Dexec.mainClass=com.lsh.transaction.benchmark.RateLimitAspectBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimitAspectBenchmark {
+    
+    private Endpoint direct;
+    private Endpoint proxied;
+    private TransactionRequest request;
+    
+    @Setup
+    public void setUp() {
+        RateLimitAspect aspect = new RateLimitAspect();
+        ReflectionTestUtils.setField(aspect, "rateLimiter", new MemoryRateLimiter());
+        
+        direct = new Endpoint();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Endpoint());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        proxied = factory.getProxy();
+        
+        request = new TransactionRequest("ACCOUNT123456", "DEPOSIT", new BigDecimal("100.00"), "Benchmark", null);
+    }
+    
+    @Benchmark
+    public Object baseline() {
+        return direct.staticKey(request);
+    }
+    
+    @Benchmark
+    public Object staticKey() {
+        return proxied.staticKey(request);
+    }
+    
+    @Benchmark
+    public Object staticAndAccountKey() {
+        return proxied.staticAndAccountKey(request);
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RateLimitAspectBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+    
+    /**
+     * Target with the same annotation shapes used by TransactionController
+     */
+    public static class Endpoint {
+        
+        @RateLimit(limit = Integer.MAX_VALUE, window = 60, key = "bench:staticKey")
+        public TransactionRequest staticKey(TransactionRequest request) {
+            return request;
+        }
+        
+        @RateLimit(limit = Integer.MAX_VALUE, window = 60, key = "bench:staticAndAccountKey")
+        @RateLimit(limit = Integer.MAX_VALUE, window = 60, keyExpression = "#request.accountNumber")
+        public TransactionRequest staticAndAccountKey(TransactionRequest request) {
+            return request;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+package com.lsh.transaction.benchmark;
+
+import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.repository.ShardedTransactionRepository;
+import com.lsh.transaction.repository.SingleWriterTransactionRepository;
+import com.lsh.transaction.repository.TransactionRepository;
+import com.lsh.transaction.service.BalanceLedger;
+import com.lsh.transaction.service.TransferExecutor;
+import com.lsh.transaction.writer.SingleWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing the two repository modes under concurrent transfers.
+ * "concurrent" is the sharded repository with striped account locks in TransferExecutor;
+ * "single-writer" sends every transfer through the SingleWriter ring buffer.
+ * Fewer accounts means more transfers contend on the same account locks.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *           -Dexec.mainClass=com.lsh.transaction.benchmark.RepositoryModeBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class RepositoryModeBenchmark {
+    
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+    
+    @Param({"concurrent", "single-writer"})
+    private String mode;
+    
+    @Param({"8", "1024"})
+    private int accounts;
+    
+    private SingleWriter singleWriter;
+    private TransactionRepository repository;
+    private TransferExecutor transferExecutor;
+    private String[] accountNumbers;
+    
+    @Setup
+    public void setUp() {
+        BalanceLedger ledger = new BalanceLedger();
+        if ("single-writer".equals(mode)) {
+            singleWriter = new SingleWriter(65536);
+            singleWriter.start();
+            repository = new SingleWriterTransactionRepository(singleWriter, 60);
+            transferExecutor = new TransferExecutor(ledger, Optional.of(singleWriter), 1024, true);
+        } else {
+            repository = new ShardedTransactionRepository(0, 60);
+            transferExecutor = new TransferExecutor(ledger, Optional.empty(), 1024, true);
+        }
+        accountNumbers = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountNumbers[i] = String.format("ACCOUNT%06d", i);
+        }
+    }
+    
+    @TearDown(Level.Iteration)
+    public void clear() {
+        // Keep the store from growing across iterations
+        if (repository instanceof ShardedTransactionRepository sharded) {
+            sharded.clear();
+        } else if (repository instanceof SingleWriterTransactionRepository singleWriterRepository) {
+            singleWriterRepository.clear();
+        }
+    }
+    
+    @TearDown
+    public void tearDown() {
+        if (singleWriter != null) {
+            singleWriter.shutdown();
+        }
+    }
+    
+    @Benchmark
+    public Transaction transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(accounts);
+        int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+        Transaction transaction = new Transaction(accountNumbers[from], "TRANSFER", AMOUNT, "Benchmark");
+        transaction.setRecipientAccount(accountNumbers[to]);
+        return transferExecutor.create(transaction, () -> repository.save(transaction));
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RepositoryModeBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
\ No newline at end of file
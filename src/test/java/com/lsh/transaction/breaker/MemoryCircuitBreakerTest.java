@@ -0,0 +1,202 @@
+package com.lsh.transaction.breaker;
+
+import com.lsh.transaction.breaker.MemoryCircuitBreaker.CircuitBreakerState;
+import com.lsh.transaction.breaker.MemoryCircuitBreaker.Config;
+import com.lsh.transaction.breaker.MemoryCircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryCircuitBreakerTest {
+    
+    // 50% failures over at least 4 calls opens; half-open allows 3 probes
+    private static final Config LONG_WAIT = new Config(50.0, 4, 60, 60, 3, 1000, 100.0);
+    private static final Config NO_WAIT = new Config(50.0, 4, 60, 0, 3, 1000, 100.0);
+    
+    private final MemoryCircuitBreaker circuitBreaker = new MemoryCircuitBreaker();
+    
+    @Test
+    void recordFailure_BelowMinimumCalls_ShouldStayClosed() {
+        // Arrange
+        CircuitBreakerState breaker = circuitBreaker.breaker("payments", LONG_WAIT);
+        
+        // Act
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordFailure();
+        
+        // Assert
+        assertEquals(State.CLOSED, breaker.getCurrentState());
+        assertTrue(breaker.isAllowed());
+    }
+    
+    @Test
+    void recordFailure_FailureRateReached_ShouldOpenAndRejectDuringWait() {
+        // Arrange
+        CircuitBreakerState breaker = circuitBreaker.breaker("payments", LONG_WAIT);
+        breaker.recordSuccess();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        
+        // Act
+        breaker.recordFailure();
+        
+        // Assert
+        assertEquals(State.OPEN, breaker.getCurrentState());
+        assertEquals(50.0, breaker.getFailureRate(), 0.001);
+        assertFalse(breaker.isAllowed());
+        assertFalse(circuitBreaker.isAllowed("payments"));
+    }
+    
+    @Test
+    void recordSuccess_SlowCallsOverThreshold_ShouldOpen() {
+        // Arrange
+        CircuitBreakerState breaker = circuitBreaker.breaker("payments",
+                new Config(100.0, 2, 60, 60, 1, 10, 50.0));
+        
+        // Act
+        breaker.recordSuccess(TimeUnit.MILLISECONDS.toNanos(1));
+        breaker.recordSuccess(TimeUnit.MILLISECONDS.toNanos(20));
+        
+        // Assert
+        assertEquals(State.OPEN, breaker.getCurrentState());
+        assertEquals(50.0, breaker.getSlowCallRate(), 0.001);
+    }
+    
+    @Test
+    void isAllowed_WaitElapsed_ShouldMoveToHalfOpenAndBoundProbes() {
+        // Arrange
+        CircuitBreakerState breaker = opened(NO_WAIT);
+        
+        // Act
+        boolean first = breaker.isAllowed();
+        State afterFirst = breaker.getCurrentState();
+        boolean second = breaker.isAllowed();
+        boolean third = breaker.isAllowed();
+        boolean fourth = breaker.isAllowed();
+        
+        // Assert
+        assertTrue(first);
+        assertEquals(State.HALF_OPEN, afterFirst);
+        assertTrue(second);
+        assertTrue(third);
+        assertFalse(fourth);
+        assertEquals(0, breaker.getAvailableProbePermits());
+    }
+    
+    @Test
+    void isAllowed_ConcurrentCallersWhenHalfOpening_ShouldGrantExactlyPermittedProbes() throws Exception {
+        // Arrange
+        CircuitBreakerState breaker = opened(NO_WAIT);
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        
+        // Act
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return breaker.isAllowed();
+            }));
+        }
+        start.countDown();
+        int allowed = 0;
+        for (Future<Boolean> future : futures) {
+            if (future.get(5, TimeUnit.SECONDS)) {
+                allowed++;
+            }
+        }
+        executor.shutdown();
+        
+        // Assert
+        assertEquals(3, allowed);
+        assertEquals(State.HALF_OPEN, breaker.getCurrentState());
+    }
+    
+    @Test
+    void recordSuccess_AllProbesSucceed_ShouldClose() {
+        // Arrange
+        CircuitBreakerState breaker = opened(NO_WAIT);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.isAllowed());
+        }
+        
+        // Act
+        breaker.recordSuccess();
+        breaker.recordSuccess();
+        State beforeLastProbe = breaker.getCurrentState();
+        breaker.recordSuccess();
+        
+        // Assert
+        assertEquals(State.HALF_OPEN, beforeLastProbe);
+        assertEquals(State.CLOSED, breaker.getCurrentState());
+        assertEquals(0, breaker.getBufferedCalls());
+    }
+    
+    @Test
+    void recordFailure_ProbeFails_ShouldReopen() {
+        // Arrange
+        CircuitBreakerState breaker = opened(NO_WAIT);
+        assertTrue(breaker.isAllowed());
+        
+        // Act
+        breaker.recordFailure();
+        
+        // Assert
+        assertEquals(State.OPEN, breaker.getCurrentState());
+    }
+    
+    @Test
+    void recordSuccess_ProbeFromEarlierHalfOpenPeriod_ShouldNotCountTowardsCurrentOne() {
+        // Arrange
+        CircuitBreakerState breaker = opened(NO_WAIT);
+        MemoryCircuitBreaker.Phase earlier = breaker.tryAcquire();
+        MemoryCircuitBreaker.Phase failedProbe = breaker.tryAcquire();
+        breaker.recordFailure(failedProbe, 0);
+        MemoryCircuitBreaker.Phase current = breaker.tryAcquire();
+        assertNotSame(earlier, current);
+        
+        // Act
+        breaker.recordSuccess(earlier, 0);
+        breaker.recordSuccess(current, 0);
+        breaker.recordSuccess(current, 0);
+        State afterTwoProbes = breaker.getCurrentState();
+        breaker.recordSuccess(current, 0);
+        
+        // Assert
+        assertEquals(State.HALF_OPEN, afterTwoProbes);
+        assertEquals(State.CLOSED, breaker.getCurrentState());
+    }
+    
+    @Test
+    void reset_OpenBreaker_ShouldCloseAndClearWindow() {
+        // Arrange
+        CircuitBreakerState breaker = opened(LONG_WAIT);
+        
+        // Act
+        circuitBreaker.reset("payments");
+        
+        // Assert
+        assertEquals(State.CLOSED, circuitBreaker.getState("payments"));
+        assertEquals(0, breaker.getBufferedCalls());
+        assertTrue(breaker.isAllowed());
+    }
+    
+    private CircuitBreakerState opened(Config config) {
+        CircuitBreakerState breaker = circuitBreaker.breaker("payments", config);
+        for (int i = 0; i < 4; i++) {
+            breaker.recordFailure();
+        }
+        assertEquals(State.OPEN, breaker.getCurrentState());
+        return breaker;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.lsh.transaction.bulkhead;
+
+import com.lsh.transaction.annotation.Bulkhead;
+import com.lsh.transaction.aspect.BulkheadAspect;
+import com.lsh.transaction.exception.BulkheadFullException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryBulkheadTest {
+    
+    private final MemoryBulkhead memoryBulkhead = new MemoryBulkhead();
+    private AsyncWork work;
+    
+    @BeforeEach
+    void setUp() {
+        BulkheadAspect aspect = new BulkheadAspect();
+        ReflectionTestUtils.setField(aspect, "memoryBulkhead", memoryBulkhead);
+        AspectJProxyFactory factory = new AspectJProxyFactory(new AsyncWork());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        work = factory.getProxy();
+    }
+    
+    @Test
+    void tryAcquire_AllPermitsTaken_ShouldRejectUntilReleased() {
+        // Arrange
+        MemoryBulkhead.BulkheadState bulkhead = memoryBulkhead.bulkhead("sync", 2);
+        assertTrue(bulkhead.tryAcquire(0));
+        assertTrue(bulkhead.tryAcquire(0));
+        
+        // Act
+        boolean rejected = bulkhead.tryAcquire(0);
+        bulkhead.release();
+        boolean afterRelease = bulkhead.tryAcquire(0);
+        
+        // Assert
+        assertFalse(rejected);
+        assertTrue(afterRelease);
+        assertEquals(2, bulkhead.getActiveCalls());
+        assertEquals(1, bulkhead.getRejectedCount());
+    }
+    
+    @Test
+    void tryAcquire_WaitElapses_ShouldRejectAfterTimeout() {
+        // Arrange
+        MemoryBulkhead.BulkheadState bulkhead = memoryBulkhead.bulkhead("sync", 1);
+        assertTrue(bulkhead.tryAcquire(0));
+        
+        // Act
+        long start = System.nanoTime();
+        boolean acquired = bulkhead.tryAcquire(50);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        
+        // Assert
+        assertFalse(acquired);
+        assertTrue(elapsedMillis >= 40, "waited " + elapsedMillis + "ms");
+        assertEquals(1, bulkhead.getPeakQueueDepth());
+        assertEquals(0, bulkhead.getQueueDepth());
+    }
+    
+    @Test
+    void around_AsyncResult_ShouldHoldPermitUntilStageCompletes() {
+        // Arrange
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+        work.run(first);
+        work.run(second);
+        MemoryBulkhead.BulkheadState bulkhead = memoryBulkhead.getAllBulkheads().get("async");
+        
+        // Act & Assert: both permits stay taken while the work is in flight
+        assertEquals(2, bulkhead.getActiveCalls());
+        assertThrows(BulkheadFullException.class, () -> work.run(new CompletableFuture<>()));
+        
+        first.complete("done");
+        assertEquals(1, bulkhead.getActiveCalls());
+        second.completeExceptionally(new IllegalStateException("failed"));
+        assertEquals(0, bulkhead.getActiveCalls());
+        assertDoesNotThrow(() -> work.run(CompletableFuture.completedFuture("next")));
+        assertEquals(0, bulkhead.getActiveCalls());
+    }
+    
+    @Test
+    void around_MethodThrows_ShouldReleasePermit() {
+        // Act
+        assertThrows(IllegalArgumentException.class, () -> work.run(null));
+        
+        // Assert
+        assertEquals(0, memoryBulkhead.getAllBulkheads().get("async").getActiveCalls());
+    }
+    
+    static class AsyncWork {
+        
+        @Bulkhead(name = "async", maxConcurrentCalls = 2)
+        public CompletableFuture<String> run(CompletableFuture<String> work) {
+            if (work == null) {
+                throw new IllegalArgumentException("work is required");
+            }
+            return work;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,110 @@
+package com.lsh.transaction.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.model.TransactionRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureWebMvc
+@ActiveProfiles("local")
+class WireFormatConfigTest {
+    
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+    
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private MockMvc mockMvc;
+    
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
+    
+    @Test
+    void createTransaction_AcceptAny_ShouldRespondWithJson() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/transactions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.ALL)
+                        .content(objectMapper.writeValueAsBytes(request("json"))))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.description").value("json"));
+    }
+    
+    @Test
+    void createTransaction_CborBodyWithAcceptAny_ShouldParseCborAndRespondWithJson() throws Exception {
+        // Arrange
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+        
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/transactions")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.ALL)
+                        .content(cborMapper.writeValueAsBytes(request("cbor in"))))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.description").value("cbor in"));
+    }
+    
+    @Test
+    void createTransaction_Cbor_ShouldRoundTrip() throws Exception {
+        assertRoundTrip(new ObjectMapper(new CBORFactory()).findAndRegisterModules(), MediaType.APPLICATION_CBOR);
+    }
+    
+    @Test
+    void createTransaction_Smile_ShouldRoundTrip() throws Exception {
+        assertRoundTrip(new ObjectMapper(new SmileFactory()).findAndRegisterModules(), SMILE);
+    }
+    
+    private void assertRoundTrip(ObjectMapper mapper, MediaType mediaType) throws Exception {
+        // Act
+        MvcResult result = mockMvc.perform(post("/api/v1/transactions")
+                        .contentType(mediaType)
+                        .accept(mediaType)
+                        .content(mapper.writeValueAsBytes(request(mediaType.getSubtype()))))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentTypeCompatibleWith(mediaType))
+                .andReturn();
+        
+        // Assert
+        // Binary formats carry the UUID as raw bytes, so read it back through the model
+        Transaction created = mapper.readValue(result.getResponse().getContentAsByteArray(), Transaction.class);
+        assertEquals("ACCOUNT123456", created.getAccountNumber());
+        assertEquals(mediaType.getSubtype(), created.getDescription());
+        assertEquals(0, new BigDecimal("100.00").compareTo(created.getAmount()));
+        assertNotNull(created.getTimestamp());
+        
+        mockMvc.perform(get("/api/v1/transactions/" + created.getId()).accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.description").value(mediaType.getSubtype()));
+    }
+    
+    private static TransactionRequest request(String description) {
+        return new TransactionRequest("ACCOUNT123456", "DEPOSIT", new BigDecimal("100.00"), description, null);
+    }
+}
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.lsh.transaction.controller;
 
+import com.lsh.transaction.exception.GlobalExceptionHandler;
 import com.lsh.transaction.model.TransactionRequest;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,15 +8,18 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.math.BigDecimal;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -140,4 +144,62 @@ class TransactionControllerIntegrationTest {
                 .andExpect(jsonPath("$.transactionsByType").exists())
                 .andExpect(jsonPath("$.amountByType").exists());
     }
+    
+    @Test
+    void createTransaction_WithinRateLimit_ShouldReportRemainingRequests() throws Exception {
+        // Arrange: a client of its own, so the global limiter's count starts fresh
+        TransactionRequest request = new TransactionRequest(
+                "ACCOUNT555001", "DEPOSIT", new BigDecimal("10.00"), "Rate limit headers", null
+        );
+        String content = objectMapper.writeValueAsString(request);
+        
+        // Act
+        String first = mockMvc.perform(post("/api/v1/transactions")
+                        .header("X-Forwarded-For", "203.0.113.10")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(HttpHeaders.RETRY_AFTER))
+                .andReturn().getResponse().getHeader(GlobalExceptionHandler.RATE_LIMIT_REMAINING_HEADER);
+        
+        // Assert
+        assertNotNull(first);
+        mockMvc.perform(post("/api/v1/transactions")
+                        .header("X-Forwarded-For", "203.0.113.10")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content))
+                .andExpect(status().isCreated())
+                .andExpect(header().longValue(GlobalExceptionHandler.RATE_LIMIT_REMAINING_HEADER,
+                        Long.parseLong(first) - 1));
+    }
+    
+    @Test
+    void createTransaction_AccountRateLimitExceeded_ShouldReturnRetryAfter() throws Exception {
+        // Arrange: use up the account's write limit of 100 per minute
+        TransactionRequest request = new TransactionRequest(
+                "ACCOUNT555002", "DEPOSIT", new BigDecimal("10.00"), "Rate limit headers", null
+        );
+        String content = objectMapper.writeValueAsString(request);
+        for (int i = 0; i < 100; i++) {
+            mockMvc.perform(post("/api/v1/transactions")
+                            .header("X-Forwarded-For", "203.0.113.20")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(content))
+                    .andExpect(status().isCreated());
+        }
+        
+        // Act
+        MvcResult rejected = mockMvc.perform(post("/api/v1/transactions")
+                        .header("X-Forwarded-For", "203.0.113.20")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().stringValues(GlobalExceptionHandler.RATE_LIMIT_REMAINING_HEADER, "0"))
+                .andExpect(jsonPath("$.errorCode").value("RATE_LIMIT_EXCEEDED"))
+                .andReturn();
+        
+        // Assert
+        long retryAfter = Long.parseLong(rejected.getResponse().getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(retryAfter >= 1 && retryAfter <= 60, "Retry-After should fall within the window, was " + retryAfter);
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,113 @@
+package com.lsh.transaction.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+    
+    private static final long BASELINE_RTT = TimeUnit.MILLISECONDS.toNanos(10);
+    
+    @Test
+    void release_SteadyLatency_ShouldGrowLimit() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("steady", 20, 8, 2000, 2.0);
+        
+        // Act
+        for (int round = 0; round < 50; round++) {
+            saturate(limiter, BASELINE_RTT);
+        }
+        
+        // Assert
+        assertTrue(limiter.getLimit() > 100, "limit should grow, was " + limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+    
+    @Test
+    void release_LatencyRises_ShouldShrinkLimit() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("slowing", 20, 8, 200, 2.0);
+        for (int round = 0; round < 30; round++) {
+            saturate(limiter, BASELINE_RTT);
+        }
+        int grown = limiter.getLimit();
+        
+        // Act: one round at ten times the latency, before the long term baseline catches up
+        saturate(limiter, BASELINE_RTT * 10);
+        
+        // Assert
+        assertTrue(limiter.getLimit() < grown / 2, "limit should shrink from " + grown + ", was " + limiter.getLimit());
+        assertTrue(limiter.getLimit() >= 8);
+    }
+    
+    @Test
+    void release_Failure_ShouldBackOffAndStopAtMinimum() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("failing", 100, 8, 2000, 2.0);
+        
+        // Act
+        assertTrue(limiter.tryAcquire());
+        limiter.release(0, true);
+        int afterOne = limiter.getLimit();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(BASELINE_RTT, true);
+        }
+        
+        // Assert
+        assertEquals(90, afterOne);
+        assertEquals(8, limiter.getLimit());
+    }
+    
+    @Test
+    void release_ConcurrentFailures_ShouldApplyEveryBackoff() throws Exception {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("contended", 1000, 1, 2000, 2.0);
+        int failures = 20;
+        for (int i = 0; i < failures; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(failures);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        
+        // Act
+        for (int i = 0; i < failures; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                limiter.release(BASELINE_RTT, true);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        
+        // Assert
+        assertEquals((int) (1000 * Math.pow(0.9, failures)), limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+    
+    /**
+     * Take every permit the limit allows, then release them all with the given latency
+     */
+    private static void saturate(AdaptiveConcurrencyLimiter limiter, long rttNanos) {
+        int taken = 0;
+        while (limiter.tryAcquire()) {
+            taken++;
+        }
+        for (int i = 0; i < taken; i++) {
+            limiter.release(rttNanos, false);
+        }
+    }
+}
\ No newline at end of file
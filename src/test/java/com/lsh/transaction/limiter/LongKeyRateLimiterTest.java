@@ -0,0 +1,111 @@
+package com.lsh.transaction.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongKeyRateLimiterTest {
+    
+    @Test
+    void constructor_ShouldRoundCapacityUpToPowerOfTwo() {
+        assertEquals(16, new LongKeyRateLimiter(1).getCapacity());
+        assertEquals(1024, new LongKeyRateLimiter(1000).getCapacity());
+        assertEquals(1024, new LongKeyRateLimiter(1024).getCapacity());
+    }
+    
+    @Test
+    void tryAcquire_DistinctKeys_ShouldCountIndependently() {
+        // Arrange
+        LongKeyRateLimiter limiter = new LongKeyRateLimiter(64);
+        
+        // Act
+        for (long key = 1; key <= 20; key++) {
+            for (int i = 0; i < key % 3 + 1; i++) {
+                limiter.tryAcquire(key, 100, 60);
+            }
+        }
+        
+        // Assert
+        for (long key = 1; key <= 20; key++) {
+            assertEquals(key % 3 + 1, limiter.getCurrentCount(key), "key " + key);
+        }
+        assertEquals(20, limiter.getActiveKeys(60));
+    }
+    
+    @Test
+    void tryAcquire_ConcurrentCallersOnOneKey_ShouldAllowExactlyLimit() throws Exception {
+        // Arrange
+        LongKeyRateLimiter limiter = new LongKeyRateLimiter(16);
+        int threads = 8;
+        int perThread = 200;
+        int limit = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        
+        // Act
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                int allowed = 0;
+                for (int i = 0; i < perThread; i++) {
+                    if (limiter.isAllowed(42L, limit, 60)) {
+                        allowed++;
+                    }
+                }
+                return allowed;
+            }));
+        }
+        start.countDown();
+        int allowed = 0;
+        for (Future<Integer> future : futures) {
+            allowed += future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        
+        // Assert
+        assertEquals(limit, allowed);
+        assertEquals(limit, limiter.getCurrentCount(42L));
+    }
+    
+    @Test
+    void tryAcquire_NeighbourhoodFullOfLiveKeys_ShouldShareHomeSlotInsteadOfFailingOpen() {
+        // Arrange: occupy every slot of the table with a live window
+        LongKeyRateLimiter limiter = new LongKeyRateLimiter(16);
+        long key = 1;
+        while (limiter.getActiveKeys(60) < limiter.getCapacity()) {
+            limiter.tryAcquire(key++, 1000, 60);
+        }
+        long newcomer = key + 1000;
+        
+        // Act
+        long decision = limiter.tryAcquire(newcomer, 1000, 60);
+        
+        // Assert: the newcomer is counted on top of an existing key's window
+        assertTrue(RateLimitDecision.isAllowed(decision));
+        assertTrue(RateLimitDecision.remaining(decision) <= 1000 - 2);
+        assertEquals(0, limiter.getCurrentCount(newcomer));
+    }
+    
+    @Test
+    void reset_ShouldReopenWindowForKey() {
+        // Arrange
+        LongKeyRateLimiter limiter = new LongKeyRateLimiter(16);
+        limiter.tryAcquire(7L, 1, 60);
+        assertFalse(limiter.isAllowed(7L, 1, 60));
+        
+        // Act
+        limiter.reset(7L);
+        
+        // Assert
+        assertTrue(limiter.isAllowed(7L, 1, 60));
+    }
+}
\ No newline at end of file
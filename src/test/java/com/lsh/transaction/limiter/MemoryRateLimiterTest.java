@@ -0,0 +1,85 @@
+package com.lsh.transaction.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryRateLimiterTest {
+    
+    private final MemoryRateLimiter rateLimiter = new MemoryRateLimiter();
+    
+    @Test
+    void tryAcquire_LimitExceeded_ShouldRejectUntilWindowExpires() {
+        // Act
+        long first = rateLimiter.tryAcquire("account:A", 2, 60);
+        long second = rateLimiter.tryAcquire("account:A", 2, 60);
+        long third = rateLimiter.tryAcquire("account:A", 2, 60);
+        
+        // Assert
+        assertTrue(RateLimitDecision.isAllowed(first));
+        assertEquals(1, RateLimitDecision.remaining(first));
+        assertTrue(RateLimitDecision.isAllowed(second));
+        assertFalse(RateLimitDecision.isAllowed(third));
+    }
+    
+    @Test
+    void sweep_ExpiredDynamicKeys_ShouldRemoveThemButKeepPinnedCounters() {
+        // Arrange
+        for (int i = 0; i < 100; i++) {
+            rateLimiter.tryAcquire("account:" + i, 10, 1);
+        }
+        MemoryRateLimiter.WindowCounter pinned = rateLimiter.counter("api:/transactions");
+        rateLimiter.tryAcquire(pinned, 10, 1);
+        
+        // Act
+        rateLimiter.sweep(Instant.now().getEpochSecond() + 5);
+        
+        // Assert
+        assertEquals(1, rateLimiter.getAllCounters().size());
+        assertSame(pinned, rateLimiter.counter("api:/transactions"));
+    }
+    
+    @Test
+    void sweep_ActiveWindow_ShouldKeepCounter() {
+        // Arrange
+        rateLimiter.tryAcquire("account:A", 1, 60);
+        
+        // Act
+        rateLimiter.sweep(Instant.now().getEpochSecond());
+        
+        // Assert
+        assertEquals(1, rateLimiter.getCurrentCount("account:A"));
+        assertFalse(rateLimiter.isAllowed("account:A", 1, 60));
+    }
+    
+    @Test
+    void tryAcquire_AfterKeyWasSwept_ShouldStartFreshCounter() {
+        // Arrange
+        rateLimiter.tryAcquire("account:A", 1, 1);
+        rateLimiter.sweep(Instant.now().getEpochSecond() + 5);
+        
+        // Act
+        long decision = rateLimiter.tryAcquire("account:A", 1, 1);
+        
+        // Assert
+        assertTrue(RateLimitDecision.isAllowed(decision));
+        assertEquals(1, rateLimiter.getCurrentCount("account:A"));
+    }
+    
+    @Test
+    void clear_ShouldDropDynamicKeysAndResetPinnedCounters() {
+        // Arrange
+        rateLimiter.tryAcquire("account:A", 1, 60);
+        MemoryRateLimiter.WindowCounter pinned = rateLimiter.counter("api:/transactions");
+        rateLimiter.tryAcquire(pinned, 1, 60);
+        
+        // Act
+        rateLimiter.clear();
+        
+        // Assert
+        assertEquals(1, rateLimiter.getAllCounters().size());
+        assertTrue(rateLimiter.isAllowed(pinned, 1, 60));
+    }
+}
\ No newline at end of file
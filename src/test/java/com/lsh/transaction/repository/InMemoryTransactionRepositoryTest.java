@@ -0,0 +1,157 @@
+package com.lsh.transaction.repository;
+
+import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.model.TransactionFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryTransactionRepositoryTest {
+    
+    private static final String[] ACCOUNTS = {"ACCOUNT0000000001", "ACCOUNT0000000002", "ACCOUNT0000000003"};
+    private static final String[] TYPES = {"DEPOSIT", "WITHDRAWAL", "TRANSFER"};
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    
+    private InMemoryTransactionRepository repository;
+    
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryTransactionRepository();
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            Transaction transaction = new Transaction(ACCOUNTS[random.nextInt(ACCOUNTS.length)],
+                    TYPES[random.nextInt(TYPES.length)], BigDecimal.valueOf(random.nextInt(1000)), "test");
+            transaction.setTimestamp(START.plusMinutes(random.nextInt(10_000)));
+            repository.save(transaction);
+        }
+    }
+    
+    @Test
+    void search_CompositeFilter_ShouldMatchFullScan() {
+        // Arrange
+        TransactionFilter filter = TransactionFilter.byAccount(ACCOUNTS[0]);
+        filter.setTransactionType("DEPOSIT");
+        filter.setMinAmount(new BigDecimal("100"));
+        filter.setMaxAmount(new BigDecimal("700"));
+        filter.setFrom(START.plusMinutes(1_000));
+        filter.setTo(START.plusMinutes(8_000));
+        List<Transaction> expected = fullScan(filter);
+        
+        // Act
+        List<Transaction> firstPage = repository.search(filter, 0, 5);
+        List<Transaction> all = repository.search(filter, 0, 1000);
+        
+        // Assert
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, all);
+        assertEquals(expected.subList(0, 5), firstPage);
+        assertEquals(expected.size(), repository.count(filter));
+    }
+    
+    @Test
+    void findByTimestampBetween_RangeAcrossPartitions_ShouldMatchFullScan() {
+        // Arrange: bounds fall inside partitions so both edge partitions are trimmed
+        LocalDateTime from = START.plusMinutes(2_030);
+        LocalDateTime to = START.plusMinutes(4_710);
+        TransactionFilter filter = new TransactionFilter();
+        filter.setFrom(from);
+        filter.setTo(to);
+        List<Transaction> expected = fullScan(filter);
+        
+        // Act
+        List<Transaction> all = repository.findByTimestampBetween(from, to, 0, 1000);
+        List<Transaction> secondPage = repository.findByTimestampBetween(from, to, 1, 10);
+        
+        // Assert
+        assertEquals(expected, all);
+        assertEquals(expected.subList(10, 20), secondPage);
+        assertEquals(expected.size(), repository.countByTimestampBetween(from, to));
+        assertEquals(500, repository.countByTimestampBetween(null, null));
+        assertTrue(repository.getTimePartitions().size() > 100);
+    }
+    
+    @Test
+    void findByAccountNumber_OutOfOrderWrites_ShouldPageNewestFirst() {
+        // Arrange: thousands of rows for one account, mostly appended, some back-dated and some deleted
+        Random random = new Random(3);
+        for (int i = 0; i < 3_000; i++) {
+            Transaction transaction = new Transaction(ACCOUNTS[1], "DEPOSIT", BigDecimal.ONE, "bulk");
+            transaction.setTimestamp(START.plusMinutes(i % 10 == 0 ? random.nextInt(3_000) : i));
+            repository.save(transaction);
+            if (i % 7 == 0) {
+                repository.deleteById(transaction.getId());
+            }
+        }
+        TransactionFilter filter = TransactionFilter.byAccount(ACCOUNTS[1]);
+        List<Transaction> expected = fullScan(filter);
+        filter.setTransactionType("DEPOSIT");
+        filter.setTo(START.plusMinutes(2_000));
+        List<Transaction> expectedDepositsBefore = fullScan(filter);
+        
+        // Act & Assert
+        assertEquals(expected.size(), repository.countByAccountNumber(ACCOUNTS[1]));
+        assertEquals(expected.subList(0, 50), repository.findByAccountNumber(ACCOUNTS[1], 0, 50));
+        assertEquals(expected.subList(1_300, 1_350), repository.findByAccountNumber(ACCOUNTS[1], 26, 50));
+        assertEquals(expectedDepositsBefore, repository.search(filter, 0, 5_000));
+    }
+    
+    @Test
+    void search_AccountWithMoreSelectiveIndex_ShouldCheckAccountOnStoredRows() {
+        // Arrange: the recipient posting is far smaller than the account's log, so it drives the query
+        for (int i = 0; i < 5; i++) {
+            Transaction transaction = new Transaction(ACCOUNTS[i % 2], "TRANSFER", BigDecimal.TEN, "transfer");
+            transaction.setRecipientAccount("ACCOUNT0000000099");
+            transaction.setTimestamp(START.plusMinutes(i));
+            repository.save(transaction);
+        }
+        TransactionFilter filter = TransactionFilter.byAccount(ACCOUNTS[0]);
+        filter.setRecipientAccount("ACCOUNT0000000099");
+        
+        // Act
+        List<Transaction> result = repository.search(filter, 0, 100);
+        
+        // Assert
+        assertEquals(3, result.size());
+        assertEquals(fullScan(filter), result);
+        assertTrue(repository.search(TransactionFilter.byAccount("ACCOUNT0000000404"), 0, 10).isEmpty());
+        assertEquals(0, repository.count(TransactionFilter.byAccount("ACCOUNT0000000404")));
+    }
+    
+    @Test
+    void update_ChangedFields_ShouldMoveTransactionBetweenIndexes() {
+        // Arrange
+        Transaction transaction = repository.findAll(0, 1).get(0);
+        String otherAccount = ACCOUNTS[0].equals(transaction.getAccountNumber()) ? ACCOUNTS[1] : ACCOUNTS[0];
+        long before = repository.countByAccountNumber(otherAccount);
+        
+        // Act
+        transaction.setAccountNumber(otherAccount);
+        transaction.setStatus("CANCELLED");
+        repository.update(transaction);
+        
+        // Assert
+        assertEquals(before + 1, repository.countByAccountNumber(otherAccount));
+        TransactionFilter cancelled = new TransactionFilter();
+        cancelled.setStatus("CANCELLED");
+        assertEquals(List.of(transaction), repository.search(cancelled, 0, 10));
+        
+        assertTrue(repository.deleteById(transaction.getId()));
+        assertEquals(0, repository.count(cancelled));
+        assertEquals(before, repository.countByAccountNumber(otherAccount));
+    }
+    
+    private List<Transaction> fullScan(TransactionFilter filter) {
+        return repository.getAllTransactions().stream()
+                .filter(filter::matches)
+                .sorted(Comparator.comparing(Transaction::getTimestamp).thenComparing(Transaction::getId).reversed())
+                .collect(Collectors.toList());
+    }
+}
\ No newline at end of file
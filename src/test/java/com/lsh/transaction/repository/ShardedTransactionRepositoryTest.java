@@ -0,0 +1,95 @@
+package com.lsh.transaction.repository;
+
+import com.lsh.transaction.exception.TransactionException;
+import com.lsh.transaction.model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedTransactionRepositoryTest {
+    
+    private ShardedTransactionRepository sharded;
+    private InMemoryTransactionRepository single;
+    
+    @BeforeEach
+    void setUp() {
+        sharded = new ShardedTransactionRepository(4, 60);
+        single = new InMemoryTransactionRepository();
+        Random random = new Random(7);
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            Transaction transaction = new Transaction("ACCOUNT" + (1_000_000_000L + random.nextInt(40)),
+                    i % 2 == 0 ? "DEPOSIT" : "WITHDRAWAL", BigDecimal.TEN, "test");
+            transaction.setTimestamp(LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(random.nextInt(5_000)));
+            batch.add(transaction);
+            single.save(transaction);
+        }
+        sharded.saveAll(batch);
+    }
+    
+    @Test
+    void findAll_AcrossShards_ShouldMergeInTimestampOrder() {
+        // Assert
+        assertEquals(single.findAll(0, 25), sharded.findAll(0, 25));
+        assertEquals(single.findAll(7, 25), sharded.findAll(7, 25));
+        assertEquals(single.findByTransactionType("DEPOSIT", 3, 10), sharded.findByTransactionType("DEPOSIT", 3, 10));
+        assertEquals(400, sharded.count());
+        assertTrue(sharded.getShardSizes().stream().allMatch(size -> size > 0));
+    }
+    
+    @Test
+    void update_ChangedAccount_ShouldMoveTransactionToItsNewShard() {
+        // Arrange
+        Transaction transaction = sharded.findAll(0, 1).get(0);
+        String account = "ACCOUNT9999999999";
+        
+        // Act
+        transaction.setAccountNumber(account);
+        sharded.update(transaction);
+        
+        // Assert
+        assertEquals(List.of(transaction), sharded.findByAccountNumber(account, 0, 10));
+        assertEquals(400, sharded.count());
+        assertEquals(transaction, sharded.findById(transaction.getId()).orElseThrow());
+        assertTrue(sharded.deleteById(transaction.getId()));
+        assertFalse(sharded.existsById(transaction.getId()));
+    }
+    
+    @Test
+    void findById_AfterSaveEvictAndDelete_ShouldFollowRoutingTable() {
+        // Arrange
+        Transaction evicted = sharded.findAll(0, 1).get(0);
+        Transaction saved = sharded.save(new Transaction("ACCOUNT1234567890", "DEPOSIT", BigDecimal.ONE, "routed"));
+        
+        // Act
+        int removed = sharded.evict(List.of(evicted));
+        
+        // Assert
+        assertEquals(saved, sharded.findById(saved.getId()).orElseThrow());
+        assertEquals(1, removed);
+        assertFalse(sharded.existsById(evicted.getId()));
+        assertTrue(sharded.deleteById(saved.getId()));
+        assertFalse(sharded.deleteById(saved.getId()));
+        assertTrue(sharded.findById(saved.getId()).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> sharded.update(saved));
+    }
+    
+    @Test
+    void search_OffsetPastMergeLimit_ShouldRejectInsteadOfOverflowing() {
+        // Arrange
+        ShardedTransactionRepository capped = new ShardedTransactionRepository(4, 60, 100);
+        
+        // Act & Assert
+        assertTrue(capped.findAll(10, 10).isEmpty());
+        TransactionException deep = assertThrows(TransactionException.class, () -> capped.findAll(11, 10));
+        assertEquals("PAGE_TOO_DEEP", deep.getErrorCode());
+        assertThrows(TransactionException.class, () -> sharded.findAll(Integer.MAX_VALUE / 10, 100));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.lsh.transaction.repository;
+
+import com.lsh.transaction.archive.ArchiveStore;
+import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.model.TransactionFilter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredTransactionRepositoryTest {
+    
+    @TempDir
+    Path archiveDir;
+    
+    @Test
+    void reads_ArchivedTransactions_ShouldFallThroughToColdSegments() throws Exception {
+        // Arrange: 300 old transactions over three accounts in cold segments, spanning several blocks
+        ShardedTransactionRepository hot = new ShardedTransactionRepository(2, 60);
+        ArchiveStore cold = new ArchiveStore(archiveDir.toString());
+        TieredTransactionRepository repository = new TieredTransactionRepository(hot, cold);
+        LocalDateTime old = LocalDateTime.of(2024, 1, 1, 0, 0, 0, 123_456_789);
+        List<Transaction> archived = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Transaction transaction = new Transaction("ACCOUNT00000" + (i % 3), i % 2 == 0 ? "DEPOSIT" : "TRANSFER",
+                    new BigDecimal(i + ".25"), "Archived " + i);
+            transaction.setTimestamp(old.plusSeconds(i));
+            transaction.setStatus("COMPLETED");
+            transaction.setRecipientAccount(i % 2 == 0 ? null : "ACCOUNT999999");
+            archived.add(transaction);
+        }
+        cold.write(archived.subList(0, 150));
+        cold.write(archived.subList(150, 300));
+        Transaction recent = new Transaction("ACCOUNT000001", "DEPOSIT", new BigDecimal("5.00"), "Hot");
+        repository.save(recent);
+        
+        // Act & Assert: lookups by id decode the exact record
+        Transaction original = archived.get(251);
+        Transaction found = repository.findById(original.getId()).orElseThrow();
+        assertEquals(original.getAccountNumber(), found.getAccountNumber());
+        assertEquals(original.getTimestamp(), found.getTimestamp());
+        assertEquals(original.getAmount(), found.getAmount());
+        assertEquals("TRANSFER", found.getTransactionType());
+        assertEquals("ACCOUNT999999", found.getRecipientAccount());
+        assertEquals("Archived 251", found.getDescription());
+        assertTrue(repository.existsById(archived.get(0).getId()));
+        
+        // Pages continue from the hot transactions into the archived ones, newest first
+        assertEquals(301, repository.count());
+        assertEquals(101, repository.countByAccountNumber("ACCOUNT000001"));
+        assertEquals(150, repository.countByTransactionType("TRANSFER"));
+        List<Transaction> firstPage = repository.findByAccountNumber("ACCOUNT000001", 0, 10);
+        assertEquals(recent.getId(), firstPage.get(0).getId());
+        assertEquals(archived.get(298).getId(), firstPage.get(1).getId());
+        List<Transaction> laterPage = repository.findByAccountNumber("ACCOUNT000001", 2, 10);
+        assertEquals(archived.get(298 - 3 * 19).getId(), laterPage.get(0).getId());
+        List<Transaction> range = repository.findByTimestampBetween(old.plusSeconds(100), old.plusSeconds(110), 0, 20);
+        assertEquals(10, range.size());
+        assertEquals(archived.get(109).getId(), range.get(0).getId());
+        assertEquals(10, repository.count(rangeFilter(old.plusSeconds(145), old.plusSeconds(155))));
+        
+        // Archived transactions are read-only
+        assertThrows(IllegalArgumentException.class, () -> repository.update(found));
+        assertFalse(repository.deleteById(original.getId()));
+        assertEquals(301, repository.streamAll().map(Transaction::getId).collect(Collectors.toSet()).size());
+    }
+    
+    private static TransactionFilter rangeFilter(LocalDateTime from, LocalDateTime to) {
+        TransactionFilter filter = new TransactionFilter();
+        filter.setFrom(from);
+        filter.setTo(to);
+        return filter;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.lsh.transaction.service;
+
+import com.lsh.transaction.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BalanceLedgerTest {
+    
+    private final BalanceLedger ledger = new BalanceLedger();
+    
+    @Test
+    void apply_TransferUpdatedAndDeleted_ShouldMoveFundsBetweenAccounts() {
+        // Arrange
+        ledger.apply(transaction("ACCOUNT000001", "DEPOSIT", "100.00", null));
+        Transaction transfer = transaction("ACCOUNT000001", "TRANSFER", "30.00", "ACCOUNT000002");
+        ledger.apply(transfer);
+        
+        // Assert
+        assertEquals(new BigDecimal("70.00"), ledger.getBalance("ACCOUNT000001").getBalance());
+        assertEquals(new BigDecimal("30.00"), ledger.getBalance("ACCOUNT000002").getBalance());
+        
+        // Act: the transfer becomes a withdrawal, then is deleted
+        BalanceLedger.Effect before = BalanceLedger.Effect.of(transfer);
+        transfer.setTransactionType("WITHDRAWAL");
+        transfer.setRecipientAccount(null);
+        ledger.replace(before, transfer);
+        
+        // Assert
+        assertEquals(new BigDecimal("70.00"), ledger.getBalance("ACCOUNT000001").getBalance());
+        assertEquals(0, ledger.getBalance("ACCOUNT000002").getBalance().signum());
+        
+        ledger.revert(BalanceLedger.Effect.of(transfer));
+        assertEquals(new BigDecimal("100.00"), ledger.getBalance("ACCOUNT000001").getBalance());
+        assertEquals(1, ledger.getBalance("ACCOUNT000001").getTransactionCount());
+    }
+    
+    @Test
+    void apply_ConcurrentTransfers_ShouldConserveTotalBalance() throws Exception {
+        // Arrange
+        String[] accounts = {"ACCOUNT000001", "ACCOUNT000002", "ACCOUNT000003", "ACCOUNT000004"};
+        List<Future<?>> futures = new ArrayList<>();
+        
+        // Act
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 10_000; i++) {
+                String from = accounts[i % accounts.length];
+                String to = accounts[(i + 1) % accounts.length];
+                futures.add(executor.submit(() -> ledger.apply(transaction(from, "TRANSFER", "1.25", to))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        
+        // Assert: every account sent and received the same number of transfers
+        for (String account : accounts) {
+            assertEquals(0, ledger.getBalance(account).getBalance().signum());
+            assertEquals(5_000, ledger.getBalance(account).getTransactionCount());
+        }
+    }
+    
+    private static Transaction transaction(String account, String type, String amount, String recipient) {
+        Transaction transaction = new Transaction(account, type, new BigDecimal(amount), "test");
+        transaction.setRecipientAccount(recipient);
+        return transaction;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.lsh.transaction.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lsh.transaction.exception.TransactionException;
+import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.repository.InMemoryTransactionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionExportServiceTest {
+    
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 1, 15, 10, 0);
+    
+    private final InMemoryTransactionRepository transactionRepository = new InMemoryTransactionRepository();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final TransactionExportService exportService = new TransactionExportService(transactionRepository, objectMapper);
+    
+    @Test
+    void export_CsvWithSpecialCharacters_ShouldQuoteAndEscapeFields() throws IOException {
+        // Arrange
+        Transaction transaction = save("ACCOUNT000001", "DEPOSIT", "1234.50", "Rent, \"March\"\nsecond line", BASE);
+        save("ACCOUNT000001", "DEPOSIT", "10", "plain", BASE.plusMinutes(1)).setStatus(null);
+        
+        // Act
+        String csv = export(TransactionExportService.Format.CSV, null, null, null, null);
+        
+        // Assert
+        String expectedFirst = transaction.getId() + ",ACCOUNT000001,DEPOSIT,1234.50,"
+                + "\"Rent, \"\"March\"\"\nsecond line\",2026-01-15 10:00:00,,PENDING\n";
+        assertTrue(csv.startsWith("id,accountNumber,transactionType,amount,description,timestamp,recipientAccount,status\n"));
+        assertTrue(csv.contains(expectedFirst), csv);
+        assertTrue(csv.contains(",ACCOUNT000001,DEPOSIT,10,plain,2026-01-15 10:01:00,,\n"), csv);
+    }
+    
+    @Test
+    void export_FilteredCsv_ShouldWriteOnlyMatchingRows() throws IOException {
+        // Arrange
+        save("ACCOUNT000001", "DEPOSIT", "100", "in range", BASE.plusHours(1));
+        save("ACCOUNT000001", "WITHDRAWAL", "20", "other type", BASE.plusHours(1));
+        save("ACCOUNT000002", "DEPOSIT", "100", "other account", BASE.plusHours(1));
+        save("ACCOUNT000001", "DEPOSIT", "100", "too early", BASE.minusHours(1));
+        save("ACCOUNT000001", "DEPOSIT", "100", "too late", BASE.plusDays(2));
+        
+        // Act
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long rows = exportService.export(TransactionExportService.Format.CSV, "ACCOUNT000001", "DEPOSIT",
+                BASE, BASE.plusDays(1), output);
+        
+        // Assert
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1, rows);
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].contains(",in range,"), lines[1]);
+    }
+    
+    @Test
+    void export_Ndjson_ShouldWriteOneJsonObjectPerLine() throws IOException {
+        // Arrange
+        List<Transaction> saved = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            saved.add(save("ACCOUNT000001", "DEPOSIT", "1" + i, "row " + i, BASE.plusMinutes(i)));
+        }
+        
+        // Act
+        String ndjson = export(TransactionExportService.Format.NDJSON, "ACCOUNT000001", null, null, null);
+        
+        // Assert
+        String[] lines = ndjson.split("\n");
+        assertEquals(3, lines.length);
+        List<String> ids = new ArrayList<>();
+        for (String line : lines) {
+            JsonNode node = objectMapper.readTree(line);
+            assertEquals("ACCOUNT000001", node.get("accountNumber").asText());
+            ids.add(node.get("id").asText());
+        }
+        assertTrue(ids.containsAll(saved.stream().map(t -> t.getId().toString()).toList()));
+    }
+    
+    @Test
+    void formatOf_UnknownFormat_ShouldThrowTransactionException() {
+        assertEquals(TransactionExportService.Format.CSV, TransactionExportService.Format.of("csv"));
+        assertThrows(TransactionException.class, () -> TransactionExportService.Format.of("xml"));
+    }
+    
+    private Transaction save(String account, String type, String amount, String description, LocalDateTime timestamp) {
+        Transaction transaction = new Transaction(account, type, new BigDecimal(amount), description);
+        transaction.setTimestamp(timestamp);
+        return transactionRepository.save(transaction);
+    }
+    
+    private String export(TransactionExportService.Format format, String account, String type,
+                          LocalDateTime from, LocalDateTime to) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.export(format, account, type, from, to, output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,222 @@
+package com.lsh.transaction.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lsh.transaction.model.BatchCreateResult;
+import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.model.TransactionRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class TransactionIngestServiceTest {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TransactionService transactionService = mock(TransactionService.class);
+    // Description of every created transaction by id, to match result lines back to records
+    private final Map<String, String> createdDescriptions = new ConcurrentHashMap<>();
+    
+    @BeforeEach
+    void setUp() {
+        // Create every request with a positive amount, reject the rest
+        when(transactionService.createTransactions(anyList())).thenAnswer(invocation -> {
+            List<TransactionRequest> requests = invocation.getArgument(0);
+            List<BatchCreateResult.ItemResult> results = new ArrayList<>();
+            int created = 0;
+            for (int i = 0; i < requests.size(); i++) {
+                TransactionRequest request = requests.get(i);
+                if (request.getAmount().signum() > 0) {
+                    Transaction transaction = new Transaction();
+                    transaction.setId(UUID.randomUUID());
+                    createdDescriptions.put(transaction.getId().toString(), request.getDescription());
+                    results.add(BatchCreateResult.ItemResult.created(i, transaction));
+                    created++;
+                } else {
+                    results.add(BatchCreateResult.ItemResult.rejected(i, "Transaction amount must be greater than zero"));
+                }
+            }
+            return new BatchCreateResult(requests.size(), created, requests.size() - created, results);
+        });
+    }
+    
+    @Test
+    void ingest_RecordsSpanningChunkBoundary_ShouldCreateEveryRecordInOrder() throws IOException {
+        // Arrange: about 200KB, so several records straddle the 64KB read chunks
+        TransactionIngestService service = service(500, 65536);
+        StringBuilder input = new StringBuilder();
+        for (int i = 1; i <= 2000; i++) {
+            input.append(record("line " + i, "10.00")).append('\n');
+        }
+        
+        // Act
+        List<JsonNode> results = ingest(service, new ByteArrayInputStream(bytes(input)));
+        
+        // Assert
+        assertEquals(2001, results.size());
+        for (int i = 1; i <= 2000; i++) {
+            JsonNode result = results.get(i - 1);
+            assertEquals(i, result.get("line").asLong());
+            assertEquals("CREATED", result.get("status").asText());
+            assertEquals("line " + i, createdDescriptions.get(result.get("id").asText()));
+        }
+        assertSummary(results.get(2000), 2000, 2000, 0);
+    }
+    
+    @Test
+    void ingest_ShortReads_ShouldReassembleRecords() throws IOException {
+        // Arrange: every read returns a few bytes, splitting records at arbitrary positions
+        TransactionIngestService service = service(500, 65536);
+        String input = record("first", "10.00") + "\n" + record("second", "20.00") + "\n" + record("third", "30.00");
+        InputStream trickle = new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+        
+        // Act
+        List<JsonNode> results = ingest(service, trickle);
+        
+        // Assert
+        assertEquals("first", createdDescriptions.get(results.get(0).get("id").asText()));
+        assertEquals("second", createdDescriptions.get(results.get(1).get("id").asText()));
+        assertEquals("third", createdDescriptions.get(results.get(2).get("id").asText()));
+        assertSummary(results.get(3), 3, 3, 0);
+    }
+    
+    @Test
+    void ingest_OversizedRecord_ShouldRejectOnlyThatLine() throws IOException {
+        // Arrange
+        TransactionIngestService service = service(500, 1024);
+        String input = record("before", "10.00") + "\n"
+                + record("x".repeat(4000), "10.00") + "\n"
+                + record("after", "10.00") + "\n";
+        
+        // Act
+        List<JsonNode> results = ingest(service, new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+        
+        // Assert
+        assertEquals("CREATED", results.get(0).get("status").asText());
+        assertEquals(2, results.get(1).get("line").asLong());
+        assertEquals("REJECTED", results.get(1).get("status").asText());
+        assertEquals("Record exceeds 1024 bytes", results.get(1).get("error").asText());
+        assertEquals(3, results.get(2).get("line").asLong());
+        assertEquals("after", createdDescriptions.get(results.get(2).get("id").asText()));
+        assertSummary(results.get(3), 3, 2, 1);
+    }
+    
+    @Test
+    void ingest_CrlfLineEndings_ShouldParseRecordsAndSkipBlankLines() throws IOException {
+        // Arrange
+        TransactionIngestService service = service(500, 65536);
+        String input = record("first", "10.00") + "\r\n\r\n" + record("second", "20.00") + "\r\n";
+        
+        // Act
+        List<JsonNode> results = ingest(service, new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+        
+        // Assert
+        assertEquals(3, results.size());
+        assertEquals(1, results.get(0).get("line").asLong());
+        assertEquals("first", createdDescriptions.get(results.get(0).get("id").asText()));
+        assertEquals(3, results.get(1).get("line").asLong());
+        assertEquals("second", createdDescriptions.get(results.get(1).get("id").asText()));
+        assertSummary(results.get(2), 2, 2, 0);
+    }
+    
+    @Test
+    void ingest_MixedRecordsAcrossBatches_ShouldKeepLineOrder() throws IOException {
+        // Arrange: batches of three, with parse and service rejections interleaved
+        TransactionIngestService service = service(3, 65536);
+        String input = String.join("\n",
+                record("one", "10.00"),
+                "{not json",
+                record("three", "-5.00"),
+                record("four", "10.00"),
+                record("five", "10.00"),
+                "[]",
+                record("seven", "10.00"));
+        
+        // Act
+        List<JsonNode> results = ingest(service, new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+        
+        // Assert
+        String[] expected = {"CREATED", "REJECTED", "REJECTED", "CREATED", "CREATED", "REJECTED", "CREATED"};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(i + 1, results.get(i).get("line").asLong());
+            assertEquals(expected[i], results.get(i).get("status").asText(), "line " + (i + 1));
+        }
+        assertEquals("four", createdDescriptions.get(results.get(3).get("id").asText()));
+        assertEquals("seven", createdDescriptions.get(results.get(6).get("id").asText()));
+        assertSummary(results.get(7), 7, 4, 3);
+        // Lines 1-3, 4-6 and 7 are flushed separately; only parsed records reach the service
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TransactionRequest>> batches = ArgumentCaptor.forClass(List.class);
+        verify(transactionService, times(3)).createTransactions(batches.capture());
+        assertEquals(List.of(2, 2, 1), batches.getAllValues().stream().map(List::size).toList());
+    }
+    
+    @Test
+    void constructor_BatchSizeOverServiceLimit_ShouldClampToMaxBatchSize() throws IOException {
+        // Arrange
+        TransactionIngestService service = service(50_000, 65536);
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < TransactionService.MAX_BATCH_SIZE + 1; i++) {
+            input.append(record("r", "1.00")).append('\n');
+        }
+        
+        // Act
+        ingest(service, new ByteArrayInputStream(bytes(input)));
+        
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TransactionRequest>> batches = ArgumentCaptor.forClass(List.class);
+        verify(transactionService, times(2)).createTransactions(batches.capture());
+        assertEquals(List.of(TransactionService.MAX_BATCH_SIZE, 1),
+                batches.getAllValues().stream().map(List::size).toList());
+    }
+    
+    private TransactionIngestService service(int batchSize, int maxRecordBytes) {
+        return new TransactionIngestService(transactionService, objectMapper, batchSize, maxRecordBytes);
+    }
+    
+    private List<JsonNode> ingest(TransactionIngestService service, InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        service.ingest(input, output);
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+    
+    private static String record(String description, String amount) {
+        return "{\"accountNumber\":\"ACCOUNT123456\",\"transactionType\":\"DEPOSIT\",\"amount\":" + amount
+                + ",\"description\":\"" + description + "\"}";
+    }
+    
+    private static byte[] bytes(StringBuilder input) {
+        return input.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static void assertSummary(JsonNode summary, long total, long created, long rejected) {
+        assertEquals("COMPLETED", summary.get("status").asText());
+        assertEquals(total, summary.get("total").asLong());
+        assertEquals(created, summary.get("created").asLong());
+        assertEquals(rejected, summary.get("rejected").asLong());
+    }
+}
\ No newline at end of file
@@ -1,10 +1,17 @@
 package com.lsh.transaction.service;
 
+import com.lsh.transaction.archive.ArchiveStore;
+import com.lsh.transaction.exception.DuplicateResourceException;
 import com.lsh.transaction.exception.ResourceNotFoundException;
+import com.lsh.transaction.exception.TransactionException;
+import com.lsh.transaction.idempotency.IdempotencyStore;
+import com.lsh.transaction.model.BatchCreateResult;
 import com.lsh.transaction.model.PaginatedResponse;
 import com.lsh.transaction.model.Transaction;
 import com.lsh.transaction.model.TransactionRequest;
 import com.lsh.transaction.repository.InMemoryTransactionRepository;
+import com.lsh.transaction.settlement.PendingQueue;
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,6 +22,7 @@ import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -31,9 +39,14 @@ class TransactionServiceTest {
     
     private com.lsh.transaction.service.TransactionServiceImpl transactionService;
     
+    private BalanceLedger ledger;
+    
     @BeforeEach
     void setUp() {
-        transactionService = new com.lsh.transaction.service.TransactionServiceImpl(transactionRepository, cacheService);
+        ledger = new BalanceLedger();
+        transactionService = new com.lsh.transaction.service.TransactionServiceImpl(transactionRepository, cacheService,
+                new IdempotencyStore(60, 100), ledger, new TransferExecutor(ledger, 16, true),
+                new PendingQueue(), mock(ArchiveStore.class), Validation.buildDefaultValidatorFactory().getValidator());
 
         // Mock cacheService.getWithNullProtection to directly call supplier
         lenient().when(cacheService.getWithNullProtection(anyString(), anyString(), any()))
@@ -72,6 +85,132 @@ class TransactionServiceTest {
         verify(transactionRepository).save(any(Transaction.class));
     }
     
+    @Test
+    void createTransaction_RetriedWithIdempotencyKey_ShouldCreateOnce() {
+        // Arrange
+        TransactionRequest request = new TransactionRequest(
+                "ACCOUNT123456", "DEPOSIT", new BigDecimal("100.00"), "Test deposit", null
+        );
+        TransactionRequest retry = new TransactionRequest(
+                "ACCOUNT123456", "DEPOSIT", new BigDecimal("100.0"), "Test deposit", null
+        );
+        
+        Transaction expectedTransaction = new Transaction();
+        expectedTransaction.setId(UUID.randomUUID());
+        expectedTransaction.setAccountNumber("ACCOUNT123456");
+        
+        when(transactionRepository.save(any(Transaction.class))).thenReturn(expectedTransaction);
+        
+        // Act
+        Transaction first = transactionService.createTransaction(request, "key-1");
+        Transaction second = transactionService.createTransaction(retry, "key-1");
+        
+        // Assert
+        assertSame(first, second);
+        verify(transactionRepository, times(1)).save(any(Transaction.class));
+        
+        TransactionRequest different = new TransactionRequest(
+                "ACCOUNT123456", "DEPOSIT", new BigDecimal("200.00"), "Test deposit", null
+        );
+        assertThrows(DuplicateResourceException.class, () -> {
+            transactionService.createTransaction(different, "key-1");
+        });
+    }
+    
+    @Test
+    void createTransaction_SameIdempotencyKeyFromAnotherAccount_ShouldCreateSeparately() {
+        // Arrange
+        TransactionRequest request = new TransactionRequest(
+                "ACCOUNT123456", "DEPOSIT", new BigDecimal("100.00"), "Test deposit", null
+        );
+        TransactionRequest otherClient = new TransactionRequest(
+                "ACCOUNT654321", "DEPOSIT", new BigDecimal("100.00"), "Test deposit", null
+        );
+        
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // Act
+        Transaction first = transactionService.createTransaction(request, "key-1");
+        Transaction second = transactionService.createTransaction(otherClient, "key-1");
+        
+        // Assert
+        assertNotSame(first, second);
+        assertEquals("ACCOUNT654321", second.getAccountNumber());
+        verify(transactionRepository, times(2)).save(any(Transaction.class));
+    }
+    
+    @Test
+    void createTransactions_MixedBatch_ShouldSaveValidItemsInOneWrite() {
+        // Arrange
+        TransactionRequest valid = new TransactionRequest(
+                "ACCOUNT123456", "DEPOSIT", new BigDecimal("100.00"), "Test deposit", null
+        );
+        TransactionRequest transferWithoutRecipient = new TransactionRequest(
+                "ACCOUNT123456", "TRANSFER", new BigDecimal("50.00"), "Test transfer", null
+        );
+        
+        when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // Act
+        BatchCreateResult result = transactionService.createTransactions(Arrays.asList(valid, transferWithoutRecipient, valid));
+        
+        // Assert
+        assertEquals(3, result.getTotal());
+        assertEquals(2, result.getCreated());
+        assertEquals(1, result.getRejected());
+        assertEquals("CREATED", result.getResults().get(0).getStatus());
+        assertEquals("REJECTED", result.getResults().get(1).getStatus());
+        assertEquals(2, result.getResults().get(2).getIndex());
+        assertNotNull(result.getResults().get(2).getTransaction());
+        
+        verify(transactionRepository, times(1)).saveAll(anyList());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+    
+    @Test
+    void createTransactions_InvalidItems_ShouldRejectWithConstraintMessages() {
+        // Arrange
+        TransactionRequest valid = new TransactionRequest(
+                "ACCOUNT123456", "DEPOSIT", new BigDecimal("100.00"), "Test deposit", null
+        );
+        TransactionRequest badAccountAndAmount = new TransactionRequest(
+                "acct", "DEPOSIT", new BigDecimal("0.00"), "Test deposit", null
+        );
+        TransactionRequest badRecipient = new TransactionRequest(
+                "ACCOUNT123456", "TRANSFER", new BigDecimal("10.00"), "Test transfer", "bad"
+        );
+        
+        when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // Act
+        BatchCreateResult result = transactionService.createTransactions(Arrays.asList(valid, badAccountAndAmount, badRecipient));
+        
+        // Assert
+        assertEquals(1, result.getCreated());
+        assertEquals("Account number must be 10-20 alphanumeric characters; Amount must be greater than 0",
+                result.getResults().get(1).getError());
+        assertEquals("Recipient account must be 10-20 alphanumeric characters", result.getResults().get(2).getError());
+    }
+    
+    @Test
+    void createTransactions_SaveFails_ShouldRevertBalances() {
+        // Arrange
+        TransactionRequest deposit = new TransactionRequest(
+                "ACCOUNT123456", "DEPOSIT", new BigDecimal("100.00"), "Test deposit", null
+        );
+        TransactionRequest transfer = new TransactionRequest(
+                "ACCOUNT123456", "TRANSFER", new BigDecimal("30.00"), "Test transfer", "ACCOUNT789012"
+        );
+        
+        when(transactionRepository.saveAll(anyList())).thenThrow(new IllegalStateException("Store unavailable"));
+        
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> transactionService.createTransactions(Arrays.asList(deposit, transfer)));
+        assertEquals(0, ledger.getBalance("ACCOUNT123456").getBalance().signum());
+        assertEquals(0, ledger.getBalance("ACCOUNT789012").getBalance().signum());
+        assertEquals(0, ledger.getBalance("ACCOUNT123456").getTransactionCount());
+    }
+    
     @Test
     void createTransaction_TransferWithoutRecipient_ShouldThrowException() {
         // Arrange
@@ -143,6 +282,50 @@ class TransactionServiceTest {
         verify(transactionRepository).findById(transactionId);
     }
     
+    @Test
+    void updateTransaction_WriteFails_ShouldLeaveStoredTransactionUnchanged() {
+        // Arrange
+        UUID transactionId = UUID.randomUUID();
+        Transaction existingTransaction = new Transaction("ACCOUNT123456", "DEPOSIT", new BigDecimal("100.00"), "Original");
+        existingTransaction.setId(transactionId);
+        TransactionRequest request = new TransactionRequest(
+                "ACCOUNT789012", "WITHDRAWAL", new BigDecimal("40.00"), "Changed", null
+        );
+        
+        when(transactionRepository.findById(transactionId)).thenReturn(Optional.of(existingTransaction));
+        when(transactionRepository.update(existingTransaction)).thenThrow(new IllegalArgumentException("Transaction archived"));
+        
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> transactionService.updateTransaction(transactionId, request));
+        assertEquals("ACCOUNT123456", existingTransaction.getAccountNumber());
+        assertEquals("DEPOSIT", existingTransaction.getTransactionType());
+        assertEquals(new BigDecimal("100.00"), existingTransaction.getAmount());
+        assertEquals("Original", existingTransaction.getDescription());
+    }
+    
+    @Test
+    void updateTransaction_ArchivedTransaction_ShouldRejectWithoutChangingCachedCopy() {
+        // Arrange
+        UUID transactionId = UUID.randomUUID();
+        Transaction archivedTransaction = new Transaction("ACCOUNT123456", "DEPOSIT", new BigDecimal("100.00"), "Archived");
+        archivedTransaction.setId(transactionId);
+        TransactionRequest request = new TransactionRequest(
+                "ACCOUNT789012", "DEPOSIT", new BigDecimal("40.00"), "Changed", null
+        );
+        
+        when(transactionRepository.findById(transactionId)).thenReturn(Optional.of(archivedTransaction));
+        when(transactionRepository.isReadOnly(transactionId)).thenReturn(true);
+        
+        // Act & Assert
+        TransactionException exception = assertThrows(TransactionException.class,
+                () -> transactionService.updateTransaction(transactionId, request));
+        assertEquals("TRANSACTION_ARCHIVED", exception.getErrorCode());
+        assertEquals("ACCOUNT123456", archivedTransaction.getAccountNumber());
+        assertEquals("Archived", archivedTransaction.getDescription());
+        verify(transactionRepository, never()).update(any());
+        verify(cacheService).conditionalEvict("transactions", transactionId.toString(), true);
+    }
+    
     @Test
     void deleteTransaction_ExistingTransaction_ShouldDeleteSuccessfully() {
         // Arrange
@@ -205,6 +388,23 @@ class TransactionServiceTest {
         verify(transactionRepository).count();
     }
     
+    @Test
+    void getTransactionStatistics_ShouldStreamTransactionsWithoutMaterialisingThem() {
+        // Arrange
+        when(transactionRepository.streamAll()).thenReturn(Stream.of(
+                new Transaction("ACCOUNT123456", "DEPOSIT", new BigDecimal("100.00"), "Test 1"),
+                new Transaction("ACCOUNT789012", "WITHDRAWAL", new BigDecimal("50.00"), "Test 2")
+        ));
+        
+        // Act
+        TransactionStatistics statistics = transactionService.getTransactionStatistics();
+        
+        // Assert
+        assertEquals(2, statistics.getTotalTransactions());
+        assertEquals(new BigDecimal("150.00"), statistics.getTotalAmount());
+        verify(transactionRepository, never()).getAllTransactions();
+    }
+    
     @Test
     void getAllTransactions_InvalidPageSize_ShouldThrowException() {
         // Act & Assert
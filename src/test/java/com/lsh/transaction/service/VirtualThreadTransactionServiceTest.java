@@ -0,0 +1,68 @@
+package com.lsh.transaction.service;
+
+import com.lsh.transaction.deadline.RequestDeadline;
+import com.lsh.transaction.exception.DeadlineExceededException;
+import com.lsh.transaction.idempotency.IdempotencyStore;
+import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.model.TransactionRequest;
+import com.lsh.transaction.repository.InMemoryTransactionRepository;
+import com.lsh.transaction.settlement.PendingQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class VirtualThreadTransactionServiceTest {
+    
+    private final CountDownLatch saved = new CountDownLatch(1);
+    private final InMemoryTransactionRepository transactionRepository = new InMemoryTransactionRepository() {
+        @Override
+        public Transaction save(Transaction transaction) {
+            try {
+                // Slower than the request deadline below
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Transaction result = super.save(transaction);
+            saved.countDown();
+            return result;
+        }
+    };
+    private final BalanceLedger ledger = new BalanceLedger();
+    private final VirtualThreadTransactionServiceImpl service = new VirtualThreadTransactionServiceImpl(
+            transactionRepository, mock(CacheService.class), mock(TransactionService.class),
+            new IdempotencyStore(60, 100), new TransferExecutor(ledger, 16, false), new PendingQueue());
+    
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.clear();
+    }
+    
+    @Test
+    void createTransactionAsync_DeadlineShorterThanSave_RetryShouldReplayInsteadOfWritingAgain() throws Exception {
+        // Arrange
+        TransactionRequest request = new TransactionRequest(
+                "ACCOUNT123456", "DEPOSIT", new BigDecimal("100.00"), "Deposit", null);
+        RequestDeadline.bind(RequestDeadline.after(50));
+        
+        // Act: the first attempt times out while the save is still running
+        CompletionException timeout = assertThrows(CompletionException.class,
+                () -> service.createTransactionAsync(request, "key-1").join());
+        assertTrue(saved.await(5, TimeUnit.SECONDS));
+        RequestDeadline.bind(RequestDeadline.after(1000));
+        Transaction retried = service.createTransactionAsync(request, "key-1").get(5, TimeUnit.SECONDS);
+        
+        // Assert
+        assertInstanceOf(DeadlineExceededException.class, timeout.getCause());
+        assertEquals(1, transactionRepository.count());
+        assertEquals(transactionRepository.getAllTransactions().get(0).getId(), retried.getId());
+        assertEquals(0, new BigDecimal("100.00").compareTo(ledger.getBalance("ACCOUNT123456").getBalance()));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,100 @@
+package com.lsh.transaction.settlement;
+
+import com.lsh.transaction.model.Transaction;
+import com.lsh.transaction.model.TransactionFilter;
+import com.lsh.transaction.repository.InMemoryTransactionRepository;
+import com.lsh.transaction.service.BalanceLedger;
+import com.lsh.transaction.service.TransferExecutor;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SettlementPipelineTest {
+    
+    private final InMemoryTransactionRepository repository = new InMemoryTransactionRepository();
+    private final BalanceLedger ledger = new BalanceLedger();
+    private final TransferExecutor transferExecutor = new TransferExecutor(ledger, 16, false);
+    private final PendingQueue pendingQueue = new PendingQueue();
+    private final SettlementPipeline pipeline =
+            new SettlementPipeline(pendingQueue, repository, transferExecutor, false, 2, 10);
+    
+    @Test
+    void settleBatch_PendingTransactions_ShouldCompleteInBatchesAndSkipCancelled() {
+        // Arrange
+        create("ACCOUNT000001", "DEPOSIT", "100.00");
+        create("ACCOUNT000001", "WITHDRAWAL", "30.00");
+        Transaction cancelled = create("ACCOUNT000001", "WITHDRAWAL", "20.00");
+        assertTrue(transferExecutor.cancel(cancelled, () -> repository.update(cancelled)));
+        
+        // Act
+        int first = pipeline.settleBatch();
+        int second = pipeline.settleBatch();
+        
+        // Assert
+        assertEquals(2, first);
+        assertEquals(0, second);
+        assertEquals(0, pendingQueue.size());
+        assertEquals(2, pipeline.getCompletedCount());
+        assertEquals(1, pipeline.getSkippedCount());
+        assertEquals(2, repository.count(statusFilter("COMPLETED")));
+        assertEquals(1, repository.count(statusFilter("CANCELLED")));
+        assertEquals(0, repository.count(statusFilter("PENDING")));
+        assertEquals(new BigDecimal("70.00"), ledger.getBalance("ACCOUNT000001").getBalance());
+        assertFalse(transferExecutor.cancel(cancelled, () -> repository.update(cancelled)));
+    }
+    
+    @Test
+    void settleBatch_DebitUpdatedBeyondFunds_ShouldFailAndRevertIt() {
+        // Arrange: the withdrawal passed its funds check at creation and was then raised beyond them
+        Transaction deposit = create("ACCOUNT000001", "DEPOSIT", "50.00");
+        Transaction withdrawal = create("ACCOUNT000001", "WITHDRAWAL", "40.00");
+        transferExecutor.update(withdrawal, withdrawal.getAccountNumber(), null,
+                transaction -> transaction.setAmount(new BigDecimal("80.00")), () -> repository.update(withdrawal));
+        
+        // Act
+        pipeline.settleBatch();
+        
+        // Assert
+        assertEquals("COMPLETED", deposit.getStatus());
+        assertEquals("FAILED", withdrawal.getStatus());
+        assertEquals(1, pipeline.getFailedCount());
+        assertEquals(new BigDecimal("50.00"), ledger.getBalance("ACCOUNT000001").getBalance());
+        
+        // Deleting the failed withdrawal must not revert it a second time
+        transferExecutor.delete(withdrawal, () -> repository.deleteById(withdrawal.getId()));
+        assertEquals(new BigDecimal("50.00"), ledger.getBalance("ACCOUNT000001").getBalance());
+    }
+    
+    @Test
+    void settleBatch_AccountOverdrawnByAnotherWrite_ShouldCompleteFundedDebit() {
+        // Arrange: the deposit is reduced after the withdrawal passed its funds check
+        Transaction deposit = create("ACCOUNT000001", "DEPOSIT", "50.00");
+        Transaction withdrawal = create("ACCOUNT000001", "WITHDRAWAL", "40.00");
+        transferExecutor.update(deposit, deposit.getAccountNumber(), null,
+                transaction -> transaction.setAmount(new BigDecimal("10.00")), () -> repository.update(deposit));
+        
+        // Act
+        pipeline.settleBatch();
+        
+        // Assert: the withdrawal is judged on the funds it saw, not on the later reduction
+        assertEquals("COMPLETED", deposit.getStatus());
+        assertEquals("COMPLETED", withdrawal.getStatus());
+        assertEquals(0, pipeline.getFailedCount());
+        assertEquals(new BigDecimal("-30.00"), ledger.getBalance("ACCOUNT000001").getBalance());
+    }
+    
+    private Transaction create(String account, String type, String amount) {
+        Transaction transaction = new Transaction(account, type, new BigDecimal(amount), "Settlement test");
+        transferExecutor.create(transaction, () -> repository.save(transaction));
+        pendingQueue.add(transaction);
+        return transaction;
+    }
+    
+    private static TransactionFilter statusFilter(String status) {
+        TransactionFilter filter = new TransactionFilter();
+        filter.setStatus(status);
+        return filter;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,85 @@
+package com.lsh.transaction.shedding;
+
+import com.lsh.transaction.annotation.Criticality;
+import com.lsh.transaction.interceptor.AdaptiveConcurrencyInterceptor;
+import com.lsh.transaction.limiter.AdaptiveConcurrencyLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadShedderTest {
+    
+    private final LoadShedder loadShedder =
+            new LoadShedder(new AdaptiveConcurrencyInterceptor(50, 8, 2000, 2.0), 200, 50);
+    
+    @Test
+    void admit_SlowGroup_ShouldShedByCriticality() {
+        // Arrange
+        AdaptiveConcurrencyLimiter slow = slowGroup();
+        
+        // Act & Assert
+        assertFalse(loadShedder.admit(slow, Criticality.Level.SHEDDABLE));
+        assertTrue(loadShedder.admit(slow, Criticality.Level.DEFAULT));
+        assertTrue(loadShedder.admit(slow, Criticality.Level.CRITICAL));
+        assertEquals(1, loadShedder.getShedCount(Criticality.Level.SHEDDABLE));
+        assertEquals(0, loadShedder.getShedCount(Criticality.Level.DEFAULT));
+    }
+    
+    @Test
+    void admit_FastGroupNextToSlowGroup_ShouldNotShed() {
+        // Arrange
+        slowGroup();
+        AdaptiveConcurrencyLimiter fast = new AdaptiveConcurrencyLimiter("fast", 50, 8, 2000, 2.0);
+        feed(fast, 1, 20);
+        
+        // Act & Assert
+        assertTrue(loadShedder.admit(fast, Criticality.Level.SHEDDABLE));
+        assertEquals(0, loadShedder.getShedCount(Criticality.Level.SHEDDABLE));
+    }
+    
+    @Test
+    void getQueueingDelayNanos_NoNewSamples_ShouldDecayWithTime() {
+        // Arrange
+        AdaptiveConcurrencyLimiter slow = slowGroup();
+        long now = System.nanoTime();
+        long delay = slow.getQueueingDelayNanos(now);
+        
+        // Act
+        long afterOneSecond = slow.getQueueingDelayNanos(now + TimeUnit.SECONDS.toNanos(1));
+        long afterTenSeconds = slow.getQueueingDelayNanos(now + TimeUnit.SECONDS.toNanos(10));
+        
+        // Assert
+        assertTrue(delay > TimeUnit.MILLISECONDS.toNanos(100), "delay " + delay);
+        assertTrue(afterOneSecond <= delay / 4 + 1, "after 1s " + afterOneSecond);
+        assertTrue(afterTenSeconds < TimeUnit.MILLISECONDS.toNanos(1), "after 10s " + afterTenSeconds);
+    }
+    
+    @Test
+    void getQueueingDelayNanos_SteadyLatency_ShouldBeZero() {
+        // Arrange
+        AdaptiveConcurrencyLimiter steady = new AdaptiveConcurrencyLimiter("steady", 50, 8, 2000, 2.0);
+        feed(steady, 20, 50);
+        
+        // Act & Assert
+        assertEquals(0, steady.getQueueingDelayNanos());
+    }
+    
+    /**
+     * A group whose latency jumped from 1ms to 200ms, roughly 180ms of queueing delay
+     */
+    private static AdaptiveConcurrencyLimiter slowGroup() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("slow", 50, 8, 2000, 2.0);
+        feed(limiter, 1, 1);
+        feed(limiter, 200, 20);
+        return limiter;
+    }
+    
+    private static void feed(AdaptiveConcurrencyLimiter limiter, long rttMillis, int samples) {
+        for (int i = 0; i < samples; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(rttMillis), false);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,102 @@
+package com.lsh.transaction.writer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleWriterTest {
+    
+    @Test
+    void execute_Commands_ShouldRunInOrderAndReturnResults() {
+        // Arrange
+        SingleWriter singleWriter = new SingleWriter(4);
+        singleWriter.start();
+        StringBuilder order = new StringBuilder();
+        
+        // Act
+        for (int i = 0; i < 10; i++) {
+            int value = i;
+            assertEquals(value, singleWriter.execute(() -> {
+                order.append(value);
+                return value;
+            }));
+        }
+        
+        // Assert
+        assertEquals("0123456789", order.toString());
+        singleWriter.shutdown();
+    }
+    
+    @Test
+    void shutdown_QueuedCommand_ShouldFailItAndLetRunningCommandFinish() throws Exception {
+        // Arrange: one command holds the writer while a second waits behind it
+        SingleWriter singleWriter = new SingleWriter(4);
+        singleWriter.start();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean queuedRan = new AtomicBoolean();
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> singleWriter.execute(() -> {
+            started.countDown();
+            awaitQuietly(release);
+            return "done";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> singleWriter.execute(() -> queuedRan.getAndSet(true)));
+        while (singleWriter.getBacklog() < 2) {
+            Thread.onSpinWait();
+        }
+        
+        // Act
+        CompletableFuture<Void> shutdown = CompletableFuture.runAsync(singleWriter::shutdown);
+        while (singleWriter.isRunning()) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        shutdown.get(5, TimeUnit.SECONDS);
+        
+        // Assert
+        assertEquals("done", running.get(5, TimeUnit.SECONDS));
+        CompletionException failure = assertThrows(CompletionException.class, () -> queued.orTimeout(5, TimeUnit.SECONDS).join());
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertFalse(queuedRan.get());
+        assertThrows(IllegalStateException.class, () -> singleWriter.execute(() -> "late"));
+    }
+    
+    @Test
+    void execute_AfterIdle_ShouldWakeWriterParkedWithoutTimeout() throws Exception {
+        // Arrange
+        SingleWriter singleWriter = new SingleWriter(4);
+        singleWriter.start();
+        Thread writer = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("single-writer") && thread.isAlive())
+                .findFirst().orElseThrow();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writer.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        // Idle, the writer waits for an unpark rather than polling on a timer
+        assertEquals(Thread.State.WAITING, writer.getState());
+        
+        // Act
+        String result = singleWriter.execute(() -> "woken");
+        
+        // Assert
+        assertEquals("woken", result);
+        singleWriter.shutdown();
+        assertFalse(writer.isAlive());
+    }
+    
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
\ No newline at end of file